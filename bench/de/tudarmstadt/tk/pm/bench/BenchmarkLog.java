@@ -0,0 +1,130 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.bench;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Synthetic event log shared by the benchmarks. The log is split into
+ * drifts + 1 equally long segments; every segment follows its own random
+ * process over the alphabet, and the trace names start with the segment
+ * (e.g. "s1_42"), so the evaluation finds the drifts as true change points.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkLog {
+
+	@Param({ "5000", "50000" })
+	public int logSize;
+
+	@Param({ "10", "40" })
+	public int alphabetSize;
+
+	@Param({ "1", "5" })
+	public int drifts;
+
+	public XLog log;
+
+	public List<String> eventNames;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		eventNames = new ArrayList<>();
+		for (int i = 0; i < alphabetSize; i++) {
+			eventNames.add("A" + i);
+		}
+
+		log = create(logSize, eventNames, drifts, 42);
+	}
+
+	/**
+	 * Returns the index of the first trace after the given drift.
+	 *
+	 * @param drift
+	 * @return
+	 */
+	public int getDriftIndex(int drift) {
+		return (int) (((long) logSize * (drift + 1) + drifts) / (drifts + 1));
+	}
+
+	/**
+	 * Creates a log whose traces are random walks through the successor
+	 * relation of their segment; every activity has two successors.
+	 *
+	 * @param size
+	 * @param eventNames
+	 * @param drifts
+	 * @param seed
+	 * @return
+	 */
+	public static XLog create(int size, List<String> eventNames, int drifts, long seed) {
+		XFactory factory = XFactoryRegistry.instance().currentDefault();
+		Random random = new Random(seed);
+
+		int alphabetSize = eventNames.size();
+		int[][][] successors = new int[drifts + 1][alphabetSize][2];
+		for (int[][] segment : successors) {
+			for (int[] activity : segment) {
+				activity[0] = random.nextInt(alphabetSize);
+				activity[1] = random.nextInt(alphabetSize);
+			}
+		}
+
+		XLog log = factory.createLog();
+		long time = 1514764800000L;
+
+		for (int i = 0; i < size; i++) {
+			int segment = (int) ((long) i * (drifts + 1) / size);
+
+			XTrace trace = factory.createTrace();
+			XConceptExtension.instance().assignName(trace, "s" + segment + "_" + i);
+
+			int activity = 0;
+			int length = 3 + random.nextInt(10);
+			for (int j = 0; j < length; j++) {
+				XEvent event = factory.createEvent();
+				XConceptExtension.instance().assignName(event, eventNames.get(activity));
+				XTimeExtension.instance().assignTimestamp(event, new Date(time + j * 1000L));
+				trace.add(event);
+
+				activity = successors[segment][activity][random.nextInt(2)];
+			}
+
+			log.add(trace);
+			time += 60000L;
+		}
+
+		return log;
+	}
+
+}
@@ -0,0 +1,65 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.tudarmstadt.tk.pm.ProcessDriftDetectionPlugin;
+import de.tudarmstadt.tk.pm.ProcessDriftOutput;
+import de.tudarmstadt.tk.pm.ProcessDriftSettings;
+import de.tudarmstadt.tk.pm.ProcessDriftSettings.CountingMode;
+
+/**
+ * Runs the whole plugin on the log as the ProM UI does, without reasons.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class DetectionBenchmark {
+
+	@Param({ "HEURISTICS_MINER", "INCREMENTAL", "PREFIX_INDEX" })
+	public CountingMode countingMode;
+
+	@Benchmark
+	public ProcessDriftOutput detect(BenchmarkLog log) {
+		ProcessDriftSettings settings = new ProcessDriftSettings();
+		settings.setCountingMode(countingMode);
+		settings.setCalculateReasons(false);
+
+		ProcessDriftDetectionPlugin plugin = new ProcessDriftDetectionPlugin();
+		plugin.DEBUG = false;
+		plugin.setSettings(settings);
+
+		return plugin.detect(null, log.log);
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.tudarmstadt.tk.pm.ChangePoint;
+import de.tudarmstadt.tk.pm.evaluation.EvaluationCalculator;
+import de.tudarmstadt.tk.pm.evaluation.EvaluationResult;
+
+/**
+ * Reads the true change points of the log and scores change points that are
+ * detected a few traces after every drift.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class EvaluationBenchmark {
+
+	private List<ChangePoint> changePoints;
+
+	private EvaluationCalculator evaluation;
+
+	@Setup(Level.Trial)
+	public void setUp(BenchmarkLog log) {
+		changePoints = new ArrayList<>();
+		for (int i = 0; i < log.drifts; i++) {
+			changePoints.add(new ChangePoint(log.getDriftIndex(i) + 10));
+		}
+
+		evaluation = new EvaluationCalculator(log.log);
+	}
+
+	@Benchmark
+	public EvaluationCalculator groundTruth(BenchmarkLog log) {
+		return new EvaluationCalculator(log.log);
+	}
+
+	@Benchmark
+	public EvaluationResult evaluate() {
+		return evaluation.evaluate(changePoints);
+	}
+
+	@Benchmark
+	public EvaluationResult evaluateWithTolerance() {
+		return evaluation.evaluate(changePoints, 100);
+	}
+
+}
@@ -0,0 +1,80 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.deckfour.xes.model.XLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.processmining.models.heuristics.HeuristicsNet;
+
+import de.tudarmstadt.tk.pm.GraphMetrics;
+import de.tudarmstadt.tk.pm.ProcessDriftSettings;
+import de.tudarmstadt.tk.pm.utils.MetricsUtils;
+import de.tudarmstadt.tk.pm.utils.XLogUtils;
+import de.tudarmstadt.tk.pm.window.ActivityDictionary;
+
+/**
+ * Mines a window of the maximum window size around the first drift, as the
+ * heuristics miner counting mode does for every compared window.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class MetricsBenchmark {
+
+	private XLog window;
+
+	private HeuristicsNet net;
+
+	private ActivityDictionary dictionary;
+
+	@Setup(Level.Trial)
+	public void setUp(BenchmarkLog log) {
+		int windowSize = new ProcessDriftSettings().getMaxWindowSize();
+		int start = Math.max(0, log.getDriftIndex(0) - windowSize / 2);
+
+		window = XLogUtils.subset(log.log, start, start + windowSize);
+		net = MetricsUtils.generateHeuristicsNet(null, window);
+		dictionary = new ActivityDictionary(log.eventNames);
+	}
+
+	@Benchmark
+	public HeuristicsNet generateHeuristicsNet() {
+		return MetricsUtils.generateHeuristicsNet(null, window);
+	}
+
+	@Benchmark
+	public GraphMetrics getGraphMetrics() {
+		return MetricsUtils.getGraphMetrics(net, dictionary);
+	}
+
+}
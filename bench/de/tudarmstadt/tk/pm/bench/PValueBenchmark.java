@@ -0,0 +1,124 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.tudarmstadt.tk.pm.GraphMetrics;
+import de.tudarmstadt.tk.pm.PValue;
+import de.tudarmstadt.tk.pm.ProcessDriftSettings;
+import de.tudarmstadt.tk.pm.ProcessDriftSettings.CountingMode;
+import de.tudarmstadt.tk.pm.drift.CountVectors;
+import de.tudarmstadt.tk.pm.utils.GTestKernel;
+import de.tudarmstadt.tk.pm.window.ArcCountTable;
+import de.tudarmstadt.tk.pm.window.HeuristicsMinerMetricsProvider;
+import de.tudarmstadt.tk.pm.window.IncrementalMetricsProvider;
+import de.tudarmstadt.tk.pm.window.WindowCountIndex;
+import de.tudarmstadt.tk.pm.window.WindowMetricsProvider;
+
+/**
+ * Compares the window pair that ends at the first drift as the detector does,
+ * i.e. counts both windows, pairs their counts and runs the G-test with the
+ * p-value thresholds, without the window cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PValueBenchmark {
+
+	@Param({ "HEURISTICS_MINER", "INCREMENTAL", "PREFIX_INDEX" })
+	public CountingMode countingMode;
+
+	private final GTestKernel kernel = new GTestKernel();
+
+	private final CountVectors arcs = new CountVectors();
+
+	private final CountVectors nodes = new CountVectors();
+
+	private ProcessDriftSettings settings;
+
+	private WindowMetricsProvider provider;
+
+	private int windowSize;
+
+	private int index;
+
+	@Setup(Level.Trial)
+	public void setUp(BenchmarkLog log) {
+		settings = new ProcessDriftSettings();
+
+		switch (countingMode) {
+		case INCREMENTAL:
+			provider = new IncrementalMetricsProvider(log.log, log.eventNames);
+			break;
+		case PREFIX_INDEX:
+			provider = new WindowCountIndex(log.log, log.eventNames, settings.getIndexMemoryBudget());
+			break;
+		default:
+			provider = new HeuristicsMinerMetricsProvider(null, log.log, log.eventNames);
+		}
+
+		windowSize = settings.getInitialWindowSize();
+		index = Math.max(0, log.getDriftIndex(0) - windowSize);
+	}
+
+	@Benchmark
+	public PValue calculatePValue() {
+		GraphMetrics reference = provider.getGraphMetrics(index, index + windowSize);
+		GraphMetrics detection = provider.getGraphMetrics(index + windowSize, index + windowSize * 2);
+
+		ArcCountTable referenceArcs = reference.getArcCounts();
+		ArcCountTable detectionArcs = detection.getArcCounts();
+
+		arcs.clear();
+		referenceArcs.forEach((from, to, count) -> arcs.add(count, detectionArcs.get(from, to)));
+		detectionArcs.forEach((from, to, count) -> {
+			if (referenceArcs.get(from, to) == 0) {
+				arcs.add(0, count);
+			}
+		});
+
+		nodes.clear();
+		for (int i = 0; i < Math.max(reference.getNumberOfActivities(), detection.getNumberOfActivities()); i++) {
+			nodes.add(reference.getNodeCount(i), detection.getNodeCount(i));
+		}
+
+		return new PValue(
+				kernel.pValue(nodes.getReferences(), nodes.getDetections(), nodes.getLength(),
+						settings.getNodePValueThreshold()),
+				kernel.pValue(arcs.getReferences(), arcs.getDetections(), arcs.getLength(),
+						settings.getArcPValueThreshold()));
+	}
+
+}
@@ -0,0 +1,53 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.deckfour.xes.model.XLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.tudarmstadt.tk.pm.utils.XLogUtils;
+
+/**
+ * Takes the middle half of the log as a view and as a filtered copy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class XLogUtilsBenchmark {
+
+	@Benchmark
+	public XLog subset(BenchmarkLog log) {
+		return XLogUtils.subset(log.log, log.logSize / 4, log.logSize * 3 / 4);
+	}
+
+	@Benchmark
+	public XLog filter(BenchmarkLog log) {
+		return XLogUtils.filter(XLogUtils.subset(log.log, log.logSize / 4, log.logSize * 3 / 4));
+	}
+
+}
@@ -17,7 +17,12 @@
  */
 package de.tudarmstadt.tk.pm;
 
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RunnableFuture;
+
+import de.tudarmstadt.tk.pm.reasons.MetricChange;
 
 public class ChangePoint {
 	
@@ -27,7 +32,9 @@ public class ChangePoint {
 	
 	private int indexAfterChunk;
 	
-	private Map<String, String> reasons;
+	private volatile List<MetricChange> reasons;
+
+	private volatile Future<List<MetricChange>> pendingReasons;
 	
 	public ChangePoint(int index) {
 		this.index = index;
@@ -63,12 +70,51 @@ public class ChangePoint {
 		this.indexAfterChunk = indexAfterChunk;
 	}
 
-	public Map<String, String> getReasons() {
+	/**
+	 * Returns the metrics that changed at the change point, largest change
+	 * first. Pending reasons are awaited, or calculated in the calling thread if
+	 * their calculation has not started.
+	 *
+	 * @return
+	 */
+	public List<MetricChange> getReasons() {
+		Future<List<MetricChange>> pending = pendingReasons;
+
+		if (reasons == null && pending != null) {
+			if (pending instanceof RunnableFuture) {
+				((RunnableFuture<List<MetricChange>>) pending).run();
+			}
+
+			try {
+				reasons = pending.get();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for the reasons.", ex);
+			} catch (ExecutionException ex) {
+				throw new IllegalStateException("Calculation of the reasons failed.", ex.getCause());
+			}
+		}
+
 		return reasons;
 	}
 
-	public void setReasons(Map<String, String> reasons) {
+	public void setReasons(List<MetricChange> reasons) {
 		this.reasons = reasons;
+		this.pendingReasons = null;
+	}
+
+	/**
+	 * Sets reasons that are calculated later.
+	 *
+	 * @param reasons
+	 */
+	public void setPendingReasons(Future<List<MetricChange>> reasons) {
+		this.reasons = null;
+		this.pendingReasons = reasons;
+	}
+
+	public boolean hasReasons() {
+		return reasons != null || pendingReasons != null;
 	}
 
 	
@@ -0,0 +1,188 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * State of the window search after the last step that did not depend on the
+ * end of the log: the position and size of the windows, the state of the
+ * window strategy and the change points found before. A detection on the same log with traces appended at its end
+ * resumes from the checkpoint and only counts the traces from its index on.
+ *
+ * Checkpoints are written in a compact binary format (.pdstate) and are only
+ * valid for the settings of the detection that created them.
+ */
+public class DetectionCheckpoint {
+
+	public static final String EXTENSION = ".pdstate";
+
+	private static final int MAGIC = 0x50444350;
+
+	private static final int VERSION = 2;
+
+	private final int logSize;
+
+	private final int index;
+
+	private final int windowSize;
+
+	private final int fineScanEnd;
+
+	private final List<ChangePoint> changePoints;
+
+	private final double[] strategyState;
+
+	/**
+	 * @param logSize
+	 *            number of traces of the searched log
+	 * @param index
+	 *            begin of the next reference window
+	 * @param windowSize
+	 * @param fineScanEnd
+	 *            end of the region searched with the windows before skipping
+	 *            stable blocks again
+	 * @param changePoints
+	 * @param strategyState
+	 *            state of the window strategy, see WindowStrategy.getState
+	 */
+	public DetectionCheckpoint(int logSize, int index, int windowSize, int fineScanEnd,
+			List<ChangePoint> changePoints, double[] strategyState) {
+		this.logSize = logSize;
+		this.index = index;
+		this.windowSize = windowSize;
+		this.fineScanEnd = fineScanEnd;
+		this.changePoints = Collections.unmodifiableList(new ArrayList<>(changePoints));
+		this.strategyState = strategyState.clone();
+	}
+
+	public int getLogSize() {
+		return logSize;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	public int getFineScanEnd() {
+		return fineScanEnd;
+	}
+
+	public List<ChangePoint> getChangePoints() {
+		return changePoints;
+	}
+
+	public double[] getStrategyState() {
+		return strategyState.clone();
+	}
+
+	public void write(File file) throws IOException {
+		try (OutputStream out = new FileOutputStream(file)) {
+			write(out);
+		}
+	}
+
+	/**
+	 * Writes the checkpoint without the reasons of the change points.
+	 *
+	 * @param stream
+	 * @throws IOException
+	 */
+	public void write(OutputStream stream) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(logSize);
+		out.writeInt(index);
+		out.writeInt(windowSize);
+		out.writeInt(fineScanEnd);
+		out.writeInt(changePoints.size());
+
+		for (ChangePoint changePoint : changePoints) {
+			out.writeInt(changePoint.getIndex());
+			out.writeInt(changePoint.getIndexBeforeChunk());
+			out.writeInt(changePoint.getIndexAfterChunk());
+		}
+
+		out.writeInt(strategyState.length);
+		for (double value : strategyState) {
+			out.writeDouble(value);
+		}
+
+		out.flush();
+	}
+
+	public static DetectionCheckpoint read(File file) throws IOException {
+		try (InputStream in = new FileInputStream(file)) {
+			return read(in);
+		}
+	}
+
+	public static DetectionCheckpoint read(InputStream stream) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a detection checkpoint.");
+		}
+		if (in.readInt() != VERSION) {
+			throw new IOException("Unsupported version of the detection checkpoint.");
+		}
+
+		int logSize = in.readInt();
+		int index = in.readInt();
+		int windowSize = in.readInt();
+		int fineScanEnd = in.readInt();
+		int numberOfChangePoints = in.readInt();
+		if (index < 0 || windowSize < 1 || numberOfChangePoints < 0) {
+			throw new IOException("Corrupt detection checkpoint.");
+		}
+
+		List<ChangePoint> changePoints = new ArrayList<>();
+		for (int i = 0; i < numberOfChangePoints; i++) {
+			changePoints.add(new ChangePoint(in.readInt(), in.readInt(), in.readInt()));
+		}
+
+		int stateSize = in.readInt();
+		if (stateSize < 0) {
+			throw new IOException("Corrupt detection checkpoint.");
+		}
+
+		double[] strategyState = new double[stateSize];
+		for (int i = 0; i < stateSize; i++) {
+			strategyState[i] = in.readDouble();
+		}
+
+		return new DetectionCheckpoint(logSize, index, windowSize, fineScanEnd, changePoints, strategyState);
+	}
+
+}
@@ -17,10 +17,12 @@
  */
 package de.tudarmstadt.tk.pm;
 
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
+import de.tudarmstadt.tk.pm.window.ActivityDictionary;
+import de.tudarmstadt.tk.pm.window.ArcCountTable;
+
 public class GraphMetrics {
 	
 	public static final String NUMBER_OF_NODES = "NUMBER_OF_NODES";
@@ -48,46 +50,121 @@ public class GraphMetrics {
 	
 	private Map<String, Integer> nodeDegree = new HashMap<>();
 	
-	private Map<String, Integer> nodeCount = new HashMap<>();
-	
-	private Map<String, Integer> arcCount = new HashMap<>();
-	
-	public Map<String, Integer> getArcCount() {
-		return arcCount;
+	private ActivityDictionary dictionary = new ActivityDictionary();
+
+	private int[] nodeCounts = new int[0];
+
+	private ArcCountTable arcCounts = new ArcCountTable(0);
+
+	/**
+	 * Sets the node and arc firing counts. Node counts are indexed by the ids of
+	 * the dictionary.
+	 * 
+	 * @param dictionary
+	 * @param nodeCounts
+	 * @param arcCounts
+	 */
+	public void setCounts(ActivityDictionary dictionary, int[] nodeCounts, ArcCountTable arcCounts) {
+		this.dictionary = dictionary;
+		this.nodeCounts = nodeCounts;
+		this.arcCounts = arcCounts;
 	}
 
-	public void setArcCount(Map<String, Integer> arcCount) {
-		this.arcCount = arcCount;
+	public ActivityDictionary getDictionary() {
+		return dictionary;
 	}
 
-	public Map<String, Integer> getNodeCount() {
-		return nodeCount;
+	/**
+	 * Returns the number of activities the node counts are given for.
+	 * 
+	 * @return
+	 */
+	public int getNumberOfActivities() {
+		return nodeCounts.length;
+	}
+
+	public int getNodeCount(int activity) {
+		return activity < nodeCounts.length ? nodeCounts[activity] : 0;
+	}
+
+	public int getArcCount(int from, int to) {
+		return arcCounts.get(from, to);
+	}
+
+	public int[] getNodeCounts() {
+		return nodeCounts;
+	}
+
+	public ArcCountTable getArcCounts() {
+		return arcCounts;
+	}
+
+	/**
+	 * Returns the arc counts by name ("from->to") for all pairs of activities.
+	 * 
+	 * @return
+	 */
+	public Map<String, Integer> getArcCount() {
+		Map<String, Integer> result = new HashMap<>();
+
+		for (int i = 0; i < getNumberOfActivities(); i++) {
+			for (int j = 0; j < getNumberOfActivities(); j++) {
+				result.put(dictionary.getName(i) + "->" + dictionary.getName(j), getArcCount(i, j));
+			}
+		}
+
+		return result;
 	}
 
-	public void setNodeCount(Map<String, Integer> nodeCount) {
-		this.nodeCount = nodeCount;
+	/**
+	 * Returns the node counts by activity name.
+	 * 
+	 * @return
+	 */
+	public Map<String, Integer> getNodeCount() {
+		Map<String, Integer> result = new HashMap<>();
+
+		for (int i = 0; i < getNumberOfActivities(); i++) {
+			result.put(dictionary.getName(i), getNodeCount(i));
+		}
+
+		return result;
 	}
 
 	private int networkDegree;
 	
-	public Collection<Long> flatArcMetrics() {
-		Map<String, Long> result = new HashMap<>();
-		
-		for (String node : getArcCount().keySet()) {
-			result.put(node, (long) getArcCount().get(node));
-		}
+	/**
+	 * Returns the arc counts of all pairs of activities, ordered by the id of
+	 * the source and then by the id of the target activity.
+	 * 
+	 * @return
+	 */
+	public long[] flatArcMetrics() {
+		int size = getNumberOfActivities();
+		long[] result = new long[size * size];
+
+		arcCounts.forEach((from, to, count) -> {
+			if (from < size && to < size) {
+				result[from * size + to] = count;
+			}
+		});
 
-		return result.values();
+		return result;
 	}
 	
-	public Collection<Long> flatNodeMetrics() {
-		Map<String, Long> result = new HashMap<>();
-		
-		for (String node : getNodeCount().keySet()) {
-			result.put(node, (long) getNodeCount().get(node));
+	/**
+	 * Returns the node counts ordered by activity id.
+	 * 
+	 * @return
+	 */
+	public long[] flatNodeMetrics() {
+		long[] result = new long[nodeCounts.length];
+
+		for (int i = 0; i < nodeCounts.length; i++) {
+			result[i] = nodeCounts[i];
 		}
 
-		return result.values();
+		return result;
 	}
 	
 	public Map<String, Double> flatMetrics() {
@@ -108,8 +185,8 @@ public class GraphMetrics {
 //			result.put(DEGREE + node, (double) getNodeDegree().get(node));
 //		}
 		
-		for (String node : getArcCount().keySet()) {
-			result.put(node, (double) getArcCount().get(node));
+		for (Map.Entry<String, Integer> arc : getArcCount().entrySet()) {
+			result.put(arc.getKey(), (double) arc.getValue());
 		}
 		
 		result.put(DENSITY, getNumberOfEdges() / (getNumberOfNodes() * (getNumberOfNodes() - 1D)));
@@ -17,275 +17,410 @@
  */
 package de.tudarmstadt.tk.pm;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.time.StopWatch;
-import org.apache.commons.math3.exception.ZeroException;
-import org.apache.commons.math3.stat.inference.GTest;
 import org.deckfour.xes.info.XLogInfo;
 import org.deckfour.xes.info.XLogInfoFactory;
 import org.deckfour.xes.model.XLog;
 import org.processmining.contexts.uitopia.UIPluginContext;
 import org.processmining.contexts.uitopia.annotations.UITopiaVariant;
+import org.processmining.framework.plugin.PluginContext;
 import org.processmining.framework.plugin.annotations.Plugin;
 import org.processmining.framework.plugin.annotations.PluginVariant;
 
+import de.tudarmstadt.tk.pm.ProcessDriftSettings.CountingMode;
+import de.tudarmstadt.tk.pm.ProcessDriftSettings.WindowMode;
+import de.tudarmstadt.tk.pm.encoding.EncodedLog;
+import de.tudarmstadt.tk.pm.encoding.EncodedLogSorter;
 import de.tudarmstadt.tk.pm.evaluation.EvaluationCalculator;
 import de.tudarmstadt.tk.pm.evaluation.EvaluationResult;
-import de.tudarmstadt.tk.pm.utils.ListUtils;
-import de.tudarmstadt.tk.pm.utils.MetricsUtils;
+import de.tudarmstadt.tk.pm.metrics.Counter;
+import de.tudarmstadt.tk.pm.metrics.DetectionMetrics;
+import de.tudarmstadt.tk.pm.metrics.Phase;
+import de.tudarmstadt.tk.pm.metrics.WindowRecorder;
+import de.tudarmstadt.tk.pm.utils.TimestampIndex;
 import de.tudarmstadt.tk.pm.utils.XLogUtils;
+import de.tudarmstadt.tk.pm.window.ActivityDictionary;
+import de.tudarmstadt.tk.pm.window.CachingMetricsProvider;
+import de.tudarmstadt.tk.pm.window.HeuristicsMinerMetricsProvider;
+import de.tudarmstadt.tk.pm.window.IncrementalMetricsProvider;
+import de.tudarmstadt.tk.pm.window.OffsetMetricsProvider;
+import de.tudarmstadt.tk.pm.window.VerifyingMetricsProvider;
+import de.tudarmstadt.tk.pm.window.WindowCountIndex;
+import de.tudarmstadt.tk.pm.window.WindowMetricsCache;
+import de.tudarmstadt.tk.pm.window.WindowMetricsProvider;
 
 @Plugin(name = "Process Drift", parameterLabels = { "log", "ConceptDrift Input" }, returnLabels = {
 		"Process Drifts" }, returnTypes = { ProcessDriftOutput.class }, userAccessible = true)
 public class ProcessDriftDetectionPlugin {
 
-	public boolean DEBUG = true;
+	public boolean DEBUG = false;
 
 	private List<String> eventNames = null;
 
-	private final double pArcValueThreshold = 0.0001;
+	private ProcessDriftSettings settings = new ProcessDriftSettings();
 
-	private final double pNodeValueThreshold = 0.9;
+	private WindowMetricsCache metricsCache = null;
+
+	private DetectionMetrics metrics = DetectionMetrics.NONE;
+
+	private ExecutorService reasonExecutor = null;
+
+	private WindowRecorder recorder = null;
+
+	private DetectionCheckpoint checkpoint = null;
 
 	@UITopiaVariant(affiliation = "TU Darmstadt", author = "Alexander Seeliger", email = "seeliger@tk.tu-darmstadt.de")
 	@PluginVariant(variantLabel = "Detects process drifts in event logs.", requiredParameterLabels = { 0 })
 	public ProcessDriftOutput main(UIPluginContext context, XLog log) throws Exception {
+		return detect(context, log);
+	}
+
+	/**
+	 * Detects process drifts in the given event log. The context is only used to
+	 * mine heuristics nets and may be null when running without ProM.
+	 *
+	 * @param context
+	 * @param log
+	 * @return
+	 */
+	public ProcessDriftOutput detect(PluginContext context, XLog log) {
+		metrics = new DetectionMetrics(DetectionMetrics.total());
+		metrics.register(DetectionMetrics.nextRunName());
+
+		try {
+			return detect(context, log, metrics.start());
+		} finally {
+			metrics.unregister();
+		}
+	}
+
+	private ProcessDriftOutput detect(PluginContext context, XLog log, long detectionStart) {
 		// measure time
 		StopWatch sw = new StopWatch();
 		sw.start();
 
 		// sort the log
-		XLog sortedLog = log; // XLogUtils.sortLog(log);
+		long start = metrics.start();
+		XLog sortedLog = settings.isSortLog() ? XLogUtils.sortLog(log) : log;
+		metrics.stop(Phase.SORT_LOG, start);
 		XLogInfo logInfo = XLogInfoFactory.createLogInfo(sortedLog);
 
 		eventNames = logInfo.getEventClasses().getClasses().stream()
 				.map(x -> x.getId().substring(0, x.getId().toLowerCase().indexOf("+"))).collect(Collectors.toList());
 
-		// search for change points
-		List<ChangePoint> changePoints = new ArrayList<>();
-
-		int windowSize = 100;
-		int maxWindowSize = 200;
-		int index = 0;
-
-		while (index < sortedLog.size() - windowSize) {
-			PValue pvalue = calculatePValue(context, sortedLog, windowSize, index);
-
-			int beginRefWindow = index;
-			int endRefWindow = index + windowSize;
-			int beginDetWindow = index + windowSize;
-			int endDetWindow = index + windowSize * 2;
+		// restrict the log to the time range
+		TimestampIndex timestamps = createTimestampIndex(sortedLog);
+		int startIndex = timestamps != null ? timestamps.indexOf(settings.getTimeRangeStart()) : 0;
+		int endIndex = timestamps != null ? timestamps.indexOf(settings.getTimeRangeEnd()) : sortedLog.size();
 
-			if (DEBUG) {
-				System.out.println(String.format("index\t %s\t p-Value\t %f\t %f",
-						beginRefWindow + "-" + endRefWindow + ":" + beginDetWindow + "-" + endDetWindow,
-						pvalue.getArcPvalue(), pvalue.getNodePvalue()));
-			}
-
-			// check if p-value of arc is smaller than threshold
-			if (pvalue.getArcPvalue() < pArcValueThreshold) {
-
-				// change point in detection window found
-				boolean found = false;
+		// only the traces after the checkpoint are counted
+		int searchStart = getSearchStart(startIndex, endIndex);
 
-				// determine new window size and last index
-				int newWindowSize = windowSize / 2;
-				int lastIndex = (index + windowSize * 2);
+		metricsCache = settings.getCacheSize() > 0 ? new WindowMetricsCache(settings.getCacheSize()) : null;
+		WindowMetricsProvider provider = searchStart > 0 || endIndex < sortedLog.size()
+				? new OffsetMetricsProvider(
+						createMetricsProvider(context, XLogUtils.subset(sortedLog, searchStart, endIndex)),
+						searchStart)
+				: createMetricsProvider(context, sortedLog);
 
-				PValue pvalue2before = new PValue(1, 1);
-
-				// search in detection window for exact position of change point
-				for (int i = beginDetWindow - newWindowSize; i < endDetWindow - newWindowSize; i = i + 10) {
+		// search for change points
+		ProcessDriftDetector detector = createDetector(provider);
 
-					// larger than log size
-					if (i + newWindowSize * 2 > sortedLog.size())
-						break;
+		List<ChangePoint> changePoints = search(detector, timestamps, startIndex, endIndex);
+		detector.shutdown();
 
-					lastIndex = (i + newWindowSize * 2);
+		if (settings.isCalculateReasons()) {
+			ReasonCalculator reasons = new ReasonCalculator(context, sortedLog, eventNames, metricsCache,
+					settings.getReasonLimit(), metrics);
+			for (ChangePoint ch : changePoints) {
+				ch.setPendingReasons(reasons.calculateLater(ch, reasonExecutor));
+			}
+		}
 
-					// calculate new pvalue
-					PValue pvalue2 = calculatePValue(context, sortedLog, newWindowSize, i);
+		// stop time
+		sw.stop();
 
-					if (DEBUG) {
-						System.out.println(String.format(
-								"  index\t %s\t p-Value\t %f\t %f", i + "-" + (i + newWindowSize) + ":"
-										+ (i + newWindowSize) + "-" + (i + newWindowSize * 2),
-								pvalue2.getArcPvalue(), pvalue2.getNodePvalue()));
-					}
+		if (DEBUG && metricsCache != null) {
+			System.out.println(String.format("window cache	 hits %d	 misses %d", metricsCache.getHits(),
+					metricsCache.getMisses()));
+		}
 
-					// early stopping
-					if (pvalue2before.getArcPvalue() - pvalue2.getArcPvalue() < -0.5)
-						break;
+		// calculate evaluation result on the searched traces
+		EvaluationResult result = null;
+		if (endIndex - startIndex > 1) {
+			start = metrics.start();
+			EvaluationCalculator evaluation = new EvaluationCalculator(
+					XLogUtils.subset(sortedLog, startIndex, endIndex));
+			result = evaluate(evaluation, changePoints, startIndex);
+			metrics.stop(Phase.EVALUATION, start);
+		}
 
-					pvalue2before = pvalue2;
+		return createOutput(result, changePoints, sw, detector, detectionStart);
+	}
 
-					// check for arc and p value
-					if (pvalue2.getArcPvalue() < pArcValueThreshold && pvalue2.getNodePvalue() < pNodeValueThreshold) {
+	/**
+	 * Detects process drifts in an encoded event log. The windows are counted
+	 * with the prefix count index on the encoded columns, so a memory-mapped log
+	 * never has to be loaded as an XLog. Reasons need the mined event log and
+	 * are not calculated.
+	 *
+	 * @param log
+	 * @return
+	 */
+	public ProcessDriftOutput detect(EncodedLog log) {
+		metrics = new DetectionMetrics(DetectionMetrics.total());
+		metrics.register(DetectionMetrics.nextRunName());
 
-						// add change point to list
-						ChangePoint ch = new ChangePoint((i - 10 + newWindowSize * 2));
-						ch.setReasons(calculateReasons(context, sortedLog, newWindowSize, (i - 10 + newWindowSize * 2)));
+		try {
+			return detect(log, metrics.start());
+		} finally {
+			metrics.unregister();
+		}
+	}
 
-						changePoints.add(ch);
-						found = true;
+	private ProcessDriftOutput detect(EncodedLog log, long detectionStart) {
+		// measure time
+		StopWatch sw = new StopWatch();
+		sw.start();
 
-						if (DEBUG) {
-							System.out.println("Change Point at: " + (i - 10 + newWindowSize * 2));
-						}
+		// sort the log; sorted logs, e.g. written by the sorter, are kept
+		if (settings.isSortLog()) {
+			long start = metrics.start();
+			log = EncodedLogSorter.sort(log);
+			metrics.stop(Phase.SORT_LOG, start);
+		}
 
-						// update window size
-						windowSize *= (double) (i - 10 + newWindowSize * 2) / (double) (index + windowSize * 2);
+		eventNames = log.getDictionary().getNames();
 
-						index = (i - 10 + newWindowSize * 2);
-						found = true;
+		// restrict the log to the time range
+		TimestampIndex timestamps = createTimestampIndex(log);
+		int startIndex = timestamps != null ? timestamps.indexOf(settings.getTimeRangeStart()) : 0;
+		int endIndex = timestamps != null ? timestamps.indexOf(settings.getTimeRangeEnd()) : log.size();
 
-						break;
+		// only the traces after the checkpoint are counted
+		int searchStart = getSearchStart(startIndex, endIndex);
 
-					}
+		metricsCache = settings.getCacheSize() > 0 ? new WindowMetricsCache(settings.getCacheSize()) : null;
+		WindowMetricsProvider provider = searchStart > 0 || endIndex < log.size()
+				? new OffsetMetricsProvider(cached(
+						new WindowCountIndex(log, searchStart, endIndex, settings.getIndexMemoryBudget()), log),
+						searchStart)
+				: cached(new WindowCountIndex(log, settings.getIndexMemoryBudget()), log);
 
-				}
+		// search for change points
+		ProcessDriftDetector detector = createDetector(provider);
 
-				if (!found) {
-					windowSize *= (double) lastIndex / (double) (index + windowSize * 2);
-					index += windowSize;
-				}
+		List<ChangePoint> changePoints = search(detector, timestamps, startIndex, endIndex);
+		detector.shutdown();
 
-			} else {
-				windowSize *= 1.2;
-			}
+		// stop time
+		sw.stop();
 
-			if (windowSize >= maxWindowSize) {
-				index = index + maxWindowSize;
-				windowSize = 100;
-			}
+		// calculate evaluation result from the names of the searched traces
+		EvaluationResult result = null;
+		if (log.hasNames() && endIndex - startIndex > 1) {
+			long start = metrics.start();
+			EvaluationCalculator evaluation = new EvaluationCalculator(
+					log.getTraceNames().subList(startIndex, endIndex));
+			result = evaluate(evaluation, changePoints, startIndex);
+			metrics.stop(Phase.EVALUATION, start);
 		}
 
-		// stop time
-		sw.stop();
+		return createOutput(result, changePoints, sw, detector, detectionStart);
+	}
 
-		// calculate evaluation result
-		EvaluationCalculator evaluation = new EvaluationCalculator(sortedLog);
-		EvaluationResult result = evaluation.evaluate(changePoints);
+	private ProcessDriftOutput createOutput(EvaluationResult result, List<ChangePoint> changePoints, StopWatch sw,
+			ProcessDriftDetector detector, long detectionStart) {
+		if (metricsCache != null) {
+			metrics.add(Counter.CACHE_HITS, metricsCache.getHits());
+			metrics.add(Counter.CACHE_MISSES, metricsCache.getMisses());
+		}
+		metrics.stop(Phase.DETECTION, detectionStart);
 
 		ProcessDriftOutput output = new ProcessDriftOutput(result, changePoints);
 		output.setTimeElapsed(sw.getTime());
+		output.setNumberOfEvaluations(detector.getNumberOfEvaluations());
+		output.setMetrics(metrics);
+		if (settings.getWindowMode() == WindowMode.TRACE_COUNT) {
+			output.setCheckpoint(detector.getCheckpoint());
+		}
 
-		System.out.println(result.toString());
+		if (DEBUG && detector.getRecorder() != null) {
+			detector.getRecorder().print(System.out);
+		}
+		if (DEBUG) {
+			System.out.println(metrics);
+		}
+		if (DEBUG && result != null) {
+			System.out.println(result.toString());
+		}
 
 		return output;
 	}
 
-	private Map<String, String> calculateReasons(UIPluginContext context, XLog log, int windowSize, int index) {
-		XLog filtered = XLogUtils.filter(log);
+	public WindowRecorder getRecorder() {
+		return recorder;
+	}
+
+	/**
+	 * Recorder of the windows compared by the following detections. Recording
+	 * needs exact p-values, so only set a recorder to inspect a search.
+	 *
+	 * @param recorder
+	 */
+	public void setRecorder(WindowRecorder recorder) {
+		this.recorder = recorder;
+	}
+
+	public DetectionCheckpoint getCheckpoint() {
+		return checkpoint;
+	}
 
-		GraphMetrics reference = calculateMetrics(context, filtered, index - windowSize, index);
-		GraphMetrics detection = calculateMetrics(context, filtered, index, index + windowSize);
+	/**
+	 * Checkpoint of a previous detection with the same settings, taken from its
+	 * output. The following detections resume the search from it and only
+	 * count the traces from its index on, so the log has to be the log of the
+	 * previous detection with traces appended that start no earlier than its
+	 * traces. null searches the whole log.
+	 *
+	 * @param checkpoint
+	 */
+	public void setCheckpoint(DetectionCheckpoint checkpoint) {
+		this.checkpoint = checkpoint;
+	}
 
-		List<String> metrics = new ArrayList<>(reference.flatMetrics().keySet());
+	public ExecutorService getReasonExecutor() {
+		return reasonExecutor;
+	}
 
-		List<Double> referenceValues = new ArrayList<Double>(reference.flatMetrics().values());
-		List<Double> detectionValues = new ArrayList<Double>(detection.flatMetrics().values());
+	/**
+	 * Executor that calculates the reasons of the change points in the
+	 * background. Without an executor, the reasons are calculated when they are
+	 * requested first.
+	 *
+	 * @param reasonExecutor
+	 */
+	public void setReasonExecutor(ExecutorService reasonExecutor) {
+		this.reasonExecutor = reasonExecutor;
+	}
 
-		Map<String, Double> reasons = new HashMap<>();
-		Map<String, String> reasons2 = new HashMap<>();
-		Map<String, Integer> indexMap = new HashMap<>();
+	public ProcessDriftSettings getSettings() {
+		return settings;
+	}
 
-		for (int j = 0; j < referenceValues.size(); j++) {
-			if (Math.abs(referenceValues.get(j) - detectionValues.get(j)) > 0) {
-				indexMap.put(metrics.get(j), j);
-				reasons.put(metrics.get(j), detectionValues.get(j) - referenceValues.get(j));
-			}
-		}
-		
-		List<String> indegree = new ArrayList<>();
-		List<String> outdegree = new ArrayList<>();
-		
-		for(Entry<String, Double> met : reasons.entrySet()) {
-			if(met.getKey().contains(GraphMetrics.INDEGREE)) {
-				indegree.add(met.getKey().replace(GraphMetrics.INDEGREE, ""));
-			} else if(met.getKey().contains(GraphMetrics.OUTDEGREE)) {
-				outdegree.add(met.getKey().replace(GraphMetrics.OUTDEGREE, ""));
-			}
+	public void setSettings(ProcessDriftSettings settings) {
+		this.settings = settings;
+	}
+
+	/**
+	 * Reads the start times of the traces if the windows or the range are
+	 * defined by time; returns null otherwise.
+	 */
+	private TimestampIndex createTimestampIndex(Object log) {
+		if (settings.getWindowMode() != WindowMode.TIME_SPAN && !settings.hasTimeRange()) {
+			return null;
 		}
-		
-		for (Entry<String, Double> met : reasons.entrySet()) {
-			if(met.getKey().contains("->")) {
-				for(String in : indegree) {
-					if(met.getKey().contains("->" + in)) {
-						reasons2.put(met.getKey(), met.getValue() + " (" + detectionValues.get(indexMap.get(met.getKey())) + ")");
-					}
-					
-				}
-				for(String out : outdegree) {
-					if(met.getKey().contains(out + "->")) {
-						 reasons2.put(met.getKey(), met.getValue() + " (" + detectionValues.get(indexMap.get(met.getKey())) + ")");
-					}
-				}
-			} else {
-				reasons2.put(met.getKey(), met.getValue().toString());
-			}
+
+		TimestampIndex timestamps = log instanceof EncodedLog ? TimestampIndex.of((EncodedLog) log)
+				: TimestampIndex.of((XLog) log);
+		if (!timestamps.isSorted()) {
+			throw new IllegalArgumentException(
+					"Time windows and time ranges require a log sorted by the start times of its traces.");
 		}
 
-		return reasons2;
+		return timestamps;
 	}
 
-	private GraphMetrics calculateMetrics(UIPluginContext context, XLog log, int startIndex, int endIndex) {
-		XLog subset = XLogUtils.subset(log, startIndex, endIndex);
-		GraphMetrics metrics = MetricsUtils.getGraphMetrics(MetricsUtils.generateHeuristicsNet(context, subset),
-				eventNames);
+	private ProcessDriftDetector createDetector(WindowMetricsProvider provider) {
+		ProcessDriftDetector detector = new ProcessDriftDetector(provider, settings, metrics);
+		detector.setRecorder(recorder);
 
-		return metrics;
-	}
+		if (checkpoint != null) {
+			detector.restore(checkpoint);
+		}
 
-	private PValue calculatePValue(UIPluginContext context, XLog log, int windowSize, int index) {
-		GraphMetrics reference = calculateMetrics(context, log, index, index + windowSize);
-		GraphMetrics detection = calculateMetrics(context, log, index + windowSize, index + windowSize * 2);
+		return detector;
+	}
 
-		PValue pvalue = new PValue();
+	/**
+	 * Returns the first trace that the detection reads, which is the index of
+	 * the checkpoint when resuming.
+	 */
+	private int getSearchStart(int startIndex, int endIndex) {
+		if (checkpoint == null) {
+			return startIndex;
+		}
 
-		// calc arc
-		List<Long> referenceValues = new ArrayList<>(reference.flatArcMetrics());
-		List<Long> detectionValues = new ArrayList<>(detection.flatArcMetrics());
+		if (settings.getWindowMode() != WindowMode.TRACE_COUNT) {
+			throw new IllegalArgumentException("Only the search with trace count windows can be resumed.");
+		}
+		if (checkpoint.getLogSize() > endIndex) {
+			throw new IllegalArgumentException("The log has fewer traces (" + endIndex
+					+ ") than the log of the checkpoint (" + checkpoint.getLogSize() + ").");
+		}
 
-		pvalue.setArcPvalue(calculatePValue(referenceValues, detectionValues));
+		return Math.min(endIndex, Math.max(startIndex, checkpoint.getIndex()));
+	}
 
-		// calc node
-		referenceValues = new ArrayList<>(reference.flatNodeMetrics());
-		detectionValues = new ArrayList<>(detection.flatNodeMetrics());
- 
-		pvalue.setNodePvalue(calculatePValue(referenceValues, detectionValues));
+	private List<ChangePoint> search(ProcessDriftDetector detector, TimestampIndex timestamps, int startIndex,
+			int endIndex) {
+		if (settings.getWindowMode() == WindowMode.TIME_SPAN) {
+			return detector.detectByTimeSpan(timestamps);
+		}
 
-		return pvalue;
+		return detector.detect(startIndex, endIndex);
 	}
 
-	private double calculatePValue(List<Long> references, List<Long> detections) {
-		List<Long> referenceValues = new ArrayList<>(references);
-		List<Long> detectionValues = new ArrayList<>(detections);
+	/**
+	 * Evaluates the change points on the searched traces, which start at the
+	 * given offset of the log.
+	 */
+	private EvaluationResult evaluate(EvaluationCalculator evaluation, List<ChangePoint> changePoints, int offset) {
+		if (offset != 0) {
+			changePoints = changePoints.stream().map(x -> new ChangePoint(x.getIndex() - offset))
+					.collect(Collectors.toList());
+		}
 
-		// remove zero values
-		for (int j = 0; j < referenceValues.size(); j++) {
-			if (referenceValues.get(j) == 0 && detectionValues.get(j) == 0) {
-				referenceValues.remove(j);
-				detectionValues.remove(j);
+		if (settings.getEvaluationTolerance() < 0) {
+			return evaluation.evaluate(changePoints);
+		}
 
-				j--;
-			}
+		return evaluation.evaluate(changePoints, settings.getEvaluationTolerance());
+	}
+
+	private WindowMetricsProvider createMetricsProvider(PluginContext context, XLog log) {
+		WindowMetricsProvider provider;
+
+		switch (settings.getCountingMode()) {
+		case INCREMENTAL:
+			provider = new IncrementalMetricsProvider(log, eventNames);
+			break;
+		case PREFIX_INDEX:
+			provider = new WindowCountIndex(log, eventNames, settings.getIndexMemoryBudget());
+			break;
+		default:
+			return cached(new HeuristicsMinerMetricsProvider(context, log, new ActivityDictionary(eventNames), metrics),
+					log);
 		}
 
-		// perform G-test
-		try {
-			GTest gtest = new GTest();
-			return gtest.gTestDataSetsComparison(ListUtils.toLongArray(referenceValues),
-					ListUtils.toLongArray(detectionValues));
-		} catch (ZeroException ex) {
-			return 1;
+		if (settings.isVerifyCounts()) {
+			// the counting modes are checked against each other, since the arc
+			// usage of a mined net differs from the directly-follows counts
+			WindowMetricsProvider reference = settings.getCountingMode() == CountingMode.INCREMENTAL
+					? new WindowCountIndex(log, eventNames, settings.getIndexMemoryBudget())
+					: new IncrementalMetricsProvider(log, eventNames);
+			provider = new VerifyingMetricsProvider(provider, reference);
 		}
+
+		return cached(provider, log);
+	}
+
+	private WindowMetricsProvider cached(WindowMetricsProvider provider, Object log) {
+		return metricsCache != null ? new CachingMetricsProvider(provider, log, metricsCache) : provider;
 	}
 
 }
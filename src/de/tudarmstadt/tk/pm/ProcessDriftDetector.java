@@ -0,0 +1,922 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.tudarmstadt.tk.pm.ProcessDriftSettings.DriftTestType;
+import de.tudarmstadt.tk.pm.ProcessDriftSettings.LocalizationMode;
+import de.tudarmstadt.tk.pm.drift.ChiSquareDriftTest;
+import de.tudarmstadt.tk.pm.drift.CountVectors;
+import de.tudarmstadt.tk.pm.drift.DriftTest;
+import de.tudarmstadt.tk.pm.drift.GTestDriftTest;
+import de.tudarmstadt.tk.pm.drift.HellingerDriftTest;
+import de.tudarmstadt.tk.pm.drift.KlDivergenceDriftTest;
+import de.tudarmstadt.tk.pm.metrics.Counter;
+import de.tudarmstadt.tk.pm.metrics.DetectionMetrics;
+import de.tudarmstadt.tk.pm.metrics.Phase;
+import de.tudarmstadt.tk.pm.metrics.WindowRecorder;
+import de.tudarmstadt.tk.pm.metrics.WindowRecorder.Decision;
+import de.tudarmstadt.tk.pm.metrics.WindowRecorder.Kind;
+import de.tudarmstadt.tk.pm.strategy.CostAwareWindowStrategy;
+import de.tudarmstadt.tk.pm.strategy.GrowingWindowStrategy;
+import de.tudarmstadt.tk.pm.strategy.WindowStrategy;
+import de.tudarmstadt.tk.pm.utils.GTestKernel;
+import de.tudarmstadt.tk.pm.utils.TimestampIndex;
+import de.tudarmstadt.tk.pm.window.ArcCountTable;
+import de.tudarmstadt.tk.pm.window.WindowMetricsProvider;
+
+/**
+ * Adaptive window search for change points. The search compares a reference
+ * and a detection window with a G-test on the arc and node firing counts and
+ * refines the position of the change point once the arc distributions differ.
+ *
+ * The detector keeps its position between calls of step, so the log may grow
+ * while the search is running.
+ */
+public class ProcessDriftDetector {
+
+	private static final double INVERSE_GOLDEN_RATIO = (Math.sqrt(5) - 1) / 2;
+
+	private final WindowMetricsProvider provider;
+
+	private final ProcessDriftSettings settings;
+
+	private final DetectionMetrics metrics;
+
+	private ForkJoinPool refinementPool = null;
+
+	/** records the compared windows; null records nothing */
+	private WindowRecorder recorder = null;
+
+	/** ranks the splits of the bisection by the standardized arc G statistic */
+	private final GTestKernel gtest = new GTestKernel();
+
+	private final AtomicInteger numberOfEvaluations = new AtomicInteger();
+
+	private final DriftTest test;
+
+	private final DriftTest screeningTest;
+
+	private final WindowStrategy strategy;
+
+	/** aligned count vectors, reused by every thread that evaluates windows */
+	private final ThreadLocal<WindowCounts> windowCounts = ThreadLocal.withInitial(WindowCounts::new);
+
+	private final List<ChangePoint> changePoints = new ArrayList<>();
+
+	private int windowSize;
+
+	private int index = 0;
+
+	/** end of the region that is searched with the windows before skipping again */
+	private int fineScanEnd = 0;
+
+	/** number of traces of the log searched last */
+	private int logSize = 0;
+
+	/** set once a step depended on the end of the log, which may still grow */
+	private boolean provisional = false;
+
+	/** state after the last step that did not depend on the end of the log */
+	private int checkpointIndex = 0;
+
+	private int checkpointWindowSize;
+
+	private int checkpointFineScanEnd = 0;
+
+	private int checkpointChangePoints = 0;
+
+	private double[] checkpointStrategyState;
+
+	public ProcessDriftDetector(WindowMetricsProvider provider, ProcessDriftSettings settings) {
+		this(provider, settings, new DetectionMetrics());
+	}
+
+	public ProcessDriftDetector(WindowMetricsProvider provider, ProcessDriftSettings settings,
+			DetectionMetrics metrics) {
+		this.provider = provider;
+		this.settings = settings;
+		this.metrics = metrics;
+		this.test = createDriftTest(settings.getDriftTest());
+		this.screeningTest = settings.getScreeningTest() != null ? createDriftTest(settings.getScreeningTest())
+				: null;
+		this.strategy = createWindowStrategy(settings);
+		this.windowSize = strategy.getInitialWindowSize();
+		this.checkpointWindowSize = windowSize;
+		this.checkpointStrategyState = strategy.getState();
+
+		if (!settings.getDriftTest().isPValue()) {
+			throw new IllegalArgumentException("The drift test must return p-values, use "
+					+ settings.getDriftTest() + " as screening test.");
+		}
+
+		if (settings.getRefinementParallelism() > 1) {
+			refinementPool = new ForkJoinPool(settings.getRefinementParallelism());
+		}
+	}
+
+	private static DriftTest createDriftTest(DriftTestType type) {
+		switch (type) {
+		case CHI_SQUARE:
+			return new ChiSquareDriftTest();
+		case HELLINGER:
+			return new HellingerDriftTest();
+		case KL_DIVERGENCE:
+			return new KlDivergenceDriftTest();
+		default:
+			return new GTestDriftTest();
+		}
+	}
+
+	private WindowStrategy createWindowStrategy(ProcessDriftSettings settings) {
+		switch (settings.getWindowStrategy()) {
+		case COST_AWARE:
+			return new CostAwareWindowStrategy(settings.getInitialWindowSize(), settings.getMaxWindowSize(),
+					settings.getEvaluationBudget(), settings.getDetectionDelayBudget(),
+					Math.sqrt(settings.getArcPValueThreshold()), numberOfEvaluations::get);
+		default:
+			return new GrowingWindowStrategy(settings.getInitialWindowSize(), settings.getMaxWindowSize());
+		}
+	}
+
+	/**
+	 * Searches the whole log for change points. With a coarse block size, stable
+	 * regions are skipped and only suspicious regions are searched with the
+	 * windows.
+	 *
+	 * @param logSize
+	 * @return
+	 */
+	public List<ChangePoint> detect(int logSize) {
+		int processed = index;
+		this.logSize = Math.max(this.logSize, logSize);
+		markCheckpoint();
+
+		while (canStep(logSize)) {
+			if (settings.getCoarseBlockSize() > 0 && index >= fineScanEnd) {
+				provisional |= !skipStableBlocks(logSize);
+
+				if (!canStep(logSize)) {
+					break;
+				}
+			}
+
+			provisional |= getRequiredLogSize() > logSize;
+			step(logSize);
+			markCheckpoint();
+
+			if (index > processed) {
+				metrics.add(Counter.TRACES_PROCESSED, index - processed);
+				processed = index;
+			}
+		}
+
+		metrics.add(Counter.TRACES_PROCESSED, Math.max(0, logSize - processed));
+
+		return changePoints;
+	}
+
+	/**
+	 * Searches the traces [startIndex, endIndex) for change points.
+	 *
+	 * @param startIndex
+	 * @param endIndex
+	 * @return
+	 */
+	public List<ChangePoint> detect(int startIndex, int endIndex) {
+		index = Math.max(index, startIndex);
+		fineScanEnd = Math.max(fineScanEnd, index);
+
+		return detect(endIndex);
+	}
+
+	/**
+	 * Searches for change points with windows of the time span of the
+	 * settings, restricted to their time range. The windows move by the time
+	 * step; while consecutive window pairs differ, the boundary with the
+	 * largest arc difference is the change point and the reference window
+	 * restarts there.
+	 *
+	 * @param timestamps
+	 *            start times of the traces, sorted
+	 * @return
+	 */
+	public List<ChangePoint> detectByTimeSpan(TimestampIndex timestamps) {
+		if (!timestamps.isSorted()) {
+			throw new IllegalArgumentException("Time windows require a log sorted by start time.");
+		}
+
+		long span = settings.getTimeWindowSpan();
+		long step = settings.getTimeWindowStep() > 0 ? settings.getTimeWindowStep() : span;
+		if (span <= 0) {
+			throw new IllegalArgumentException("The time window span must be positive.");
+		}
+
+		if (!timestamps.hasTimestamps()) {
+			return changePoints;
+		}
+
+		// traces before the first timestamp cannot be placed in time
+		long time = Math.max(settings.getTimeRangeStart(), timestamps.getFirstTimestamp());
+		long end = Math.min(settings.getTimeRangeEnd(), plus(timestamps.getLastTimestamp(), 1));
+		int firstTrace = timestamps.indexOf(time);
+
+		ChangePoint candidate = null;
+		long candidateTime = 0;
+		double candidateScore = Double.NEGATIVE_INFINITY;
+
+		while (true) {
+			long detectionTime = plus(time, span);
+			long detectionEnd = plus(detectionTime, span);
+
+			// a saturated window end lies beyond every timestamp
+			if (detectionEnd > end || detectionEnd == Long.MAX_VALUE) {
+				break;
+			}
+
+			int beginRefWindow = timestamps.indexOf(time);
+			int beginDetWindow = timestamps.indexOf(detectionTime);
+			int endDetWindow = timestamps.indexOf(detectionEnd);
+
+			WindowCounts counts = countWindows(beginRefWindow, beginDetWindow, endDetWindow, windowCounts.get());
+			PValue pvalue = compare(new WindowCounts[] { counts }, 1, recorder != null)[0];
+			boolean drift = pvalue.getArcPvalue() < settings.getArcPValueThreshold()
+					&& pvalue.getNodePvalue() < settings.getNodePValueThreshold();
+
+			if (recorder != null) {
+				recorder.record(Kind.TIME_WINDOW, beginRefWindow, beginDetWindow, endDetWindow,
+						pvalue.getArcPvalue(), pvalue.getNodePvalue(), drift ? Decision.DRIFT : Decision.STABLE);
+			}
+
+			if (drift) {
+
+				CountVectors arcs = counts.arcs;
+				double score = gtest.score(arcs.getReferences(), arcs.getDetections(), arcs.getLength());
+
+				if (score > candidateScore) {
+					candidate = new ChangePoint(beginDetWindow, beginRefWindow, endDetWindow);
+					candidateTime = detectionTime;
+					candidateScore = score;
+				}
+			} else if (candidate != null) {
+				addChangePoint(candidate);
+
+				// the next reference window starts at the change
+				time = candidateTime;
+				candidate = null;
+				candidateScore = Double.NEGATIVE_INFINITY;
+				continue;
+			}
+
+			time = plus(time, step);
+		}
+
+		if (candidate != null) {
+			addChangePoint(candidate);
+		}
+
+		metrics.add(Counter.TRACES_PROCESSED, Math.max(0, timestamps.indexOf(end) - firstTrace));
+
+		return changePoints;
+	}
+
+	/**
+	 * Adds a positive duration to a time and saturates at Long.MAX_VALUE
+	 * instead of overflowing.
+	 */
+	private static long plus(long time, long duration) {
+		return time > Long.MAX_VALUE - duration ? Long.MAX_VALUE : time + duration;
+	}
+
+	private void addChangePoint(ChangePoint changePoint) {
+		changePoints.add(changePoint);
+		metrics.increment(Counter.CHANGE_POINTS);
+
+		if (recorder != null) {
+			recorder.record(Kind.CHANGE_POINT, changePoint.getIndexBeforeChunk(), changePoint.getIndex(),
+					changePoint.getIndexAfterChunk(), Double.NaN, Double.NaN, Decision.DRIFT);
+		}
+	}
+
+	/**
+	 * Moves the index over adjacent blocks with similar arc counts, starting
+	 * with the coarse block size and halving the blocks inside the first
+	 * suspicious pair until they reach twice the maximum window size. The
+	 * windows then search the remaining suspicious region.
+	 *
+	 * A drift inside a skipped block is still seen by the pair that has the
+	 * block as its second half.
+	 *
+	 * @param logSize
+	 * @return false if a level stopped at the end of the log
+	 */
+	private boolean skipStableBlocks(int logSize) {
+		int startIndex = index;
+		int regionEnd = logSize;
+		boolean complete = true;
+
+		for (int size = settings.getCoarseBlockSize(); size >= settings.getMaxWindowSize() * 2; size /= 2) {
+			while (index + size * 2 <= Math.min(logSize, regionEnd) && !isSuspicious(index, size)) {
+				index += size;
+			}
+
+			if (regionEnd == logSize && index + size * 2 > logSize) {
+				// the blocks skipped on the first level were compared on complete data
+				if (complete && size == settings.getCoarseBlockSize()) {
+					if (index != startIndex) {
+						strategy.restart(index);
+					}
+					markCheckpoint(index, index != startIndex ? strategy.getInitialWindowSize() : windowSize);
+				}
+				complete = false;
+			}
+
+			// the first suspicious pair bounds the region for the next level
+			regionEnd = Math.min(regionEnd, index + size * 2);
+		}
+
+		if (index != startIndex) {
+			strategy.restart(index);
+			windowSize = strategy.getInitialWindowSize();
+
+			if (recorder != null) {
+				recorder.record(Kind.SKIP, startIndex, index, index, Double.NaN, Double.NaN, Decision.STABLE);
+			}
+		}
+
+		fineScanEnd = regionEnd;
+
+		return complete;
+	}
+
+	private boolean isSuspicious(int index, int size) {
+		countEvaluation();
+
+		GraphMetrics reference = getGraphMetrics(index, index + size);
+		GraphMetrics detection = getGraphMetrics(index + size, index + size * 2);
+
+		CountVectors arcs = windowCounts.get().arcs;
+		alignArcCounts(reference, detection, arcs);
+
+		long start = metrics.start();
+		double threshold = settings.getCoarsePValueThreshold();
+		boolean suspicious = test.isDrift(
+				test.evaluate(arcs.getReferences(), arcs.getDetections(), arcs.getLength(), threshold), threshold);
+		metrics.stop(Phase.DRIFT_TEST, start);
+
+		return suspicious;
+	}
+
+	/**
+	 * Checks if the search has not reached the end of a log of the given size.
+	 *
+	 * @param logSize
+	 * @return
+	 */
+	public boolean canStep(int logSize) {
+		return index < logSize - windowSize;
+	}
+
+	/**
+	 * Returns the number of traces that the next step may read. A step on a log
+	 * of at least this size gives the same result as on any longer log.
+	 *
+	 * @return
+	 */
+	public int getRequiredLogSize() {
+		return index + windowSize * 2 + windowSize / 2;
+	}
+
+	/**
+	 * Compares the current reference and detection window and moves both
+	 * windows forward.
+	 *
+	 * @param logSize
+	 * @return the change point found in this step or null
+	 */
+	public ChangePoint step(int logSize) {
+		ChangePoint changePoint = null;
+
+		// the p-values are only compared to their thresholds unless recorded or used by the strategy
+		PValue pvalue = calculatePValue(windowSize, index, recorder != null || strategy.needsExactPValues());
+
+		int beginRefWindow = index;
+		int endRefWindow = index + windowSize;
+		int beginDetWindow = index + windowSize;
+		int endDetWindow = index + windowSize * 2;
+
+		if (recorder != null) {
+			recorder.record(Kind.WINDOW, beginRefWindow, endRefWindow, endDetWindow, pvalue.getArcPvalue(),
+					pvalue.getNodePvalue(),
+					pvalue.getArcPvalue() < settings.getArcPValueThreshold() ? Decision.DRIFT : Decision.STABLE);
+		}
+
+		// check if p-value of arc is smaller than threshold
+		if (pvalue.getArcPvalue() < settings.getArcPValueThreshold()
+				&& settings.getLocalizationMode() == LocalizationMode.BISECTION) {
+
+			changePoint = localizeByBisection(logSize);
+
+		} else if (pvalue.getArcPvalue() < settings.getArcPValueThreshold()) {
+
+			// change point in detection window found
+			boolean found = false;
+
+			// determine new window size and last index
+			int newWindowSize = windowSize / 2;
+			int lastIndex = (index + windowSize * 2);
+
+			PValue pvalue2before = new PValue(1, 1);
+
+			// p-values of candidate offsets, evaluated ahead in parallel batches
+			Map<Integer, PValue> candidates = new HashMap<>();
+
+			// search in detection window for exact position of change point
+			for (int i = beginDetWindow - newWindowSize; i < endDetWindow - newWindowSize; i = i + 10) {
+
+				// larger than log size
+				if (i + newWindowSize * 2 > logSize)
+					break;
+
+				lastIndex = (i + newWindowSize * 2);
+				metrics.increment(Counter.REFINEMENT_STEPS);
+
+				// calculate new pvalue
+				if (!candidates.containsKey(i)) {
+					candidates.putAll(calculatePValues(newWindowSize, i, endDetWindow - newWindowSize, 10, logSize));
+				}
+				PValue pvalue2 = candidates.get(i);
+
+				// early stopping
+				if (pvalue2before.getArcPvalue() - pvalue2.getArcPvalue() < -0.5) {
+					metrics.increment(Counter.EARLY_STOPS);
+					recordRefinement(newWindowSize, i, pvalue2, Decision.EARLY_STOP);
+					break;
+				}
+
+				pvalue2before = pvalue2;
+
+				boolean drift = pvalue2.getArcPvalue() < settings.getArcPValueThreshold()
+						&& pvalue2.getNodePvalue() < settings.getNodePValueThreshold();
+				recordRefinement(newWindowSize, i, pvalue2, drift ? Decision.DRIFT : Decision.STABLE);
+
+				// check for arc and p value
+				if (drift) {
+
+					// add change point to list, the chunks are the windows used to
+					// explain the change
+					int changeIndex = i - 10 + newWindowSize * 2;
+					changePoint = new ChangePoint(changeIndex, changeIndex - newWindowSize,
+							changeIndex + newWindowSize);
+
+					addChangePoint(changePoint);
+
+					// update window size
+					windowSize = strategy.afterChangePoint(index, windowSize, changeIndex);
+
+					index = changeIndex;
+					found = true;
+
+					break;
+
+				}
+
+			}
+
+			if (!found) {
+				windowSize = strategy.afterRefinement(index, windowSize, lastIndex);
+				index += windowSize;
+			}
+
+		} else {
+			windowSize = strategy.grow(index, windowSize, pvalue.getArcPvalue());
+		}
+
+		int stride = strategy.getStride(index, windowSize);
+		if (stride > 0) {
+			index = index + stride;
+			windowSize = strategy.getInitialWindowSize();
+		}
+
+		return changePoint;
+	}
+
+	/**
+	 * Stops the refinement pool.
+	 */
+	public void shutdown() {
+		if (refinementPool != null) {
+			refinementPool.shutdown();
+			refinementPool = null;
+		}
+	}
+
+	public List<ChangePoint> getChangePoints() {
+		return changePoints;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	/**
+	 * Returns the number of window pairs compared so far.
+	 *
+	 * @return
+	 */
+	public int getNumberOfEvaluations() {
+		return numberOfEvaluations.get();
+	}
+
+	public DetectionMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Returns the state after the last step that did not depend on the end of
+	 * the log. Steps after it are repeated when the search resumes on a longer
+	 * log, so change points found there are not part of the checkpoint.
+	 *
+	 * @return
+	 */
+	public DetectionCheckpoint getCheckpoint() {
+		return new DetectionCheckpoint(logSize, checkpointIndex, checkpointWindowSize, checkpointFineScanEnd,
+				changePoints.subList(0, checkpointChangePoints), checkpointStrategyState);
+	}
+
+	/**
+	 * Continues the search of a previous detection. The log has to start with
+	 * the traces searched by that detection.
+	 *
+	 * @param checkpoint
+	 */
+	public void restore(DetectionCheckpoint checkpoint) {
+		index = checkpoint.getIndex();
+		windowSize = checkpoint.getWindowSize();
+		fineScanEnd = checkpoint.getFineScanEnd();
+		logSize = checkpoint.getLogSize();
+		strategy.setState(checkpoint.getStrategyState());
+
+		changePoints.clear();
+		for (ChangePoint changePoint : checkpoint.getChangePoints()) {
+			changePoints.add(new ChangePoint(changePoint.getIndex(), changePoint.getIndexBeforeChunk(),
+					changePoint.getIndexAfterChunk()));
+		}
+
+		provisional = false;
+		markCheckpoint();
+	}
+
+	private void markCheckpoint() {
+		markCheckpoint(index, windowSize);
+	}
+
+	private void markCheckpoint(int index, int windowSize) {
+		if (!provisional) {
+			checkpointIndex = index;
+			checkpointWindowSize = windowSize;
+			checkpointFineScanEnd = fineScanEnd;
+			checkpointChangePoints = changePoints.size();
+			checkpointStrategyState = strategy.getState();
+		}
+	}
+
+	public WindowStrategy getStrategy() {
+		return strategy;
+	}
+
+	public WindowRecorder getRecorder() {
+		return recorder;
+	}
+
+	/**
+	 * Records every compared window pair. The p-values are then calculated
+	 * exactly instead of only being compared to the thresholds.
+	 *
+	 * @param recorder
+	 *            the recorder or null to record nothing
+	 */
+	public void setRecorder(WindowRecorder recorder) {
+		this.recorder = recorder;
+	}
+
+	/**
+	 * Searches the split of the detection window with the largest arc
+	 * difference by golden-section search over offsets of single traces. The
+	 * split is a change point if both tests reject there; the windows are then
+	 * moved like in the linear scan.
+	 *
+	 * @param logSize
+	 * @return the change point or null
+	 */
+	private ChangePoint localizeByBisection(int logSize) {
+		int newWindowSize = windowSize / 2;
+
+		// offsets of the half-size window pairs whose split lies in the detection window
+		int low = index + windowSize - newWindowSize;
+		int high = Math.min(index + windowSize * 2 - newWindowSize - 1, logSize - newWindowSize * 2);
+		int lastIndex = index + windowSize * 2;
+
+		if (low <= high) {
+			Map<Integer, Double> scores = new HashMap<>();
+
+			while (high - low > 3) {
+				int lower = low + (int) Math.round((high - low) * (1 - INVERSE_GOLDEN_RATIO));
+				int upper = Math.max(lower + 1, low + (int) Math.round((high - low) * INVERSE_GOLDEN_RATIO));
+
+				if (calculateScore(newWindowSize, lower, scores) >= calculateScore(newWindowSize, upper, scores)) {
+					high = upper;
+				} else {
+					low = lower;
+				}
+			}
+
+			int best = low;
+			for (int i = low + 1; i <= high; i++) {
+				if (calculateScore(newWindowSize, i, scores) > calculateScore(newWindowSize, best, scores)) {
+					best = i;
+				}
+			}
+
+			PValue pvalue = calculatePValue(newWindowSize, best, recorder != null);
+			boolean drift = pvalue.getArcPvalue() < settings.getArcPValueThreshold()
+					&& pvalue.getNodePvalue() < settings.getNodePValueThreshold();
+			recordRefinement(newWindowSize, best, pvalue, drift ? Decision.DRIFT : Decision.STABLE);
+
+			if (drift) {
+
+				int changeIndex = best + newWindowSize;
+				ChangePoint changePoint = new ChangePoint(changeIndex, changeIndex - newWindowSize,
+						changeIndex + newWindowSize);
+
+				addChangePoint(changePoint);
+
+				// update window size
+				windowSize = strategy.afterChangePoint(index, windowSize, changeIndex);
+				index = changeIndex;
+
+				return changePoint;
+			}
+
+			lastIndex = high + newWindowSize * 2;
+		}
+
+		windowSize = strategy.afterRefinement(index, windowSize, lastIndex);
+		index += windowSize;
+
+		return null;
+	}
+
+	private double calculateScore(int windowSize, int index, Map<Integer, Double> scores) {
+		Double score = scores.get(index);
+
+		if (score == null) {
+			countEvaluation();
+			metrics.increment(Counter.REFINEMENT_STEPS);
+
+			GraphMetrics reference = getGraphMetrics(index, index + windowSize);
+			GraphMetrics detection = getGraphMetrics(index + windowSize, index + windowSize * 2);
+
+			CountVectors arcs = windowCounts.get().arcs;
+			alignArcCounts(reference, detection, arcs);
+
+			long start = metrics.start();
+			score = gtest.score(arcs.getReferences(), arcs.getDetections(), arcs.getLength());
+			metrics.stop(Phase.DRIFT_TEST, start);
+			scores.put(index, score);
+
+			if (recorder != null) {
+				recorder.record(Kind.SPLIT, index, index + windowSize, index + windowSize * 2, score, Double.NaN,
+						Decision.STABLE);
+			}
+		}
+
+		return score;
+	}
+
+	private void recordRefinement(int windowSize, int index, PValue pvalue, Decision decision) {
+		if (recorder != null) {
+			recorder.record(Kind.REFINEMENT, index, index + windowSize, index + windowSize * 2,
+					pvalue.getArcPvalue(), pvalue.getNodePvalue(), decision);
+		}
+	}
+
+	/**
+	 * Calculates the p-values of the refinement candidates index, index + step,
+	 * ... below endIndex whose windows fit into the log. Up to
+	 * refinementParallelism candidates are evaluated at once on the refinement
+	 * pool; without a pool only the candidate at index is evaluated.
+	 *
+	 * @return p-values by candidate offset
+	 */
+	private Map<Integer, PValue> calculatePValues(int windowSize, int index, int endIndex, int step, int logSize) {
+		Map<Integer, PValue> pvalues = new HashMap<>();
+
+		if (refinementPool == null) {
+			pvalues.put(index, calculatePValue(windowSize, index, true));
+			return pvalues;
+		}
+
+		List<Integer> offsets = new ArrayList<>();
+		for (int i = index; i < endIndex && i + windowSize * 2 <= logSize
+				&& offsets.size() < settings.getRefinementParallelism(); i += step) {
+			offsets.add(i);
+		}
+
+		// count the windows in parallel and compare them as one batch
+		List<Callable<WindowCounts>> tasks = new ArrayList<>();
+		for (Integer offset : offsets) {
+			tasks.add(() -> countWindows(windowSize, offset, new WindowCounts()));
+		}
+
+		WindowCounts[] batch = new WindowCounts[offsets.size()];
+		try {
+			List<Future<WindowCounts>> results = refinementPool.invokeAll(tasks);
+			for (int i = 0; i < batch.length; i++) {
+				batch[i] = results.get(i).get();
+			}
+		} catch (InterruptedException | ExecutionException ex) {
+			throw new IllegalStateException("Evaluation of refinement candidates failed.", ex);
+		}
+
+		PValue[] results = compare(batch, batch.length, true);
+		for (int i = 0; i < batch.length; i++) {
+			pvalues.put(offsets.get(i), results[i]);
+		}
+
+		return pvalues;
+	}
+
+	/**
+	 * Compares the windows [index, index + windowSize) and [index + windowSize,
+	 * index + 2 * windowSize).
+	 *
+	 * @param windowSize
+	 * @param index
+	 * @param exactArcPValue
+	 *            whether the arc p-value is needed beyond the threshold
+	 *            comparison; the node p-value is exact only while recording
+	 * @return
+	 */
+	private PValue calculatePValue(int windowSize, int index, boolean exactArcPValue) {
+		WindowCounts counts = countWindows(windowSize, index, windowCounts.get());
+		return compare(new WindowCounts[] { counts }, 1, exactArcPValue)[0];
+	}
+
+	private WindowCounts countWindows(int windowSize, int index, WindowCounts counts) {
+		return countWindows(index, index + windowSize, index + windowSize * 2, counts);
+	}
+
+	/**
+	 * Counts the windows [beginRefWindow, beginDetWindow) and [beginDetWindow,
+	 * endDetWindow).
+	 */
+	private WindowCounts countWindows(int beginRefWindow, int beginDetWindow, int endDetWindow,
+			WindowCounts counts) {
+		countEvaluation();
+
+		GraphMetrics reference = getGraphMetrics(beginRefWindow, beginDetWindow);
+		GraphMetrics detection = getGraphMetrics(beginDetWindow, endDetWindow);
+
+		alignArcCounts(reference, detection, counts.arcs);
+		alignNodeCounts(reference, detection, counts.nodes);
+
+		return counts;
+	}
+
+	private void countEvaluation() {
+		numberOfEvaluations.incrementAndGet();
+		metrics.increment(Counter.WINDOWS_EVALUATED);
+	}
+
+	/**
+	 * Counts a window with the provider and measures its time and allocations.
+	 */
+	private GraphMetrics getGraphMetrics(int startIndex, int endIndex) {
+		long allocated = metrics.allocatedBytes();
+		long start = metrics.start();
+
+		GraphMetrics window = provider.getGraphMetrics(startIndex, endIndex);
+
+		metrics.stop(Phase.WINDOW_METRICS, start);
+		metrics.addAllocatedBytes(allocated);
+
+		return window;
+	}
+
+	/**
+	 * Compares a batch of window pairs with the drift test. With a screening
+	 * test, only the pairs whose arcs the screening test flags are compared;
+	 * the others get p-values of 1.
+	 */
+	private PValue[] compare(WindowCounts[] batch, int size, boolean exactArcPValue) {
+		long start = metrics.start();
+		PValue[] pvalues = new PValue[size];
+		CountVectors[] arcs = new CountVectors[size];
+		CountVectors[] nodes = new CountVectors[size];
+		int[] positions = new int[size];
+
+		double[] screening = null;
+		if (screeningTest != null) {
+			for (int i = 0; i < size; i++) {
+				arcs[i] = batch[i].arcs;
+			}
+
+			screening = new double[size];
+			screeningTest.evaluate(arcs, size, settings.getScreeningThreshold(), screening);
+		}
+
+		int length = 0;
+		for (int i = 0; i < size; i++) {
+			if (screening == null || screeningTest.isDrift(screening[i], settings.getScreeningThreshold())) {
+				arcs[length] = batch[i].arcs;
+				nodes[length] = batch[i].nodes;
+				positions[length] = i;
+				length++;
+			} else {
+				pvalues[i] = new PValue(1, 1);
+			}
+		}
+
+		// calc arc
+		double[] arcPValues = new double[length];
+		test.evaluate(arcs, length, exactArcPValue ? Double.NaN : settings.getArcPValueThreshold(), arcPValues);
+
+		// calc node
+		double[] nodePValues = new double[length];
+		test.evaluate(nodes, length, recorder != null ? Double.NaN : settings.getNodePValueThreshold(), nodePValues);
+
+		for (int i = 0; i < length; i++) {
+			pvalues[positions[i]] = new PValue(nodePValues[i], arcPValues[i]);
+		}
+
+		metrics.stop(Phase.DRIFT_TEST, start);
+		return pvalues;
+	}
+
+	/**
+	 * Pairs the activity counts of both windows. Both windows share the
+	 * activity ids of their provider, so counts are paired by id.
+	 */
+	private void alignNodeCounts(GraphMetrics reference, GraphMetrics detection, CountVectors pairs) {
+		int size = Math.max(reference.getNumberOfActivities(), detection.getNumberOfActivities());
+
+		pairs.clear();
+		for (int i = 0; i < size; i++) {
+			pairs.add(reference.getNodeCount(i), detection.getNodeCount(i));
+		}
+	}
+
+	/**
+	 * Pairs the arc counts of both windows by (from, to).
+	 */
+	private void alignArcCounts(GraphMetrics reference, GraphMetrics detection, CountVectors pairs) {
+		ArcCountTable referenceArcs = reference.getArcCounts();
+		ArcCountTable detectionArcs = detection.getArcCounts();
+
+		pairs.clear();
+		referenceArcs.forEach((from, to, count) -> pairs.add(count, detectionArcs.get(from, to)));
+		detectionArcs.forEach((from, to, count) -> {
+			if (referenceArcs.get(from, to) == 0) {
+				pairs.add(0, count);
+			}
+		});
+	}
+
+	private static class WindowCounts {
+
+		private final CountVectors arcs = new CountVectors();
+
+		private final CountVectors nodes = new CountVectors();
+
+	}
+
+}
@@ -20,6 +20,7 @@ package de.tudarmstadt.tk.pm;
 import java.util.List;
 
 import de.tudarmstadt.tk.pm.evaluation.EvaluationResult;
+import de.tudarmstadt.tk.pm.metrics.DetectionMetrics;
 
 public class ProcessDriftOutput {
 
@@ -31,6 +32,12 @@ public class ProcessDriftOutput {
 	
 	private int splitSize = 0;
 
+	private int numberOfEvaluations = 0;
+
+	private DetectionMetrics metrics = DetectionMetrics.NONE;
+
+	private DetectionCheckpoint checkpoint = null;
+
 	public ProcessDriftOutput(EvaluationResult result, List<ChangePoint> changePoints) {
 		this.result = result;
 		this.changePoints = changePoints;
@@ -60,4 +67,45 @@ public class ProcessDriftOutput {
 		this.splitSize = splitSize;
 	}
 
+	/**
+	 * Number of window pairs compared during the detection.
+	 *
+	 * @return
+	 */
+	public int getNumberOfEvaluations() {
+		return numberOfEvaluations;
+	}
+
+	public void setNumberOfEvaluations(int numberOfEvaluations) {
+		this.numberOfEvaluations = numberOfEvaluations;
+	}
+
+	/**
+	 * Timers and counters of the phases of the detection. Reasons that are
+	 * calculated later are added when they are calculated.
+	 *
+	 * @return
+	 */
+	public DetectionMetrics getMetrics() {
+		return metrics;
+	}
+
+	public void setMetrics(DetectionMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * State from which a detection on the log with traces appended resumes, or
+	 * null if the search cannot be resumed.
+	 *
+	 * @return
+	 */
+	public DetectionCheckpoint getCheckpoint() {
+		return checkpoint;
+	}
+
+	public void setCheckpoint(DetectionCheckpoint checkpoint) {
+		this.checkpoint = checkpoint;
+	}
+
 }
@@ -0,0 +1,505 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm;
+
+import java.util.concurrent.TimeUnit;
+
+import de.tudarmstadt.tk.pm.window.WindowCountIndex;
+import de.tudarmstadt.tk.pm.window.WindowMetricsCache;
+
+public class ProcessDriftSettings {
+
+	public enum CountingMode {
+		/**
+		 * Mines a heuristics net for every window and uses its arc usage.
+		 */
+		HEURISTICS_MINER,
+
+		/**
+		 * Counts directly-follows relations with sliding window counters. The
+		 * arc counts approximate the arc usage of a mined net: they hold every
+		 * directly-follows pair, while replaying a trace on the net also uses
+		 * arcs between non-adjacent activities, e.g. around parallel branches
+		 * or length-two loops. Structural metrics are not available.
+		 */
+		INCREMENTAL,
+
+		/**
+		 * Builds a cumulative count index over the log once and answers every
+		 * window by subtracting two cumulative count vectors. Gives the same
+		 * directly-follows approximation as INCREMENTAL.
+		 */
+		PREFIX_INDEX
+	}
+
+	public enum LocalizationMode {
+		/**
+		 * Walks the detection window in steps of 10 traces and takes the first
+		 * offset whose windows differ.
+		 */
+		LINEAR_SCAN,
+
+		/**
+		 * Golden-section search for the split with the largest arc difference,
+		 * down to single traces.
+		 */
+		BISECTION
+	}
+
+	public enum WindowMode {
+		/**
+		 * Windows hold a number of traces that adapts during the search.
+		 */
+		TRACE_COUNT,
+
+		/**
+		 * Windows hold the traces that start within a time span, e.g. a week
+		 * compared to the following week. Requires a log sorted by start time.
+		 */
+		TIME_SPAN
+	}
+
+	public enum WindowStrategyType {
+		/**
+		 * Windows grow from the initial to the maximum size and then move by
+		 * the maximum size.
+		 */
+		GROWING,
+
+		/**
+		 * Windows and their stride are scaled up in stable regions to meet the
+		 * evaluation budget within the detection delay budget.
+		 */
+		COST_AWARE
+	}
+
+	public enum DriftTestType {
+		G_TEST(true), CHI_SQUARE(true), HELLINGER(false), KL_DIVERGENCE(false);
+
+		private final boolean pValue;
+
+		private DriftTestType(boolean pValue) {
+			this.pValue = pValue;
+		}
+
+		/**
+		 * Checks if the test returns p-values. Distances can only be used for
+		 * screening.
+		 *
+		 * @return
+		 */
+		public boolean isPValue() {
+			return pValue;
+		}
+	}
+
+	private double arcPValueThreshold = 0.0001;
+
+	private double nodePValueThreshold = 0.9;
+
+	private int initialWindowSize = 100;
+
+	private int maxWindowSize = 200;
+
+	private CountingMode countingMode = CountingMode.HEURISTICS_MINER;
+
+	private boolean verifyCounts = false;
+
+	private long indexMemoryBudget = WindowCountIndex.DEFAULT_MEMORY_BUDGET;
+
+	private int refinementParallelism = 1;
+
+	private LocalizationMode localizationMode = LocalizationMode.LINEAR_SCAN;
+
+	private boolean calculateReasons = true;
+
+	private int reasonLimit = 20;
+
+	private int cacheSize = WindowMetricsCache.DEFAULT_SIZE;
+
+	private DriftTestType driftTest = DriftTestType.G_TEST;
+
+	private DriftTestType screeningTest = null;
+
+	private double screeningThreshold = 0.05;
+
+	private int coarseBlockSize = 0;
+
+	private double coarsePValueThreshold = 0.01;
+
+	private boolean sortLog = true;
+
+	private WindowMode windowMode = WindowMode.TRACE_COUNT;
+
+	private long timeWindowSpan = TimeUnit.DAYS.toMillis(7);
+
+	private long timeWindowStep = TimeUnit.DAYS.toMillis(1);
+
+	private long timeRangeStart = Long.MIN_VALUE;
+
+	private long timeRangeEnd = Long.MAX_VALUE;
+
+	private int evaluationTolerance = -1;
+
+	private WindowStrategyType windowStrategy = WindowStrategyType.GROWING;
+
+	private int evaluationBudget = 5000;
+
+	private int detectionDelayBudget = 2000;
+
+	public double getArcPValueThreshold() {
+		return arcPValueThreshold;
+	}
+
+	public void setArcPValueThreshold(double arcPValueThreshold) {
+		this.arcPValueThreshold = arcPValueThreshold;
+	}
+
+	public double getNodePValueThreshold() {
+		return nodePValueThreshold;
+	}
+
+	public void setNodePValueThreshold(double nodePValueThreshold) {
+		this.nodePValueThreshold = nodePValueThreshold;
+	}
+
+	public int getInitialWindowSize() {
+		return initialWindowSize;
+	}
+
+	public void setInitialWindowSize(int initialWindowSize) {
+		this.initialWindowSize = initialWindowSize;
+	}
+
+	public int getMaxWindowSize() {
+		return maxWindowSize;
+	}
+
+	public void setMaxWindowSize(int maxWindowSize) {
+		this.maxWindowSize = maxWindowSize;
+	}
+
+	public CountingMode getCountingMode() {
+		return countingMode;
+	}
+
+	public void setCountingMode(CountingMode countingMode) {
+		this.countingMode = countingMode;
+	}
+
+	public boolean isVerifyCounts() {
+		return verifyCounts;
+	}
+
+	/**
+	 * Cross-checks every window counted with INCREMENTAL against PREFIX_INDEX
+	 * and vice versa, and fails with an IllegalStateException on a difference.
+	 * Has no effect with HEURISTICS_MINER.
+	 *
+	 * @param verifyCounts
+	 */
+	public void setVerifyCounts(boolean verifyCounts) {
+		this.verifyCounts = verifyCounts;
+	}
+
+	public long getIndexMemoryBudget() {
+		return indexMemoryBudget;
+	}
+
+	/**
+	 * Maximum number of bytes used for the checkpoints of the prefix count
+	 * index.
+	 *
+	 * @param indexMemoryBudget
+	 */
+	public void setIndexMemoryBudget(long indexMemoryBudget) {
+		this.indexMemoryBudget = indexMemoryBudget;
+	}
+
+	public LocalizationMode getLocalizationMode() {
+		return localizationMode;
+	}
+
+	public void setLocalizationMode(LocalizationMode localizationMode) {
+		this.localizationMode = localizationMode;
+	}
+
+	public int getRefinementParallelism() {
+		return refinementParallelism;
+	}
+
+	/**
+	 * Number of candidate offsets of the change point refinement scan that are
+	 * evaluated at once on a fork-join pool. 1 evaluates the candidates one after
+	 * the other.
+	 *
+	 * @param refinementParallelism
+	 */
+	public void setRefinementParallelism(int refinementParallelism) {
+		this.refinementParallelism = refinementParallelism;
+	}
+
+	public boolean isCalculateReasons() {
+		return calculateReasons;
+	}
+
+	/**
+	 * Mines the windows around every change point to explain the change.
+	 *
+	 * @param calculateReasons
+	 */
+	public void setCalculateReasons(boolean calculateReasons) {
+		this.calculateReasons = calculateReasons;
+	}
+
+	public int getReasonLimit() {
+		return reasonLimit;
+	}
+
+	/**
+	 * Maximum number of changed metrics reported for a change point.
+	 *
+	 * @param reasonLimit
+	 */
+	public void setReasonLimit(int reasonLimit) {
+		this.reasonLimit = reasonLimit;
+	}
+
+	public int getCacheSize() {
+		return cacheSize;
+	}
+
+	/**
+	 * Number of window metrics kept in the least recently used window cache. 0
+	 * disables the cache.
+	 *
+	 * @param cacheSize
+	 */
+	public void setCacheSize(int cacheSize) {
+		this.cacheSize = cacheSize;
+	}
+
+	public DriftTestType getDriftTest() {
+		return driftTest;
+	}
+
+	/**
+	 * Test that compares the arc and node counts of two windows; the p-value
+	 * thresholds apply to its results.
+	 *
+	 * @param driftTest
+	 */
+	public void setDriftTest(DriftTestType driftTest) {
+		this.driftTest = driftTest;
+	}
+
+	public DriftTestType getScreeningTest() {
+		return screeningTest;
+	}
+
+	/**
+	 * Cheap test that compares the arc counts of two windows first; only windows
+	 * it flags are compared with the drift test. null disables screening.
+	 *
+	 * @param screeningTest
+	 */
+	public void setScreeningTest(DriftTestType screeningTest) {
+		this.screeningTest = screeningTest;
+	}
+
+	public double getScreeningThreshold() {
+		return screeningThreshold;
+	}
+
+	/**
+	 * Threshold of the screening test in its own unit, e.g. a distance for
+	 * HELLINGER or a p-value for G_TEST.
+	 *
+	 * @param screeningThreshold
+	 */
+	public void setScreeningThreshold(double screeningThreshold) {
+		this.screeningThreshold = screeningThreshold;
+	}
+
+	public int getCoarseBlockSize() {
+		return coarseBlockSize;
+	}
+
+	/**
+	 * Number of traces of the blocks compared before the window search. Stable
+	 * blocks are skipped, suspicious blocks are halved down to twice the
+	 * maximum window size and then searched with the windows. 0 searches the
+	 * whole log with the windows.
+	 *
+	 * @param coarseBlockSize
+	 */
+	public void setCoarseBlockSize(int coarseBlockSize) {
+		this.coarseBlockSize = coarseBlockSize;
+	}
+
+	public double getCoarsePValueThreshold() {
+		return coarsePValueThreshold;
+	}
+
+	/**
+	 * Arc p-value below which two adjacent blocks are searched in detail.
+	 *
+	 * @param coarsePValueThreshold
+	 */
+	public void setCoarsePValueThreshold(double coarsePValueThreshold) {
+		this.coarsePValueThreshold = coarsePValueThreshold;
+	}
+
+	public boolean isSortLog() {
+		return sortLog;
+	}
+
+	/**
+	 * Orders the traces by the timestamps of their first events before the
+	 * search.
+	 *
+	 * @param sortLog
+	 */
+	public void setSortLog(boolean sortLog) {
+		this.sortLog = sortLog;
+	}
+
+	public WindowMode getWindowMode() {
+		return windowMode;
+	}
+
+	public void setWindowMode(WindowMode windowMode) {
+		this.windowMode = windowMode;
+	}
+
+	public long getTimeWindowSpan() {
+		return timeWindowSpan;
+	}
+
+	/**
+	 * Length of the reference and the detection window in milliseconds in the
+	 * TIME_SPAN window mode.
+	 *
+	 * @param timeWindowSpan
+	 */
+	public void setTimeWindowSpan(long timeWindowSpan) {
+		this.timeWindowSpan = timeWindowSpan;
+	}
+
+	public long getTimeWindowStep() {
+		return timeWindowStep;
+	}
+
+	/**
+	 * Milliseconds by which the windows move in the TIME_SPAN window mode; also
+	 * the resolution of the change points. 0 moves by the window span.
+	 *
+	 * @param timeWindowStep
+	 */
+	public void setTimeWindowStep(long timeWindowStep) {
+		this.timeWindowStep = timeWindowStep;
+	}
+
+	public long getTimeRangeStart() {
+		return timeRangeStart;
+	}
+
+	public long getTimeRangeEnd() {
+		return timeRangeEnd;
+	}
+
+	/**
+	 * Restricts the search to the traces that start in [start, end), given in
+	 * milliseconds since the epoch. Requires a log sorted by start time.
+	 *
+	 * @param start
+	 * @param end
+	 */
+	public void setTimeRange(long start, long end) {
+		this.timeRangeStart = start;
+		this.timeRangeEnd = end;
+	}
+
+	/**
+	 * Checks if the search is restricted to a time range.
+	 *
+	 * @return
+	 */
+	public boolean hasTimeRange() {
+		return timeRangeStart != Long.MIN_VALUE || timeRangeEnd != Long.MAX_VALUE;
+	}
+
+	public int getEvaluationTolerance() {
+		return evaluationTolerance;
+	}
+
+	/**
+	 * Maximum number of traces between a detected and a true change point for
+	 * the evaluation to count them as a match; the points are then matched in
+	 * one merge over both sorted lists. A negative tolerance (the default)
+	 * keeps the nearest-neighbour matching without a limit.
+	 *
+	 * @param evaluationTolerance
+	 */
+	public void setEvaluationTolerance(int evaluationTolerance) {
+		this.evaluationTolerance = evaluationTolerance;
+	}
+
+	public WindowStrategyType getWindowStrategy() {
+		return windowStrategy;
+	}
+
+	/**
+	 * Strategy that sizes and moves the windows in the TRACE_COUNT window mode.
+	 *
+	 * @param windowStrategy
+	 */
+	public void setWindowStrategy(WindowStrategyType windowStrategy) {
+		this.windowStrategy = windowStrategy;
+	}
+
+	public int getEvaluationBudget() {
+		return evaluationBudget;
+	}
+
+	/**
+	 * Number of window pairs per million traces that the COST_AWARE strategy
+	 * aims to evaluate.
+	 *
+	 * @param evaluationBudget
+	 */
+	public void setEvaluationBudget(int evaluationBudget) {
+		this.evaluationBudget = evaluationBudget;
+	}
+
+	public int getDetectionDelayBudget() {
+		return detectionDelayBudget;
+	}
+
+	/**
+	 * Maximum number of traces after a drift until the COST_AWARE strategy
+	 * compares windows around it. Bounds the scale of the windows to half of
+	 * this budget per maximum window size.
+	 *
+	 * @param detectionDelayBudget
+	 */
+	public void setDetectionDelayBudget(int detectionDelayBudget) {
+		this.detectionDelayBudget = detectionDelayBudget;
+	}
+
+}
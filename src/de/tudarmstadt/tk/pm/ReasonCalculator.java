@@ -0,0 +1,133 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.deckfour.xes.model.XLog;
+import org.processmining.framework.plugin.PluginContext;
+
+import de.tudarmstadt.tk.pm.metrics.DetectionMetrics;
+import de.tudarmstadt.tk.pm.metrics.Phase;
+import de.tudarmstadt.tk.pm.reasons.MetricChange;
+import de.tudarmstadt.tk.pm.reasons.MetricDiff;
+import de.tudarmstadt.tk.pm.reasons.MetricVector;
+import de.tudarmstadt.tk.pm.utils.XLogUtils;
+import de.tudarmstadt.tk.pm.window.ActivityDictionary;
+import de.tudarmstadt.tk.pm.window.CachingMetricsProvider;
+import de.tudarmstadt.tk.pm.window.HeuristicsMinerMetricsProvider;
+import de.tudarmstadt.tk.pm.window.WindowMetricsCache;
+import de.tudarmstadt.tk.pm.window.WindowMetricsProvider;
+
+/**
+ * Explains change points by the metrics that differ between the mined windows
+ * before and after them. The filtered log and its miner are created once, on
+ * the first explanation, and shared by all change points of a log.
+ */
+public class ReasonCalculator {
+
+	private final PluginContext context;
+
+	private final XLog log;
+
+	private final List<String> eventNames;
+
+	private final WindowMetricsCache metricsCache;
+
+	private final int limit;
+
+	private final DetectionMetrics metrics;
+
+	private WindowMetricsProvider miner = null;
+
+	public ReasonCalculator(PluginContext context, XLog log, List<String> eventNames, WindowMetricsCache metricsCache,
+			int limit) {
+		this(context, log, eventNames, metricsCache, limit, DetectionMetrics.NONE);
+	}
+
+	public ReasonCalculator(PluginContext context, XLog log, List<String> eventNames, WindowMetricsCache metricsCache,
+			int limit, DetectionMetrics metrics) {
+		this.context = context;
+		this.log = log;
+		this.eventNames = eventNames;
+		this.metricsCache = metricsCache;
+		this.limit = limit;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Returns the pending reasons of the change point. With an executor they
+	 * are calculated in the background, otherwise on the first call of
+	 * ChangePoint.getReasons.
+	 *
+	 * @param changePoint
+	 * @param executor
+	 *            may be null
+	 * @return
+	 */
+	public Future<List<MetricChange>> calculateLater(ChangePoint changePoint, ExecutorService executor) {
+		Callable<List<MetricChange>> task = () -> calculate(changePoint);
+		return executor != null ? executor.submit(task) : new FutureTask<>(task);
+	}
+
+	/**
+	 * Mines the windows before and after the change point and returns the
+	 * metrics that differ most. Arcs are only reported if the in-degree of
+	 * their target or the out-degree of their source changed.
+	 *
+	 * @param changePoint
+	 * @return
+	 */
+	public List<MetricChange> calculate(ChangePoint changePoint) {
+		long start = metrics.start();
+		WindowMetricsProvider miner = getMiner();
+
+		GraphMetrics reference = miner.getGraphMetrics(changePoint.getIndexBeforeChunk(), changePoint.getIndex());
+		GraphMetrics detection = miner.getGraphMetrics(changePoint.getIndex(), changePoint.getIndexAfterChunk());
+
+		MetricVector referenceVector = MetricVector.of(reference);
+		MetricVector detectionVector = MetricVector.of(detection);
+
+		List<MetricChange> reasons = new MetricDiff(limit, true).compare(reference.getDictionary(), referenceVector,
+				detectionVector);
+		metrics.stop(Phase.REASONS, start);
+
+		return reasons;
+	}
+
+	private synchronized WindowMetricsProvider getMiner() {
+		if (miner == null) {
+			long start = metrics.start();
+			XLog filtered = XLogUtils.filter(log);
+			metrics.stop(Phase.COPY_LOG, start);
+
+			miner = new HeuristicsMinerMetricsProvider(context, filtered, new ActivityDictionary(eventNames), metrics);
+
+			if (metricsCache != null) {
+				miner = new CachingMetricsProvider(miner, filtered, metricsCache);
+			}
+		}
+
+		return miner;
+	}
+
+}
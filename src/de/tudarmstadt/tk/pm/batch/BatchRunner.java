@@ -0,0 +1,409 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.batch;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.deckfour.xes.in.XParser;
+import org.deckfour.xes.in.XesXmlGZIPParser;
+import org.deckfour.xes.in.XesXmlParser;
+import org.deckfour.xes.model.XLog;
+
+import de.tudarmstadt.tk.pm.DetectionCheckpoint;
+import de.tudarmstadt.tk.pm.ProcessDriftDetectionPlugin;
+import de.tudarmstadt.tk.pm.ProcessDriftOutput;
+import de.tudarmstadt.tk.pm.ProcessDriftSettings;
+import de.tudarmstadt.tk.pm.ProcessDriftSettings.CountingMode;
+import de.tudarmstadt.tk.pm.ProcessDriftSettings.LocalizationMode;
+import de.tudarmstadt.tk.pm.ProcessDriftSettings.WindowMode;
+import de.tudarmstadt.tk.pm.ProcessDriftSettings.WindowStrategyType;
+import de.tudarmstadt.tk.pm.encoding.EncodedLog;
+import de.tudarmstadt.tk.pm.encoding.EncodedLogSorter;
+import de.tudarmstadt.tk.pm.encoding.XesStreamParser;
+import de.tudarmstadt.tk.pm.metrics.WindowRecorder;
+
+/**
+ * Runs the drift detection on many XES or encoded log files without ProM. Each
+ * log is analyzed on a bounded thread pool and the results are written as JSON
+ * Lines.
+ *
+ * Usage: BatchRunner [-threads n] [-output file] [-mode HEURISTICS_MINER |
+ * INCREMENTAL | PREFIX_INDEX] [-localization LINEAR_SCAN | BISECTION]
+ * [-coarse blockSize] [-reasons] [-encode] [-spill megabytes] [-span duration]
+ * [-step duration] [-from instant] [-to instant] [-tolerance traces] [-trace]
+ * [-resume] [-strategy GROWING | COST_AWARE] [-budget evaluations] [-delay
+ * traces] file|directory...
+ *
+ * Unlike the ProM plugin, which mines every window (HEURISTICS_MINER), the
+ * runner counts the windows with a prefix index by default (PREFIX_INDEX).
+ * Its directly-follows counts approximate the arc usage of the mined nets, so
+ * the change points may differ from the plugin's. The mode used for a log is
+ * part of its result.
+ *
+ * With -trace the windows compared for each log are written next to the log
+ * (log.pdtrace), see {@link WindowRecorder}. With -resume the search continues
+ * from the checkpoint next to the log (log.pdstate) if there is one, and the
+ * new checkpoint is written there.
+ */
+public class BatchRunner {
+
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	private File output = null;
+
+	private CountingMode countingMode = CountingMode.PREFIX_INDEX;
+
+	private LocalizationMode localizationMode = LocalizationMode.LINEAR_SCAN;
+
+	private int coarseBlockSize = 0;
+
+	private boolean calculateReasons = false;
+
+	private boolean encode = false;
+
+	private long spillMemory = 0;
+
+	private Duration timeWindowSpan = null;
+
+	private Duration timeWindowStep = null;
+
+	private Instant from = null;
+
+	private Instant to = null;
+
+	private int tolerance = -1;
+
+	private boolean trace = false;
+
+	private boolean resume = false;
+
+	private WindowStrategyType windowStrategy = WindowStrategyType.GROWING;
+
+	private int evaluationBudget = 0;
+
+	private int detectionDelayBudget = 0;
+
+	private final List<File> files = new ArrayList<>();
+
+	public static void main(String[] args) throws Exception {
+		BatchRunner runner = new BatchRunner();
+
+		try {
+			runner.parseArguments(args);
+		} catch (IllegalArgumentException | DateTimeParseException ex) {
+			System.err.println(ex.getMessage());
+			System.err.println(
+					"Usage: BatchRunner [-threads n] [-output file] [-mode HEURISTICS_MINER|INCREMENTAL|PREFIX_INDEX] [-localization LINEAR_SCAN|BISECTION] [-coarse blockSize] [-reasons] [-encode] [-spill megabytes] [-span P7D] [-step P1D] [-from 2018-01-01T00:00:00Z] [-to 2018-07-01T00:00:00Z] [-tolerance traces] [-trace] [-resume] [-strategy GROWING|COST_AWARE] [-budget evaluations] [-delay traces] file|directory...");
+			System.err.println(
+					"The default mode is PREFIX_INDEX, which counts directly-follows relations instead of mining the windows as the ProM plugin does (HEURISTICS_MINER), so the results may differ from the plugin's. Encoded logs are always counted.");
+			System.exit(1);
+		}
+
+		runner.run();
+	}
+
+	public void parseArguments(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "-threads":
+				threads = Integer.parseInt(value(args, ++i));
+				break;
+			case "-output":
+				output = new File(value(args, ++i));
+				break;
+			case "-mode":
+				countingMode = CountingMode.valueOf(value(args, ++i));
+				break;
+			case "-localization":
+				localizationMode = LocalizationMode.valueOf(value(args, ++i));
+				break;
+			case "-coarse":
+				coarseBlockSize = Integer.parseInt(value(args, ++i));
+				break;
+			case "-reasons":
+				calculateReasons = true;
+				break;
+			case "-encode":
+				encode = true;
+				break;
+			case "-spill":
+				spillMemory = Long.parseLong(value(args, ++i)) * 1024 * 1024;
+				break;
+			case "-span":
+				timeWindowSpan = Duration.parse(value(args, ++i));
+				break;
+			case "-step":
+				timeWindowStep = Duration.parse(value(args, ++i));
+				break;
+			case "-from":
+				from = Instant.parse(value(args, ++i));
+				break;
+			case "-to":
+				to = Instant.parse(value(args, ++i));
+				break;
+			case "-tolerance":
+				tolerance = Integer.parseInt(value(args, ++i));
+				break;
+			case "-trace":
+				trace = true;
+				break;
+			case "-resume":
+				resume = true;
+				break;
+			case "-strategy":
+				windowStrategy = WindowStrategyType.valueOf(value(args, ++i));
+				break;
+			case "-budget":
+				evaluationBudget = Integer.parseInt(value(args, ++i));
+				break;
+			case "-delay":
+				detectionDelayBudget = Integer.parseInt(value(args, ++i));
+				break;
+			default:
+				addFiles(new File(args[i]));
+			}
+		}
+
+		if (files.isEmpty()) {
+			throw new IllegalArgumentException("No event logs given.");
+		}
+	}
+
+	/**
+	 * Analyzes all logs and waits until every log has been written.
+	 *
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public void run() throws IOException, InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+
+		// System.out stays open for the messages after the results
+		try (JsonOutputWriter writer = output == null
+				? new JsonOutputWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), false)
+				: new JsonOutputWriter(new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8))) {
+
+			for (File file : files) {
+				executor.submit(() -> {
+					try {
+						analyze(file, writer);
+					} catch (IOException ex) {
+						System.err.println("Could not write result of " + file + ": " + ex.getMessage());
+					}
+				});
+			}
+
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+		}
+	}
+
+	public ProcessDriftSettings createSettings() {
+		ProcessDriftSettings settings = new ProcessDriftSettings();
+		settings.setCountingMode(countingMode);
+		settings.setLocalizationMode(localizationMode);
+		settings.setCoarseBlockSize(coarseBlockSize);
+		settings.setCalculateReasons(calculateReasons);
+		settings.setEvaluationTolerance(tolerance);
+		settings.setWindowStrategy(windowStrategy);
+
+		if (evaluationBudget > 0) {
+			settings.setEvaluationBudget(evaluationBudget);
+		}
+		if (detectionDelayBudget > 0) {
+			settings.setDetectionDelayBudget(detectionDelayBudget);
+		}
+
+		if (timeWindowSpan != null) {
+			settings.setWindowMode(WindowMode.TIME_SPAN);
+			settings.setTimeWindowSpan(timeWindowSpan.toMillis());
+		}
+		if (timeWindowStep != null) {
+			settings.setTimeWindowStep(timeWindowStep.toMillis());
+		}
+		if (from != null || to != null) {
+			settings.setTimeRange(from != null ? from.toEpochMilli() : Long.MIN_VALUE,
+					to != null ? to.toEpochMilli() : Long.MAX_VALUE);
+		}
+
+		return settings;
+	}
+
+	private void analyze(File file, JsonOutputWriter writer) throws IOException {
+		try {
+			ProcessDriftDetectionPlugin plugin = new ProcessDriftDetectionPlugin();
+			plugin.DEBUG = false;
+			plugin.setSettings(createSettings());
+			if (trace) {
+				plugin.setRecorder(new WindowRecorder());
+			}
+
+			File checkpoint = new File(file.getPath() + DetectionCheckpoint.EXTENSION);
+			if (resume && checkpoint.isFile()) {
+				plugin.setCheckpoint(DetectionCheckpoint.read(checkpoint));
+			}
+
+			if (isEncodedLog(file)) {
+				EncodedLog log = EncodedLog.open(file);
+				ProcessDriftOutput result = plugin.detect(log);
+				writer.write(file.getPath(), CountingMode.PREFIX_INDEX, log.size(), result);
+				save(file, plugin, result);
+				return;
+			}
+
+			if (!calculateReasons && countingMode == CountingMode.PREFIX_INDEX) {
+				// the prefix index only needs the encoded log
+				EncodedLog log;
+				if (spillMemory > 0) {
+					log = sortExternally(file);
+				} else {
+					log = EncodedLogSorter.sort(new XesStreamParser().parse(file));
+					if (encode) {
+						log.write(new File(file.getPath() + EncodedLog.EXTENSION));
+					}
+				}
+
+				ProcessDriftOutput result = plugin.detect(log);
+				writer.write(file.getPath(), CountingMode.PREFIX_INDEX, log.size(), result);
+				save(file, plugin, result);
+				return;
+			}
+
+			XLog log = parse(file);
+			if (encode) {
+				EncodedLogSorter.sort(EncodedLog.encode(log)).write(new File(file.getPath() + EncodedLog.EXTENSION));
+			}
+
+			ProcessDriftOutput result = plugin.detect(null, log);
+			writer.write(file.getPath(), countingMode, log.size(), result);
+			save(file, plugin, result);
+		} catch (Exception ex) {
+			writer.writeError(file.getPath(), ex);
+		}
+	}
+
+	/**
+	 * Writes the recorded windows and the checkpoint next to the log.
+	 */
+	private void save(File file, ProcessDriftDetectionPlugin plugin, ProcessDriftOutput result)
+			throws IOException {
+		if (plugin.getRecorder() != null) {
+			plugin.getRecorder().write(new File(file.getPath() + WindowRecorder.EXTENSION));
+		}
+		if (resume && result.getCheckpoint() != null) {
+			result.getCheckpoint().write(new File(file.getPath() + DetectionCheckpoint.EXTENSION));
+		}
+	}
+
+	/**
+	 * Streams an XES file through the external sorter into an encoded log file
+	 * and maps it. Without -encode the file is temporary.
+	 */
+	private EncodedLog sortExternally(File file) throws IOException {
+		File target = encode ? new File(file.getPath() + EncodedLog.EXTENSION)
+				: File.createTempFile("sorted", EncodedLog.EXTENSION);
+
+		try (EncodedLogSorter sorter = new EncodedLogSorter(null, spillMemory)) {
+			new XesStreamParser().parse(file, sorter);
+			sorter.finish(target);
+		}
+
+		EncodedLog log = EncodedLog.open(target);
+		if (!encode && !target.delete()) {
+			// mapped files cannot be deleted on every platform
+			target.deleteOnExit();
+		}
+
+		return log;
+	}
+
+	private static XLog parse(File file) throws Exception {
+		XParser parser = file.getName().toLowerCase().endsWith(".gz") ? new XesXmlGZIPParser()
+				: new XesXmlParser();
+		List<XLog> logs = parser.parse(file);
+
+		if (logs == null || logs.isEmpty()) {
+			throw new IOException("No event log found in " + file + ".");
+		}
+
+		return logs.get(0);
+	}
+
+	private void addFiles(File file) {
+		if (file.isDirectory()) {
+			File[] children = file.listFiles();
+			if (children != null) {
+				Arrays.sort(children);
+				for (File child : children) {
+					if (child.isDirectory() || isEventLog(child) && !hasSource(child)) {
+						addFiles(child);
+					}
+				}
+			}
+		} else if (file.isFile()) {
+			files.add(file);
+		} else {
+			throw new IllegalArgumentException("File not found: " + file);
+		}
+	}
+
+	private static boolean isEventLog(File file) {
+		return XesStreamParser.canParse(file) || isEncodedLog(file);
+	}
+
+	private static boolean isEncodedLog(File file) {
+		return file.getName().toLowerCase().endsWith(EncodedLog.EXTENSION);
+	}
+
+	/**
+	 * Checks if the file is an encoded log written by -encode next to its
+	 * source log. Directory scans analyze the source only, so a log is not
+	 * reported twice.
+	 */
+	private static boolean hasSource(File file) {
+		if (!isEncodedLog(file)) {
+			return false;
+		}
+
+		String name = file.getName();
+		File source = new File(file.getParentFile(), name.substring(0, name.length() - EncodedLog.EXTENSION.length()));
+		return source.isFile() && XesStreamParser.canParse(source);
+	}
+
+	private static String value(String[] args, int i) {
+		if (i >= args.length) {
+			throw new IllegalArgumentException("Missing value for " + args[i - 1] + ".");
+		}
+
+		return args[i];
+	}
+
+}
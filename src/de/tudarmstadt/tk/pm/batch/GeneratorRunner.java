@@ -0,0 +1,173 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.batch;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import de.tudarmstadt.tk.pm.generator.DriftLogGenerator;
+import de.tudarmstadt.tk.pm.generator.DriftType;
+import de.tudarmstadt.tk.pm.generator.ProcessVariant;
+
+/**
+ * Generates a synthetic event log with known drifts as an encoded log file
+ * (.pdlog) or a XES file (.xes or .xes.gz). The variants are random processes
+ * over the activities; every further variant changes the successors of a
+ * fraction of the activities of the first one.
+ *
+ * Usage: GeneratorRunner [-traces n] [-activities n] [-variants n] [-drifts n]
+ * [-type SUDDEN | GRADUAL | INCREMENTAL | RECURRING] [-length traces] [-steps
+ * n] [-change fraction] [-seed n] file
+ */
+public class GeneratorRunner {
+
+	private int traces = 10000;
+
+	private int activities = 10;
+
+	private int variants = 2;
+
+	private int drifts = 1;
+
+	private DriftType driftType = DriftType.SUDDEN;
+
+	private int driftLength = 500;
+
+	private int incrementalSteps = 5;
+
+	private double change = 0.3;
+
+	private long seed = 0;
+
+	private File output = null;
+
+	public static void main(String[] args) throws IOException {
+		GeneratorRunner runner = new GeneratorRunner();
+
+		try {
+			runner.parseArguments(args);
+		} catch (IllegalArgumentException ex) {
+			System.err.println(ex.getMessage());
+			System.err.println(
+					"Usage: GeneratorRunner [-traces n] [-activities n] [-variants n] [-drifts n] [-type SUDDEN|GRADUAL|INCREMENTAL|RECURRING] [-length traces] [-steps n] [-change fraction] [-seed n] file");
+			System.exit(1);
+		}
+
+		runner.run();
+	}
+
+	public void parseArguments(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "-traces":
+				traces = Integer.parseInt(value(args, ++i));
+				break;
+			case "-activities":
+				activities = Integer.parseInt(value(args, ++i));
+				break;
+			case "-variants":
+				variants = Integer.parseInt(value(args, ++i));
+				break;
+			case "-drifts":
+				drifts = Integer.parseInt(value(args, ++i));
+				break;
+			case "-type":
+				driftType = DriftType.valueOf(value(args, ++i));
+				break;
+			case "-length":
+				driftLength = Integer.parseInt(value(args, ++i));
+				break;
+			case "-steps":
+				incrementalSteps = Integer.parseInt(value(args, ++i));
+				break;
+			case "-change":
+				change = Double.parseDouble(value(args, ++i));
+				break;
+			case "-seed":
+				seed = Long.parseLong(value(args, ++i));
+				break;
+			default:
+				output = new File(args[i]);
+			}
+		}
+
+		if (output == null) {
+			throw new IllegalArgumentException("No output file given.");
+		}
+	}
+
+	/**
+	 * Generates the log and prints its change points.
+	 *
+	 * @throws IOException
+	 */
+	public void run() throws IOException {
+		DriftLogGenerator generator = createGenerator();
+
+		long start = System.currentTimeMillis();
+		generator.generate(output);
+
+		System.out.println(String.format("%d traces in %d ms, change points %s", traces,
+				System.currentTimeMillis() - start, generator.getChangePoints()));
+	}
+
+	public DriftLogGenerator createGenerator() {
+		Random random = new Random(seed);
+
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < activities; i++) {
+			names.add("A" + i);
+		}
+
+		List<ProcessVariant> models = new ArrayList<>();
+		ProcessVariant base = ProcessVariant.random(variantName(0), names, 3, 8, random);
+		models.add(base);
+		for (int i = 1; i < variants; i++) {
+			models.add(base.mutate(variantName(i), change, random));
+		}
+
+		DriftLogGenerator generator = new DriftLogGenerator(models);
+		generator.setNumberOfTraces(traces);
+		generator.setNumberOfDrifts(drifts);
+		generator.setDriftType(driftType);
+		generator.setDriftLength(driftLength);
+		generator.setIncrementalSteps(incrementalSteps);
+		generator.setSeed(seed);
+
+		return generator;
+	}
+
+	/**
+	 * Names the variants a, b, ..., z, a1, b1, ...
+	 */
+	private static String variantName(int i) {
+		return (char) ('a' + i % 26) + (i < 26 ? "" : String.valueOf(i / 26));
+	}
+
+	private static String value(String[] args, int i) {
+		if (i >= args.length) {
+			throw new IllegalArgumentException("Missing value for " + args[i - 1] + ".");
+		}
+
+		return args[i];
+	}
+
+}
@@ -0,0 +1,185 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+import de.tudarmstadt.tk.pm.ChangePoint;
+import de.tudarmstadt.tk.pm.ProcessDriftOutput;
+import de.tudarmstadt.tk.pm.ProcessDriftSettings.CountingMode;
+import de.tudarmstadt.tk.pm.evaluation.EvaluationResult;
+import de.tudarmstadt.tk.pm.metrics.Counter;
+import de.tudarmstadt.tk.pm.metrics.DetectionMetrics;
+import de.tudarmstadt.tk.pm.metrics.Phase;
+import de.tudarmstadt.tk.pm.reasons.MetricChange;
+
+/**
+ * Writes one JSON object per analyzed log and line (JSON Lines).
+ */
+public class JsonOutputWriter implements Closeable {
+
+	private final Writer writer;
+
+	private final boolean closeWriter;
+
+	public JsonOutputWriter(Writer writer) {
+		this(writer, true);
+	}
+
+	/**
+	 * Creates a writer that closes the given writer on close if closeWriter is
+	 * set, and otherwise only flushes it, e.g. to keep System.out open.
+	 *
+	 * @param writer
+	 * @param closeWriter
+	 */
+	public JsonOutputWriter(Writer writer, boolean closeWriter) {
+		this.writer = writer;
+		this.closeWriter = closeWriter;
+	}
+
+	public void write(String log, CountingMode countingMode, int numberOfTraces, ProcessDriftOutput output)
+			throws IOException {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"log\":").append(quote(log));
+		sb.append(",\"mode\":").append(quote(countingMode.name()));
+		sb.append(",\"traces\":").append(numberOfTraces);
+		sb.append(",\"timeElapsed\":").append(output.getTimeElapsed());
+		sb.append(",\"evaluations\":").append(output.getNumberOfEvaluations());
+		sb.append(",\"metrics\":").append(metrics(output.getMetrics()));
+
+		EvaluationResult result = output.getResult();
+		if (result != null) {
+			sb.append(",\"f1score\":").append(number(result.getF1score()));
+			sb.append(",\"precision\":").append(number(result.getPrecision()));
+			sb.append(",\"recall\":").append(number(result.getRecall()));
+			sb.append(",\"averageDistance\":").append(number(result.getAverageDistance()));
+			sb.append(",\"truePositives\":").append(result.getTruePositives());
+			sb.append(",\"falsePositives\":").append(result.getFalsePositives());
+			sb.append(",\"falseNegatives\":").append(result.getFalseNegatives());
+		}
+
+		sb.append(",\"changePoints\":[");
+		for (int i = 0; i < output.getChangePoints().size(); i++) {
+			ChangePoint changePoint = output.getChangePoints().get(i);
+
+			sb.append(i > 0 ? "," : "").append("{\"index\":").append(changePoint.getIndex());
+			if (changePoint.hasReasons()) {
+				sb.append(",\"reasons\":[");
+
+				boolean first = true;
+				for (MetricChange reason : changePoint.getReasons()) {
+					sb.append(first ? "" : ",").append("{\"metric\":").append(quote(reason.getName()));
+					sb.append(",\"reference\":").append(number(reason.getReferenceValue()));
+					sb.append(",\"detection\":").append(number(reason.getDetectionValue())).append("}");
+					first = false;
+				}
+
+				sb.append("]");
+			}
+			sb.append("}");
+		}
+		sb.append("]}");
+
+		writeLine(sb.toString());
+	}
+
+	private static String metrics(DetectionMetrics metrics) {
+		StringBuilder sb = new StringBuilder("{\"phases\":{");
+		boolean first = true;
+		for (Phase phase : Phase.values()) {
+			if (metrics.getCount(phase) > 0) {
+				sb.append(first ? "" : ",").append(quote(phase.name()));
+				sb.append(":{\"time\":").append(metrics.getTime(phase));
+				sb.append(",\"count\":").append(metrics.getCount(phase)).append("}");
+				first = false;
+			}
+		}
+		sb.append("}");
+
+		for (Counter counter : Counter.values()) {
+			sb.append(",").append(quote(counter.name())).append(":").append(metrics.getCount(counter));
+		}
+		sb.append(",\"TRACES_PER_SECOND\":").append(number(metrics.getTracesPerSecond()));
+		sb.append(",\"BYTES_PER_WINDOW\":").append(number(metrics.getBytesPerWindow()));
+
+		return sb.append("}").toString();
+	}
+
+	public void writeError(String log, Throwable error) throws IOException {
+		writeLine("{\"log\":" + quote(log) + ",\"error\":" + quote(String.valueOf(error)) + "}");
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (closeWriter) {
+			writer.close();
+		} else {
+			writer.flush();
+		}
+	}
+
+	private synchronized void writeLine(String line) throws IOException {
+		writer.write(line);
+		writer.write('\n');
+		writer.flush();
+	}
+
+	private static String number(double value) {
+		return Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(value);
+	}
+
+	private static String quote(String value) {
+		if (value == null) {
+			return "null";
+		}
+
+		StringBuilder sb = new StringBuilder("\"");
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				sb.append("\\\"");
+				break;
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					sb.append(String.format("\\u%04x", (int) c));
+				} else {
+					sb.append(c);
+				}
+			}
+		}
+
+		return sb.append("\"").toString();
+	}
+
+}
@@ -0,0 +1,86 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.drift;
+
+import org.apache.commons.math3.special.Gamma;
+
+import de.tudarmstadt.tk.pm.utils.ChiSquareCriticalValues;
+
+/**
+ * Pearson's chi-square test of homogeneity, equivalent to
+ * ChiSquareTest.chiSquareTestDataSetsComparison; a p-value below the threshold
+ * indicates a drift.
+ */
+public class ChiSquareDriftTest implements DriftTest {
+
+	private final ChiSquareCriticalValues criticalValues = new ChiSquareCriticalValues();
+
+	@Override
+	public double evaluate(long[] references, long[] detections, int length) {
+		return evaluate(references, detections, length, Double.NaN);
+	}
+
+	@Override
+	public double evaluate(long[] references, long[] detections, int length, double threshold) {
+		long referenceSum = 0;
+		long detectionSum = 0;
+		int columns = 0;
+
+		for (int i = 0; i < length; i++) {
+			if (references[i] != 0 || detections[i] != 0) {
+				referenceSum += references[i];
+				detectionSum += detections[i];
+				columns++;
+			}
+		}
+
+		if (columns < 2 || referenceSum == 0 || detectionSum == 0) {
+			return 1;
+		}
+
+		// weights for unequal window sizes
+		double weight = Math.sqrt((double) detectionSum / (double) referenceSum);
+
+		double statistic = 0;
+		for (int i = 0; i < length; i++) {
+			long total = references[i] + detections[i];
+			if (total != 0) {
+				double difference = references[i] * weight - detections[i] / weight;
+				statistic += difference * difference / total;
+			}
+		}
+
+		int degreesOfFreedom = columns - 1;
+		if (!Double.isNaN(threshold)) {
+			double criticalValue = criticalValues.get(degreesOfFreedom, threshold);
+			if (statistic > criticalValue + ChiSquareCriticalValues.TOLERANCE) {
+				return 0;
+			} else if (statistic < criticalValue - ChiSquareCriticalValues.TOLERANCE) {
+				return 1;
+			}
+		}
+
+		return 1.0 - Gamma.regularizedGammaP(degreesOfFreedom / 2.0, statistic / 2.0);
+	}
+
+	@Override
+	public boolean isDrift(double result, double threshold) {
+		return result < threshold;
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.drift;
+
+import java.util.Arrays;
+
+/**
+ * Counts of a reference and a detection window, paired by activity or arc.
+ * Pairs that are zero in both windows are not stored.
+ */
+public class CountVectors {
+
+	private long[] references;
+
+	private long[] detections;
+
+	private int length = 0;
+
+	public CountVectors() {
+		this(64);
+	}
+
+	public CountVectors(int capacity) {
+		references = new long[Math.max(1, capacity)];
+		detections = new long[Math.max(1, capacity)];
+	}
+
+	public void clear() {
+		length = 0;
+	}
+
+	public void add(long reference, long detection) {
+		if (reference == 0 && detection == 0) {
+			return;
+		}
+
+		if (length == references.length) {
+			references = Arrays.copyOf(references, length * 2);
+			detections = Arrays.copyOf(detections, length * 2);
+		}
+		references[length] = reference;
+		detections[length] = detection;
+		length++;
+	}
+
+	public long[] getReferences() {
+		return references;
+	}
+
+	public long[] getDetections() {
+		return detections;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.drift;
+
+/**
+ * Compares the counts of a reference and a detection window. Statistical
+ * tests return a p-value, distances return a distance; isDrift interprets a
+ * result against a threshold in the unit of the test.
+ */
+public interface DriftTest {
+
+	/**
+	 * Compares the first length entries of both count vectors.
+	 *
+	 * @param references
+	 * @param detections
+	 * @param length
+	 * @return
+	 */
+	double evaluate(long[] references, long[] detections, int length);
+
+	/**
+	 * Compares both count vectors when only the comparison with the threshold
+	 * matters. Tests may return any result on the same side of the threshold
+	 * instead of the exact one; a threshold of NaN requests the exact result.
+	 *
+	 * @param references
+	 * @param detections
+	 * @param length
+	 * @param threshold
+	 * @return
+	 */
+	default double evaluate(long[] references, long[] detections, int length, double threshold) {
+		return evaluate(references, detections, length);
+	}
+
+	/**
+	 * Compares a batch of window pairs in one call and stores the results in
+	 * the same order.
+	 *
+	 * @param batch
+	 * @param size
+	 *            number of pairs of the batch to compare
+	 * @param threshold
+	 * @param results
+	 */
+	default void evaluate(CountVectors[] batch, int size, double threshold, double[] results) {
+		for (int i = 0; i < size; i++) {
+			CountVectors vectors = batch[i];
+			results[i] = evaluate(vectors.getReferences(), vectors.getDetections(), vectors.getLength(), threshold);
+		}
+	}
+
+	/**
+	 * Checks if a result indicates a drift.
+	 *
+	 * @param result
+	 * @param threshold
+	 * @return
+	 */
+	boolean isDrift(double result, double threshold);
+
+}
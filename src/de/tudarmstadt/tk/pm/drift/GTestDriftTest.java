@@ -0,0 +1,48 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.drift;
+
+import de.tudarmstadt.tk.pm.utils.GTestKernel;
+
+/**
+ * G-test of independence; a p-value below the threshold indicates a drift.
+ */
+public class GTestDriftTest implements DriftTest {
+
+	private final GTestKernel kernel = new GTestKernel();
+
+	@Override
+	public double evaluate(long[] references, long[] detections, int length) {
+		return kernel.pValue(references, detections, length);
+	}
+
+	@Override
+	public double evaluate(long[] references, long[] detections, int length, double threshold) {
+		if (Double.isNaN(threshold)) {
+			return kernel.pValue(references, detections, length);
+		}
+
+		return kernel.pValue(references, detections, length, threshold);
+	}
+
+	@Override
+	public boolean isDrift(double result, double threshold) {
+		return result < threshold;
+	}
+
+}
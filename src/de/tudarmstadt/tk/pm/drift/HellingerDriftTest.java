@@ -0,0 +1,53 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.drift;
+
+/**
+ * Hellinger distance between the relative frequencies of both windows, between
+ * 0 (equal) and 1 (disjoint); a distance above the threshold indicates a
+ * drift. Much cheaper than a test, so it suits pre-screening.
+ */
+public class HellingerDriftTest implements DriftTest {
+
+	@Override
+	public double evaluate(long[] references, long[] detections, int length) {
+		long referenceSum = 0;
+		long detectionSum = 0;
+		double coefficient = 0;
+
+		for (int i = 0; i < length; i++) {
+			referenceSum += references[i];
+			detectionSum += detections[i];
+			coefficient += Math.sqrt((double) references[i] * detections[i]);
+		}
+
+		if (referenceSum == 0 || detectionSum == 0) {
+			return 0;
+		}
+
+		// 1 - Bhattacharyya coefficient of the relative frequencies
+		double distance = 1 - coefficient / Math.sqrt((double) referenceSum * detectionSum);
+		return Math.sqrt(Math.max(0, distance));
+	}
+
+	@Override
+	public boolean isDrift(double result, double threshold) {
+		return result > threshold;
+	}
+
+}
@@ -0,0 +1,65 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.drift;
+
+import de.tudarmstadt.tk.pm.utils.MathUtils;
+
+/**
+ * Kullback-Leibler divergence (in bits) of the detection window from the
+ * reference window; a divergence above the threshold indicates a drift. Both
+ * frequencies are smoothed by half a count, so activities and arcs that only
+ * occur in one window contribute instead of being skipped.
+ */
+public class KlDivergenceDriftTest implements DriftTest {
+
+	private static final double PSEUDO_COUNT = 0.5;
+
+	@Override
+	public double evaluate(long[] references, long[] detections, int length) {
+		long referenceSum = 0;
+		long detectionSum = 0;
+
+		for (int i = 0; i < length; i++) {
+			referenceSum += references[i];
+			detectionSum += detections[i];
+		}
+
+		if (referenceSum == 0 || detectionSum == 0) {
+			return 0;
+		}
+
+		double referenceTotal = referenceSum + PSEUDO_COUNT * length;
+		double detectionTotal = detectionSum + PSEUDO_COUNT * length;
+
+		double divergence = 0;
+		for (int i = 0; i < length; i++) {
+			double p = (references[i] + PSEUDO_COUNT) / referenceTotal;
+			double q = (detections[i] + PSEUDO_COUNT) / detectionTotal;
+
+			divergence += q * Math.log(q / p);
+		}
+
+		return Math.max(0, divergence) / MathUtils.log2;
+	}
+
+	@Override
+	public boolean isDrift(double result, double threshold) {
+		return result > threshold;
+	}
+
+}
@@ -0,0 +1,411 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.encoding;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+
+import de.tudarmstadt.tk.pm.window.ActivityDictionary;
+
+/**
+ * Column-oriented event log that keeps only what the detection reads: the
+ * activity ids of all events in one contiguous column with the start offset of
+ * every trace, the activity dictionary, and optionally the name and first
+ * timestamp of every trace.
+ *
+ * The columns are buffers, either on the heap or memory-mapped from a file
+ * written by write, so logs larger than the heap can be analyzed. Every column
+ * is mapped separately and may hold up to 2 GB.
+ *
+ * File format (big endian): magic, version, number of traces, number of
+ * events, number of activities, flags, the activity names (length and UTF-8
+ * bytes), padding to 8 bytes, the trace offsets (number of traces + 1 ints),
+ * the events (ints), padding to 8 bytes, the timestamps (longs, if flagged),
+ * the name offsets (number of traces + 1 ints) and the UTF-8 names (if
+ * flagged). A trace without a name is stored as the single byte NO_NAME, which
+ * UTF-8 never produces, so it is read as null and not as an empty name.
+ */
+public class EncodedLog {
+
+	public static final int MAGIC = 0x50444C47;
+
+	public static final int VERSION = 1;
+
+	public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+	public static final String EXTENSION = ".pdlog";
+
+	static final byte NO_NAME = (byte) 0xFF;
+
+	private static final int FLAG_TIMESTAMPS = 1;
+
+	private static final int FLAG_NAMES = 2;
+
+	private final ActivityDictionary dictionary;
+
+	private final int numberOfTraces;
+
+	private final int numberOfEvents;
+
+	private final IntBuffer offsets;
+
+	private final IntBuffer events;
+
+	private final LongBuffer timestamps;
+
+	private final IntBuffer nameOffsets;
+
+	private final ByteBuffer names;
+
+	EncodedLog(ActivityDictionary dictionary, int numberOfTraces, int numberOfEvents, IntBuffer offsets,
+			IntBuffer events, LongBuffer timestamps, IntBuffer nameOffsets, ByteBuffer names) {
+		this.dictionary = dictionary;
+		this.numberOfTraces = numberOfTraces;
+		this.numberOfEvents = numberOfEvents;
+		this.offsets = offsets;
+		this.events = events;
+		this.timestamps = timestamps;
+		this.nameOffsets = nameOffsets;
+		this.names = names;
+	}
+
+	/**
+	 * Encodes an event log with the event names as activities.
+	 *
+	 * @param log
+	 * @return
+	 */
+	public static EncodedLog encode(XLog log) {
+		return encode(log, Collections.<String>emptyList());
+	}
+
+	/**
+	 * Encodes an event log. The given activities get the first ids, in their
+	 * order.
+	 *
+	 * @param log
+	 * @param activities
+	 * @return
+	 */
+	public static EncodedLog encode(XLog log, Collection<String> activities) {
+		XEventClassifier classifier = new XEventNameClassifier();
+		EncodedLogBuilder builder = new EncodedLogBuilder(new ActivityDictionary(activities));
+
+		for (XTrace trace : log) {
+			builder.startTrace();
+			builder.setTraceName(XConceptExtension.instance().extractName(trace));
+
+			// only the first event carries the start time of the trace
+			long timestamp = NO_TIMESTAMP;
+			if (!trace.isEmpty()) {
+				Date date = XTimeExtension.instance().extractTimestamp(trace.get(0));
+				timestamp = date != null ? date.getTime() : NO_TIMESTAMP;
+			}
+
+			for (XEvent event : trace) {
+				builder.addEvent(classifier.getClassIdentity(event), timestamp);
+				timestamp = NO_TIMESTAMP;
+			}
+
+			builder.endTrace();
+		}
+
+		return builder.build();
+	}
+
+	/**
+	 * Opens an encoded log file by mapping its columns into memory.
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static EncodedLog open(File file) throws IOException {
+		ActivityDictionary dictionary = new ActivityDictionary();
+		int numberOfTraces, numberOfEvents, flags;
+		long position;
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException(file + " is not an encoded event log.");
+			}
+			if (in.readInt() != VERSION) {
+				throw new IOException(file + " has an unsupported version.");
+			}
+
+			numberOfTraces = in.readInt();
+			numberOfEvents = in.readInt();
+			int numberOfActivities = in.readInt();
+			flags = in.readInt();
+			position = 24;
+
+			for (int i = 0; i < numberOfActivities; i++) {
+				byte[] name = new byte[in.readInt()];
+				in.readFully(name);
+				dictionary.getId(new String(name, StandardCharsets.UTF_8));
+				position += 4 + name.length;
+			}
+		}
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			position = align(position);
+
+			IntBuffer offsets = map(channel, position, (numberOfTraces + 1L) * 4).asIntBuffer();
+			position += (numberOfTraces + 1L) * 4;
+
+			IntBuffer events = map(channel, position, numberOfEvents * 4L).asIntBuffer();
+			position = align(position + numberOfEvents * 4L);
+
+			LongBuffer timestamps = null;
+			if ((flags & FLAG_TIMESTAMPS) != 0) {
+				timestamps = map(channel, position, numberOfTraces * 8L).asLongBuffer();
+				position += numberOfTraces * 8L;
+			}
+
+			IntBuffer nameOffsets = null;
+			ByteBuffer names = null;
+			if ((flags & FLAG_NAMES) != 0) {
+				nameOffsets = map(channel, position, (numberOfTraces + 1L) * 4).asIntBuffer();
+				position += (numberOfTraces + 1L) * 4;
+				names = map(channel, position, nameOffsets.get(numberOfTraces));
+			}
+
+			// the mappings stay valid after the channel is closed
+			return new EncodedLog(dictionary, numberOfTraces, numberOfEvents, offsets, events, timestamps, nameOffsets,
+					names);
+		}
+	}
+
+	/**
+	 * Writes the log in the format read by open.
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void write(File file) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			long position = writeHeader(out, numberOfTraces, numberOfEvents, dictionary, timestamps != null,
+					names != null);
+
+			for (int i = 0; i <= numberOfTraces; i++) {
+				out.writeInt(offsets.get(i));
+			}
+			for (int i = 0; i < numberOfEvents; i++) {
+				out.writeInt(events.get(i));
+			}
+			pad(out, position + (numberOfTraces + 1L) * 4 + numberOfEvents * 4L);
+
+			if (timestamps != null) {
+				for (int i = 0; i < numberOfTraces; i++) {
+					out.writeLong(timestamps.get(i));
+				}
+			}
+
+			if (names != null) {
+				for (int i = 0; i <= numberOfTraces; i++) {
+					out.writeInt(nameOffsets.get(i));
+				}
+				for (int i = 0; i < names.limit(); i++) {
+					out.writeByte(names.get(i));
+				}
+			}
+		}
+	}
+
+	public ActivityDictionary getDictionary() {
+		return dictionary;
+	}
+
+	/**
+	 * Returns the number of traces.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return numberOfTraces;
+	}
+
+	public int getNumberOfEvents() {
+		return numberOfEvents;
+	}
+
+	/**
+	 * Returns the position of the first event of the trace in the event column.
+	 *
+	 * @param trace
+	 * @return
+	 */
+	public int getTraceStart(int trace) {
+		return offsets.get(trace);
+	}
+
+	/**
+	 * Returns the position after the last event of the trace in the event
+	 * column.
+	 *
+	 * @param trace
+	 * @return
+	 */
+	public int getTraceEnd(int trace) {
+		return offsets.get(trace + 1);
+	}
+
+	public int getTraceLength(int trace) {
+		return getTraceEnd(trace) - getTraceStart(trace);
+	}
+
+	/**
+	 * Returns the activity id of the event at the given position of the event
+	 * column.
+	 *
+	 * @param position
+	 * @return
+	 */
+	public int getActivity(int position) {
+		return events.get(position);
+	}
+
+	public boolean hasTimestamps() {
+		return timestamps != null;
+	}
+
+	/**
+	 * Returns the timestamp of the first event of the trace or NO_TIMESTAMP.
+	 *
+	 * @param trace
+	 * @return
+	 */
+	public long getTimestamp(int trace) {
+		return timestamps != null ? timestamps.get(trace) : NO_TIMESTAMP;
+	}
+
+	public boolean hasNames() {
+		return names != null;
+	}
+
+	public String getTraceName(int trace) {
+		if (names == null) {
+			return null;
+		}
+
+		int start = nameOffsets.get(trace);
+		byte[] name = new byte[nameOffsets.get(trace + 1) - start];
+
+		// duplicate, so concurrent readers do not share a position
+		ByteBuffer buffer = names.duplicate();
+		buffer.position(start);
+		buffer.get(name);
+
+		if (name.length == 1 && name[0] == NO_NAME) {
+			return null;
+		}
+
+		return new String(name, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the trace names as a list that decodes every name on access.
+	 *
+	 * @return
+	 */
+	public List<String> getTraceNames() {
+		return new AbstractList<String>() {
+			@Override
+			public String get(int index) {
+				return getTraceName(index);
+			}
+
+			@Override
+			public int size() {
+				return numberOfTraces;
+			}
+		};
+	}
+
+	/**
+	 * Writes everything before the trace offsets, including the padding.
+	 *
+	 * @return the position of the trace offsets
+	 */
+	static long writeHeader(DataOutputStream out, int numberOfTraces, int numberOfEvents,
+			ActivityDictionary dictionary, boolean hasTimestamps, boolean hasNames) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(numberOfTraces);
+		out.writeInt(numberOfEvents);
+		out.writeInt(dictionary.size());
+		out.writeInt((hasTimestamps ? FLAG_TIMESTAMPS : 0) | (hasNames ? FLAG_NAMES : 0));
+
+		long position = 24;
+		for (String activity : dictionary.getNames()) {
+			byte[] name = activity.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(name.length);
+			out.write(name);
+			position += 4 + name.length;
+		}
+
+		return pad(out, position);
+	}
+
+	private static MappedByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("A column of the encoded log exceeds 2 GB.");
+		}
+
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+	}
+
+	private static long align(long position) {
+		return (position + 7) & ~7L;
+	}
+
+	static long pad(DataOutputStream out, long position) throws IOException {
+		for (long i = position; i < align(position); i++) {
+			out.writeByte(0);
+		}
+
+		return align(position);
+	}
+
+}
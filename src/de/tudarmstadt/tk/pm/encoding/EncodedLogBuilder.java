@@ -0,0 +1,200 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.encoding;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import de.tudarmstadt.tk.pm.window.ActivityDictionary;
+
+/**
+ * Collects traces event by event into the columns of an encoded log.
+ *
+ * A trace is started with startTrace, receives its events and optionally its
+ * name, and is finished with endTrace. The timestamp of a trace is the
+ * timestamp of its first event.
+ */
+public class EncodedLogBuilder implements EncodedLogSink {
+
+	private final ActivityDictionary dictionary;
+
+	private int[] events = new int[1024];
+
+	private int numberOfEvents = 0;
+
+	private int[] offsets = new int[256];
+
+	private long[] timestamps = new long[256];
+
+	private int[] nameOffsets = new int[256];
+
+	private final NameBuffer names = new NameBuffer();
+
+	private int numberOfTraces = 0;
+
+	private boolean hasTimestamps = false;
+
+	private boolean hasNames = false;
+
+	private boolean inTrace = false;
+
+	private String traceName = null;
+
+	public EncodedLogBuilder() {
+		this(new ActivityDictionary());
+	}
+
+	public EncodedLogBuilder(ActivityDictionary dictionary) {
+		this.dictionary = dictionary;
+	}
+
+	@Override
+	public void startTrace() {
+		if (inTrace) {
+			throw new IllegalStateException("The previous trace has not been ended.");
+		}
+
+		ensureTraceCapacity(numberOfTraces + 2);
+		offsets[numberOfTraces] = numberOfEvents;
+		timestamps[numberOfTraces] = EncodedLog.NO_TIMESTAMP;
+		traceName = null;
+		inTrace = true;
+	}
+
+	@Override
+	public void setTraceName(String name) {
+		traceName = name;
+	}
+
+	@Override
+	public void addEvent(String activity, long timestamp) {
+		if (!inTrace) {
+			throw new IllegalStateException("No trace has been started.");
+		}
+
+		if (numberOfEvents == events.length) {
+			events = Arrays.copyOf(events, events.length * 2);
+		}
+
+		if (numberOfEvents == offsets[numberOfTraces] && timestamp != EncodedLog.NO_TIMESTAMP) {
+			timestamps[numberOfTraces] = timestamp;
+			hasTimestamps = true;
+		}
+
+		events[numberOfEvents++] = dictionary.getId(activity);
+	}
+
+	@Override
+	public void endTrace() {
+		if (!inTrace) {
+			throw new IllegalStateException("No trace has been started.");
+		}
+
+		if (traceName != null) {
+			byte[] bytes = traceName.getBytes(StandardCharsets.UTF_8);
+			names.write(bytes, 0, bytes.length);
+			hasNames = true;
+		} else {
+			names.write(EncodedLog.NO_NAME);
+		}
+
+		numberOfTraces++;
+		offsets[numberOfTraces] = numberOfEvents;
+		nameOffsets[numberOfTraces] = names.size();
+		inTrace = false;
+	}
+
+	public int getNumberOfTraces() {
+		return numberOfTraces;
+	}
+
+	/**
+	 * Returns the number of bytes of the columns collected so far.
+	 *
+	 * @return
+	 */
+	public long getMemorySize() {
+		return numberOfEvents * 4L + numberOfTraces * 16L + names.size();
+	}
+
+	public ActivityDictionary getDictionary() {
+		return dictionary;
+	}
+
+	/**
+	 * Returns the encoded log of all ended traces.
+	 *
+	 * @return
+	 */
+	public EncodedLog build() {
+		IntBuffer offsetColumn = IntBuffer.wrap(Arrays.copyOf(offsets, numberOfTraces + 1));
+		IntBuffer eventColumn = IntBuffer.wrap(Arrays.copyOf(events, numberOfEvents));
+
+		LongBuffer timestampColumn = hasTimestamps ? LongBuffer.wrap(Arrays.copyOf(timestamps, numberOfTraces))
+				: null;
+		IntBuffer nameOffsetColumn = hasNames ? IntBuffer.wrap(Arrays.copyOf(nameOffsets, numberOfTraces + 1))
+				: null;
+		ByteBuffer nameColumn = hasNames ? ByteBuffer.wrap(names.toByteArray()) : null;
+
+		return new EncodedLog(dictionary, numberOfTraces, numberOfEvents, offsetColumn, eventColumn, timestampColumn,
+				nameOffsetColumn, nameColumn);
+	}
+
+	/**
+	 * Returns the encoded log of all ended traces without copying the columns.
+	 * The log is only valid until the next trace is started.
+	 *
+	 * @return
+	 */
+	EncodedLog view() {
+		IntBuffer offsetColumn = IntBuffer.wrap(offsets, 0, numberOfTraces + 1);
+		IntBuffer eventColumn = IntBuffer.wrap(events, 0, numberOfEvents);
+
+		LongBuffer timestampColumn = hasTimestamps ? LongBuffer.wrap(timestamps, 0, numberOfTraces) : null;
+		IntBuffer nameOffsetColumn = hasNames ? IntBuffer.wrap(nameOffsets, 0, numberOfTraces + 1) : null;
+		ByteBuffer nameColumn = hasNames ? names.wrap() : null;
+
+		return new EncodedLog(dictionary, numberOfTraces, numberOfEvents, offsetColumn, eventColumn, timestampColumn,
+				nameOffsetColumn, nameColumn);
+	}
+
+	private void ensureTraceCapacity(int capacity) {
+		if (capacity > offsets.length) {
+			int newLength = Math.max(capacity, offsets.length * 2);
+			offsets = Arrays.copyOf(offsets, newLength);
+			timestamps = Arrays.copyOf(timestamps, newLength);
+			nameOffsets = Arrays.copyOf(nameOffsets, newLength);
+		}
+	}
+
+	/**
+	 * Name column that can be read without copying it.
+	 */
+	private static class NameBuffer extends ByteArrayOutputStream {
+
+		private ByteBuffer wrap() {
+			return ByteBuffer.wrap(buf, 0, count);
+		}
+
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.encoding;
+
+/**
+ * Receives the traces of an event log one after the other. A trace is started
+ * with startTrace, receives its events and optionally its name, and is
+ * finished with endTrace.
+ */
+public interface EncodedLogSink {
+
+	void startTrace();
+
+	void setTraceName(String name);
+
+	/**
+	 * Adds an event of the current trace.
+	 *
+	 * @param activity
+	 * @param timestamp
+	 *            milliseconds since the epoch or EncodedLog.NO_TIMESTAMP
+	 */
+	void addEvent(String activity, long timestamp);
+
+	void endTrace();
+
+	/**
+	 * Adds a trace of an encoded log; its timestamp is passed with its first
+	 * event.
+	 *
+	 * @param log
+	 * @param trace
+	 */
+	default void addTrace(EncodedLog log, int trace) {
+		startTrace();
+		setTraceName(log.getTraceName(trace));
+
+		long timestamp = log.getTimestamp(trace);
+		for (int i = log.getTraceStart(trace); i < log.getTraceEnd(trace); i++) {
+			addEvent(log.getDictionary().getName(log.getActivity(i)), timestamp);
+			timestamp = EncodedLog.NO_TIMESTAMP;
+		}
+
+		endTrace();
+	}
+
+}
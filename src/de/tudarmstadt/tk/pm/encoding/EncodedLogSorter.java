@@ -0,0 +1,304 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.encoding;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import de.tudarmstadt.tk.pm.utils.TimestampIndex;
+import de.tudarmstadt.tk.pm.window.ActivityDictionary;
+
+/**
+ * Orders encoded logs by the start times of their traces. Traces with equal
+ * start times keep their order, and a trace without timestamp follows the
+ * trace before it.
+ *
+ * As a sink, the sorter collects the traces in runs of at most the memory
+ * budget, including the sort order of the run. Every full run is written in
+ * start time order to a temporary encoded log file, and finish merges the runs
+ * into the target file. Only the current run and one trace per spilled run are
+ * kept in memory. The start times are carried forward over the runs, so a
+ * trace without timestamp at the start of a run follows the last trace of the
+ * run before.
+ */
+public class EncodedLogSorter implements EncodedLogSink, Closeable {
+
+	public static final long DEFAULT_MEMORY_BUDGET = 256L * 1024 * 1024;
+
+	/** bytes per trace of the start times and the order of a run */
+	private static final int SORT_BYTES_PER_TRACE = 24;
+
+	private final File directory;
+
+	private final long memoryBudget;
+
+	private final ActivityDictionary dictionary = new ActivityDictionary();
+
+	private final List<File> runs = new ArrayList<>();
+
+	/** start times the traces of every spilled run are ordered by */
+	private final List<File> runTimestamps = new ArrayList<>();
+
+	private EncodedLogBuilder run = new EncodedLogBuilder(dictionary);
+
+	/** start time of the last trace of the spilled runs */
+	private long timestamp = Long.MIN_VALUE;
+
+	/**
+	 * @param directory
+	 *            directory of the spilled runs, or null for the default
+	 *            temporary directory
+	 * @param memoryBudget
+	 *            number of bytes of a run and its sort order
+	 */
+	public EncodedLogSorter(File directory, long memoryBudget) {
+		this.directory = directory;
+		this.memoryBudget = memoryBudget;
+	}
+
+	/**
+	 * Sorts an encoded log in memory. A sorted log is returned as is.
+	 *
+	 * @param log
+	 * @return
+	 */
+	public static EncodedLog sort(EncodedLog log) {
+		TimestampIndex timestamps = TimestampIndex.of(log);
+		if (timestamps.isSorted()) {
+			return log;
+		}
+
+		EncodedLogBuilder builder = new EncodedLogBuilder(new ActivityDictionary(log.getDictionary().getNames()));
+		for (int trace : timestamps.getOrder()) {
+			builder.addTrace(log, trace);
+		}
+
+		return builder.build();
+	}
+
+	@Override
+	public void startTrace() {
+		run.startTrace();
+	}
+
+	@Override
+	public void setTraceName(String name) {
+		run.setTraceName(name);
+	}
+
+	@Override
+	public void addEvent(String activity, long timestamp) {
+		run.addEvent(activity, timestamp);
+	}
+
+	@Override
+	public void endTrace() {
+		run.endTrace();
+
+		if (run.getMemorySize() + run.getNumberOfTraces() * (long) SORT_BYTES_PER_TRACE >= memoryBudget) {
+			try {
+				spill();
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of runs spilled to disk so far.
+	 *
+	 * @return
+	 */
+	public int getNumberOfRuns() {
+		return runs.size();
+	}
+
+	/**
+	 * Writes all traces ordered by start time to the given file and removes the
+	 * spilled runs.
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void finish(File file) throws IOException {
+		try {
+			if (runs.isEmpty()) {
+				write(file, null);
+			} else {
+				if (run.getNumberOfTraces() > 0) {
+					spill();
+				}
+				merge(file);
+			}
+		} finally {
+			run = new EncodedLogBuilder(dictionary);
+			deleteRuns();
+		}
+	}
+
+	@Override
+	public void close() {
+		deleteRuns();
+	}
+
+	private void spill() throws IOException {
+		File file = File.createTempFile("run", EncodedLog.EXTENSION, directory);
+		runs.add(file);
+		File timestamps = File.createTempFile("run", ".tmp", directory);
+		runTimestamps.add(timestamps);
+
+		write(file, timestamps);
+		run = new EncodedLogBuilder(dictionary);
+	}
+
+	/**
+	 * Writes the current run in start time order. The columns of the run are
+	 * read in place; the start times of the written traces are stored in the
+	 * given file, if any.
+	 */
+	private void write(File file, File timestampFile) throws IOException {
+		EncodedLog log = run.view();
+		TimestampIndex timestamps = TimestampIndex.of(log, timestamp);
+
+		try (EncodedLogWriter writer = new EncodedLogWriter(file, dictionary);
+				DataOutputStream out = timestampFile != null
+						? new DataOutputStream(new BufferedOutputStream(new FileOutputStream(timestampFile)))
+						: null) {
+			for (int trace : timestamps.getOrder()) {
+				writer.addTrace(log, trace);
+				if (out != null) {
+					out.writeLong(timestamps.getTimestamp(trace));
+				}
+			}
+
+			writer.finish();
+		}
+
+		if (log.size() > 0) {
+			timestamp = timestamps.getTimestamp(log.size() - 1);
+		}
+	}
+
+	/**
+	 * Merges the sorted runs; on equal start times the earlier run goes first,
+	 * so the merge is stable.
+	 */
+	private void merge(File file) throws IOException {
+		List<Cursor> cursors = new ArrayList<>();
+		PriorityQueue<Cursor> queue = new PriorityQueue<>();
+
+		try (EncodedLogWriter writer = new EncodedLogWriter(file, dictionary)) {
+			for (int i = 0; i < runs.size(); i++) {
+				Cursor cursor = new Cursor(EncodedLog.open(runs.get(i)), runTimestamps.get(i), i);
+				cursors.add(cursor);
+				if (cursor.hasTrace()) {
+					queue.add(cursor);
+				}
+			}
+
+			while (!queue.isEmpty()) {
+				Cursor cursor = queue.poll();
+				writer.addTrace(cursor.log, cursor.trace);
+
+				if (cursor.next()) {
+					queue.add(cursor);
+				}
+			}
+
+			writer.finish();
+		} finally {
+			for (Cursor cursor : cursors) {
+				cursor.close();
+			}
+		}
+	}
+
+	private void deleteRuns() {
+		for (File file : runs) {
+			file.delete();
+		}
+		for (File file : runTimestamps) {
+			file.delete();
+		}
+		runs.clear();
+		runTimestamps.clear();
+		timestamp = Long.MIN_VALUE;
+	}
+
+	private static class Cursor implements Comparable<Cursor>, Closeable {
+
+		private final EncodedLog log;
+
+		private final DataInputStream timestamps;
+
+		private final int run;
+
+		private int trace = 0;
+
+		/** start time the trace was sorted by */
+		private long timestamp;
+
+		private Cursor(EncodedLog log, File timestamps, int run) throws IOException {
+			this.log = log;
+			this.timestamps = new DataInputStream(new BufferedInputStream(new FileInputStream(timestamps)));
+			this.run = run;
+			readTimestamp();
+		}
+
+		private boolean hasTrace() {
+			return trace < log.size();
+		}
+
+		private boolean next() throws IOException {
+			trace++;
+			readTimestamp();
+
+			return hasTrace();
+		}
+
+		private void readTimestamp() throws IOException {
+			if (hasTrace()) {
+				timestamp = timestamps.readLong();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			timestamps.close();
+		}
+
+		@Override
+		public int compareTo(Cursor other) {
+			int result = Long.compare(timestamp, other.timestamp);
+			return result != 0 ? result : Integer.compare(run, other.run);
+		}
+
+	}
+
+}
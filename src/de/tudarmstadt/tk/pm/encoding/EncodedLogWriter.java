@@ -0,0 +1,255 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.encoding;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import de.tudarmstadt.tk.pm.window.ActivityDictionary;
+
+/**
+ * Writes traces into an encoded log file without keeping them in memory. Every
+ * column is written to its own temporary file next to the target, and finish
+ * joins the columns into the format read by EncodedLog.open.
+ */
+public class EncodedLogWriter implements EncodedLogSink, Closeable {
+
+	private final File file;
+
+	private final ActivityDictionary dictionary;
+
+	private final File[] columnFiles = new File[5];
+
+	private final DataOutputStream offsets;
+
+	private final DataOutputStream events;
+
+	private final DataOutputStream timestamps;
+
+	private final DataOutputStream nameOffsets;
+
+	private final DataOutputStream names;
+
+	private int numberOfTraces = 0;
+
+	private int numberOfEvents = 0;
+
+	private long namesSize = 0;
+
+	private boolean hasTimestamps = false;
+
+	private boolean hasNames = false;
+
+	private boolean inTrace = false;
+
+	private int traceStart;
+
+	private long traceTimestamp;
+
+	private String traceName;
+
+	private boolean finished = false;
+
+	public EncodedLogWriter(File file) throws IOException {
+		this(file, new ActivityDictionary());
+	}
+
+	public EncodedLogWriter(File file, ActivityDictionary dictionary) throws IOException {
+		this.file = file;
+		this.dictionary = dictionary;
+
+		File directory = file.getAbsoluteFile().getParentFile();
+		for (int i = 0; i < columnFiles.length; i++) {
+			columnFiles[i] = File.createTempFile("column", ".tmp", directory);
+		}
+
+		offsets = open(columnFiles[0]);
+		events = open(columnFiles[1]);
+		timestamps = open(columnFiles[2]);
+		nameOffsets = open(columnFiles[3]);
+		names = open(columnFiles[4]);
+
+		offsets.writeInt(0);
+		nameOffsets.writeInt(0);
+	}
+
+	@Override
+	public void startTrace() {
+		if (inTrace) {
+			throw new IllegalStateException("The previous trace has not been ended.");
+		}
+
+		traceStart = numberOfEvents;
+		traceTimestamp = EncodedLog.NO_TIMESTAMP;
+		traceName = null;
+		inTrace = true;
+	}
+
+	@Override
+	public void setTraceName(String name) {
+		traceName = name;
+	}
+
+	@Override
+	public void addEvent(String activity, long timestamp) {
+		if (!inTrace) {
+			throw new IllegalStateException("No trace has been started.");
+		}
+
+		try {
+			if (numberOfEvents == Integer.MAX_VALUE) {
+				throw new IOException("Too many events for an encoded log.");
+			}
+
+			if (numberOfEvents == traceStart && timestamp != EncodedLog.NO_TIMESTAMP) {
+				traceTimestamp = timestamp;
+				hasTimestamps = true;
+			}
+
+			events.writeInt(dictionary.getId(activity));
+			numberOfEvents++;
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	@Override
+	public void endTrace() {
+		if (!inTrace) {
+			throw new IllegalStateException("No trace has been started.");
+		}
+
+		try {
+			if (traceName != null) {
+				byte[] bytes = traceName.getBytes(StandardCharsets.UTF_8);
+				names.write(bytes);
+				namesSize += bytes.length;
+				hasNames = true;
+			} else {
+				names.write(EncodedLog.NO_NAME);
+				namesSize++;
+			}
+
+			if (namesSize > Integer.MAX_VALUE) {
+				throw new IOException("The trace names of an encoded log exceed 2 GB.");
+			}
+
+			numberOfTraces++;
+			offsets.writeInt(numberOfEvents);
+			timestamps.writeLong(traceTimestamp);
+			nameOffsets.writeInt((int) namesSize);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+
+		inTrace = false;
+	}
+
+	public int getNumberOfTraces() {
+		return numberOfTraces;
+	}
+
+	public ActivityDictionary getDictionary() {
+		return dictionary;
+	}
+
+	/**
+	 * Writes the encoded log file from the columns and removes the temporary
+	 * files.
+	 *
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		if (inTrace) {
+			throw new IllegalStateException("The last trace has not been ended.");
+		}
+
+		closeColumns();
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			long position = EncodedLog.writeHeader(out, numberOfTraces, numberOfEvents, dictionary, hasTimestamps,
+					hasNames);
+
+			copy(columnFiles[0], out);
+			copy(columnFiles[1], out);
+			EncodedLog.pad(out, position + (numberOfTraces + 1L) * 4 + numberOfEvents * 4L);
+
+			if (hasTimestamps) {
+				copy(columnFiles[2], out);
+			}
+
+			if (hasNames) {
+				copy(columnFiles[3], out);
+				copy(columnFiles[4], out);
+			}
+		} finally {
+			finished = true;
+			deleteColumns();
+		}
+	}
+
+	/**
+	 * Removes the temporary files; a log that has not been finished is
+	 * discarded.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!finished) {
+			closeColumns();
+			finished = true;
+			deleteColumns();
+		}
+	}
+
+	private void closeColumns() throws IOException {
+		for (DataOutputStream column : new DataOutputStream[] { offsets, events, timestamps, nameOffsets, names }) {
+			column.close();
+		}
+	}
+
+	private void deleteColumns() {
+		for (File column : columnFiles) {
+			column.delete();
+		}
+	}
+
+	private static DataOutputStream open(File file) throws IOException {
+		return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+	}
+
+	private static void copy(File column, DataOutputStream out) throws IOException {
+		byte[] buffer = new byte[1 << 16];
+
+		try (InputStream in = new BufferedInputStream(new FileInputStream(column))) {
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				out.write(buffer, 0, read);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,256 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.encoding;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import de.tudarmstadt.tk.pm.window.ActivityDictionary;
+
+/**
+ * Reads an XES file in one pass with StAX and encodes it without building the
+ * XLog object model. The traces go to an encoded log builder or to any other
+ * sink, e.g. a sorter that spills to disk. Only the attributes the detection
+ * reads are kept: the event names (like XEventNameClassifier), the trace names
+ * and the timestamps of the first events. Attributes of the log, globals,
+ * classifiers and nested attributes are skipped.
+ *
+ * A parser reads one log at a time.
+ */
+public class XesStreamParser {
+
+	private static final String TRACE = "trace";
+
+	private static final String EVENT = "event";
+
+	private static final String STRING = "string";
+
+	private static final String DATE = "date";
+
+	private static final String NAME_KEY = "concept:name";
+
+	private static final String TIMESTAMP_KEY = "time:timestamp";
+
+	private final Collection<String> activities;
+
+	private final XMLInputFactory factory;
+
+	private DatatypeFactory datatypeFactory = null;
+
+	private boolean isoTimestamps = true;
+
+	public XesStreamParser() {
+		this(Collections.<String>emptyList());
+	}
+
+	/**
+	 * @param activities
+	 *            activities that get the first ids, in their order
+	 */
+	public XesStreamParser(Collection<String> activities) {
+		this.activities = activities;
+
+		factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+	}
+
+	/**
+	 * Checks if the file can be parsed, i.e. it is an XES file that is
+	 * optionally compressed with gzip.
+	 *
+	 * @param file
+	 * @return
+	 */
+	public static boolean canParse(File file) {
+		String name = file.getName().toLowerCase();
+		return name.endsWith(".xes") || name.endsWith(".xes.gz");
+	}
+
+	/**
+	 * Parses an XES file; files ending with .gz are decompressed.
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public EncodedLog parse(File file) throws IOException {
+		EncodedLogBuilder builder = new EncodedLogBuilder(new ActivityDictionary(activities));
+		parse(file, builder);
+
+		return builder.build();
+	}
+
+	/**
+	 * Parses an XES file into the given sink; files ending with .gz are
+	 * decompressed.
+	 *
+	 * @param file
+	 * @param sink
+	 * @throws IOException
+	 */
+	public void parse(File file, EncodedLogSink sink) throws IOException {
+		try (InputStream in = new FileInputStream(file)) {
+			InputStream buffered = new BufferedInputStream(in, 1 << 16);
+			parse(file.getName().toLowerCase().endsWith(".gz") ? new GZIPInputStream(buffered, 1 << 16) : buffered,
+					sink);
+		} catch (IOException ex) {
+			throw new IOException("Could not parse " + file + ": " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Parses an uncompressed XES stream. The stream is not closed.
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	public EncodedLog parse(InputStream in) throws IOException {
+		EncodedLogBuilder builder = new EncodedLogBuilder(new ActivityDictionary(activities));
+		parse(in, builder);
+
+		return builder.build();
+	}
+
+	/**
+	 * Parses an uncompressed XES stream into the given sink. The stream is not
+	 * closed.
+	 *
+	 * @param in
+	 * @param sink
+	 * @throws IOException
+	 */
+	public void parse(InputStream in, EncodedLogSink sink) throws IOException {
+		XMLStreamReader reader = null;
+		try {
+			reader = factory.createXMLStreamReader(in);
+
+			int depth = 0;
+			boolean inTrace = false;
+			boolean inEvent = false;
+			String activity = null;
+			long timestamp = EncodedLog.NO_TIMESTAMP;
+
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					depth++;
+					String element = reader.getLocalName();
+
+					if (depth == 2 && TRACE.equals(element)) {
+						sink.startTrace();
+						inTrace = true;
+					} else if (inTrace && depth == 3 && EVENT.equals(element)) {
+						activity = null;
+						timestamp = EncodedLog.NO_TIMESTAMP;
+						inEvent = true;
+					} else if (inEvent && depth == 4) {
+						String key = reader.getAttributeValue(null, "key");
+						if (NAME_KEY.equals(key)) {
+							activity = reader.getAttributeValue(null, "value");
+						} else if (TIMESTAMP_KEY.equals(key) && DATE.equals(element)) {
+							timestamp = parseTimestamp(reader.getAttributeValue(null, "value"));
+						}
+					} else if (inTrace && !inEvent && depth == 3 && STRING.equals(element)
+							&& NAME_KEY.equals(reader.getAttributeValue(null, "key"))) {
+						sink.setTraceName(reader.getAttributeValue(null, "value"));
+					}
+					break;
+
+				case XMLStreamConstants.END_ELEMENT:
+					if (inEvent && depth == 3) {
+						// events without name are classified as the empty string
+						sink.addEvent(activity != null ? activity : "", timestamp);
+						inEvent = false;
+					} else if (inTrace && depth == 2) {
+						sink.endTrace();
+						inTrace = false;
+					}
+					depth--;
+					break;
+
+				default:
+					break;
+				}
+			}
+		} catch (XMLStreamException ex) {
+			throw new IOException(ex.getMessage(), ex);
+		} catch (UncheckedIOException ex) {
+			// thrown by sinks that write to disk
+			throw ex.getCause();
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException ex) {
+					// nothing left to release
+				}
+			}
+		}
+	}
+
+	/**
+	 * Converts an xs:dateTime value to milliseconds since the epoch. Values
+	 * without offset are read in the default time zone like the XES parser
+	 * does.
+	 */
+	private long parseTimestamp(String value) throws XMLStreamException {
+		if (value == null) {
+			return EncodedLog.NO_TIMESTAMP;
+		}
+
+		if (isoTimestamps) {
+			try {
+				return OffsetDateTime.parse(value, DateTimeFormatter.ISO_OFFSET_DATE_TIME).toInstant().toEpochMilli();
+			} catch (DateTimeParseException ex) {
+				// the log uses another form, e.g. without offset
+				isoTimestamps = false;
+			}
+		}
+
+		try {
+			if (datatypeFactory == null) {
+				datatypeFactory = DatatypeFactory.newInstance();
+			}
+
+			return datatypeFactory.newXMLGregorianCalendar(value.trim()).toGregorianCalendar().getTimeInMillis();
+		} catch (DatatypeConfigurationException | IllegalArgumentException ex) {
+			throw new XMLStreamException("Invalid timestamp " + value + ".");
+		}
+	}
+
+}
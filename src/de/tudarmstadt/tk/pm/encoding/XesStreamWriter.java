@@ -0,0 +1,185 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.encoding;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Writes traces as a XES file in one pass with StAX, without building the XLog
+ * object model. Every trace gets its name and every event its name and, if
+ * given, its timestamp. Files ending with .gz are compressed.
+ */
+public class XesStreamWriter implements EncodedLogSink, Closeable {
+
+	private static final String NAMESPACE = "http://www.xes-standard.org/";
+
+	private final OutputStream stream;
+
+	private final XMLStreamWriter writer;
+
+	private boolean inTrace = false;
+
+	private boolean closed = false;
+
+	public XesStreamWriter(File file) throws IOException {
+		this(file.getName().toLowerCase().endsWith(".gz")
+				? new GZIPOutputStream(new FileOutputStream(file), 1 << 16)
+				: new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+	}
+
+	/**
+	 * Writes to the stream, which is closed with the writer.
+	 *
+	 * @param stream
+	 * @throws IOException
+	 */
+	public XesStreamWriter(OutputStream stream) throws IOException {
+		this.stream = stream;
+
+		try {
+			writer = XMLOutputFactory.newInstance().createXMLStreamWriter(stream, "UTF-8");
+			writer.writeStartDocument("UTF-8", "1.0");
+			writer.writeStartElement("log");
+			writer.writeDefaultNamespace(NAMESPACE);
+			writer.writeAttribute("xes.version", "1.0");
+			writer.writeAttribute("xes.features", "nested-attributes");
+
+			writeExtension("Concept", "concept", "http://www.xes-standard.org/concept.xesext");
+			writeExtension("Time", "time", "http://www.xes-standard.org/time.xesext");
+
+			writer.writeEmptyElement("classifier");
+			writer.writeAttribute("name", "Activity");
+			writer.writeAttribute("keys", "concept:name");
+		} catch (XMLStreamException ex) {
+			stream.close();
+			throw new IOException(ex);
+		}
+	}
+
+	@Override
+	public void startTrace() {
+		if (inTrace) {
+			throw new IllegalStateException("The previous trace has not been ended.");
+		}
+
+		try {
+			writer.writeStartElement("trace");
+		} catch (XMLStreamException ex) {
+			throw new UncheckedIOException(new IOException(ex));
+		}
+
+		inTrace = true;
+	}
+
+	@Override
+	public void setTraceName(String name) {
+		if (!inTrace) {
+			throw new IllegalStateException("No trace has been started.");
+		}
+
+		// unnamed traces have no name attribute
+		if (name == null) {
+			return;
+		}
+
+		try {
+			writeAttribute("string", "concept:name", name);
+		} catch (XMLStreamException ex) {
+			throw new UncheckedIOException(new IOException(ex));
+		}
+	}
+
+	@Override
+	public void addEvent(String activity, long timestamp) {
+		if (!inTrace) {
+			throw new IllegalStateException("No trace has been started.");
+		}
+
+		try {
+			writer.writeStartElement("event");
+			writeAttribute("string", "concept:name", activity);
+			if (timestamp != EncodedLog.NO_TIMESTAMP) {
+				writeAttribute("date", "time:timestamp", Instant.ofEpochMilli(timestamp).toString());
+			}
+			writer.writeEndElement();
+		} catch (XMLStreamException ex) {
+			throw new UncheckedIOException(new IOException(ex));
+		}
+	}
+
+	@Override
+	public void endTrace() {
+		if (!inTrace) {
+			throw new IllegalStateException("No trace has been started.");
+		}
+
+		try {
+			writer.writeEndElement();
+		} catch (XMLStreamException ex) {
+			throw new UncheckedIOException(new IOException(ex));
+		}
+
+		inTrace = false;
+	}
+
+	/**
+	 * Ends the log and closes the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+
+		closed = true;
+		try {
+			writer.writeEndDocument();
+			writer.close();
+		} catch (XMLStreamException ex) {
+			throw new IOException(ex);
+		} finally {
+			stream.close();
+		}
+	}
+
+	private void writeExtension(String name, String prefix, String uri) throws XMLStreamException {
+		writer.writeEmptyElement("extension");
+		writer.writeAttribute("name", name);
+		writer.writeAttribute("prefix", prefix);
+		writer.writeAttribute("uri", uri);
+	}
+
+	private void writeAttribute(String type, String key, String value) throws XMLStreamException {
+		writer.writeEmptyElement(type);
+		writer.writeAttribute("key", key);
+		writer.writeAttribute("value", value);
+	}
+
+}
@@ -17,89 +17,122 @@
  */
 package de.tudarmstadt.tk.pm.evaluation;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 import org.deckfour.xes.model.XLog;
-import org.deckfour.xes.model.XTrace;
 
 import de.tudarmstadt.tk.pm.utils.XLogUtils;
 
+/**
+ * Scores detected change points against the change points of an evaluation
+ * log, whose trace names start with the variant of the trace (e.g. "a_12").
+ * The true change points are read in one pass over the trace names.
+ *
+ * evaluate(changePoints) matches every detected point to its nearest free
+ * true change point, one after the other. The evaluations with a tolerance
+ * match detected points in one merge over both sorted lists instead.
+ */
 public class EvaluationCalculator {
 
-	private List<Integer> originalChangePoints;
-
-	private XLog log;
+	private final int[] originalChangePoints;
 
 	public EvaluationCalculator(XLog log) {
-		this.log = log;
+		this(new AbstractList<String>() {
+			@Override
+			public String get(int index) {
+				return XLogUtils.getTraceName(log.get(index));
+			}
 
+			@Override
+			public int size() {
+				return log.size();
+			}
+		});
+	}
+
+	/**
+	 * Creates the calculator from the trace names of a log, e.g. of an encoded
+	 * log.
+	 *
+	 * @param traceNames
+	 */
+	public EvaluationCalculator(List<String> traceNames) {
 		// determine original change points
-		this.originalChangePoints = new ArrayList<>();
-		String lastTraceType = XLogUtils.getTraceType(log.get(0));
-		String lastTraceType2 = XLogUtils.getTraceType(log.get(1));
-
-		for (XTrace trace : log) {
-			String curTraceType = XLogUtils.getTraceType(trace);
-
-			if (!lastTraceType.equals(curTraceType) && lastTraceType2.equals(curTraceType)) {
-				// no change point
-			} else if (!lastTraceType.equals(curTraceType)) {
-				// change point
-//				originalChangePoints.add(log.indexOf(trace));
-			} else if (lastTraceType.equals(curTraceType) && !lastTraceType2.equals(curTraceType)) {
-				// change point
-				originalChangePoints.add(log.indexOf(trace) - 1);
-			} 
+		int[] changePoints = new int[16];
+		int numberOfChangePoints = 0;
+
+		String lastTraceType = XLogUtils.getTraceType(traceNames.get(0));
+		String lastTraceType2 = XLogUtils.getTraceType(traceNames.get(1));
+
+		for (int i = 0; i < traceNames.size(); i++) {
+			String curTraceType = i == 0 ? lastTraceType : XLogUtils.getTraceType(traceNames.get(i));
+
+			if (lastTraceType.equals(curTraceType) && !lastTraceType2.equals(curTraceType)) {
+				// change point, a single trace of another type is none
+				if (numberOfChangePoints == changePoints.length) {
+					changePoints = Arrays.copyOf(changePoints, changePoints.length * 2);
+				}
+				changePoints[numberOfChangePoints++] = i - 1;
+			}
 
 			lastTraceType2 = lastTraceType;
 			lastTraceType = curTraceType;
 		}
 
+		this.originalChangePoints = Arrays.copyOf(changePoints, numberOfChangePoints);
 	}
 
-	public EvaluationResult evaluate(List<de.tudarmstadt.tk.pm.ChangePoint> changePoints) {
+	/**
+	 * Returns the true change points in ascending order.
+	 *
+	 * @return
+	 */
+	public int[] getOriginalChangePoints() {
+		return originalChangePoints.clone();
+	}
 
-		// map change points to nearest neighbor
-		Map<Integer, ChangePoint> detectedChangePoints = new HashMap<>();
+	/**
+	 * Scores the detected change points in their order: every detected point
+	 * takes the nearest true change point that is not matched yet or matched
+	 * by a farther point, at any distance. Without any match the F1 score is
+	 * NaN.
+	 *
+	 * @param changePoints
+	 * @return
+	 */
+	public EvaluationResult evaluate(List<de.tudarmstadt.tk.pm.ChangePoint> changePoints) {
+		// distance of the point matched to every true change point, or -1
+		int[] distances = new int[originalChangePoints.length];
+		Arrays.fill(distances, -1);
 
 		for (de.tudarmstadt.tk.pm.ChangePoint detectedPoint : changePoints) {
-
 			int minimalIndex = -1;
 			int minimalDistance = Integer.MAX_VALUE;
 
-			for (Integer originalPoint : originalChangePoints) {
-
-				int distance = Math.abs(originalPoint - detectedPoint.getIndex());
+			for (int i = 0; i < originalChangePoints.length; i++) {
+				int distance = Math.abs(originalChangePoints[i] - detectedPoint.getIndex());
 
-				if (!detectedChangePoints.containsKey(originalPoint)
-						|| detectedChangePoints.get(originalPoint).getDistance() > distance) {
-
-					if (minimalDistance > distance) {
-						minimalIndex = originalPoint;
-						minimalDistance = distance;
-					}
+				if ((distances[i] < 0 || distances[i] > distance) && minimalDistance > distance) {
+					minimalIndex = i;
+					minimalDistance = distance;
 				}
-
 			}
 
 			if (minimalIndex > -1) {
-				detectedChangePoints.put(minimalIndex, new ChangePoint(XLogUtils.getTraceName(log.get(detectedPoint.getIndex())),
-						detectedPoint.getIndex(), minimalDistance));
+				distances[minimalIndex] = minimalDistance;
 			}
-
 		}
 
 		// calculate precision, recall, f1-score
 		double tp = 0.0, fp = 0.0, fn = 0.0;
 		double distance = 0.0;
 
-		for (Integer originalChange : originalChangePoints) {
-			if (detectedChangePoints.containsKey(originalChange)) {
+		for (int matched : distances) {
+			if (matched >= 0) {
 				tp += 1;
-				distance += detectedChangePoints.get(originalChange).getDistance();
+				distance += matched;
 			} else {
 				fn += 1;
 			}
@@ -107,10 +140,104 @@ public class EvaluationCalculator {
 
 		fp = changePoints.size() - tp;
 
-		// return evaluation result
 		EvaluationResult result = new EvaluationResult(tp / (tp + fp), tp / (tp + fn), distance / tp);
+		result.setTruePositives((int) tp);
+		result.setFalsePositives((int) fp);
+		result.setFalseNegatives((int) fn);
+
 		return result;
+	}
+
+	/**
+	 * Scores the detected change points with a tolerance: a match counts only
+	 * if the detected point is at most tolerance traces away. The points are
+	 * matched as in evaluate(changePoints, tolerances).
+	 *
+	 * @param changePoints
+	 * @param tolerance
+	 * @return
+	 */
+	public EvaluationResult evaluate(List<de.tudarmstadt.tk.pm.ChangePoint> changePoints, int tolerance) {
+		return evaluate(changePoints, new int[] { tolerance })[0];
+	}
+
+	/**
+	 * Scores the detected change points for several tolerances with a single
+	 * matching.
+	 *
+	 * Every detected point belongs to its nearest true change point (the
+	 * earlier one on ties), and every true change point is matched by the
+	 * nearest of its detected points. A match within the tolerance is a true
+	 * positive; all other detected points are false positives. Without any
+	 * match the F1 score is 0.
+	 *
+	 * @param changePoints
+	 * @param tolerances
+	 * @return the results in the order of the tolerances
+	 */
+	public EvaluationResult[] evaluate(List<de.tudarmstadt.tk.pm.ChangePoint> changePoints, int[] tolerances) {
+		int[] detected = new int[changePoints.size()];
+		for (int i = 0; i < detected.length; i++) {
+			detected[i] = changePoints.get(i).getIndex();
+		}
+		Arrays.sort(detected);
+
+		int[] distances = match(detected);
+
+		EvaluationResult[] results = new EvaluationResult[tolerances.length];
+		for (int i = 0; i < tolerances.length; i++) {
+			int tp = 0;
+			double distance = 0.0;
+
+			for (int matched : distances) {
+				if (matched >= 0 && matched <= tolerances[i]) {
+					tp++;
+					distance += matched;
+				}
+			}
+
+			int fp = detected.length - tp;
+			int fn = originalChangePoints.length - tp;
+
+			results[i] = new EvaluationResult((double) tp / (tp + fp), (double) tp / (tp + fn), distance / tp);
+			results[i].setTruePositives(tp);
+			results[i].setFalsePositives(fp);
+			results[i].setFalseNegatives(fn);
+			if (tp == 0) {
+				results[i].setF1score(0);
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * Returns for every true change point the distance to its matched
+	 * detected point, or -1. Both lists are sorted, so the nearest true change
+	 * point only moves forward.
+	 */
+	private int[] match(int[] detected) {
+		int[] distances = new int[originalChangePoints.length];
+		Arrays.fill(distances, -1);
+
+		if (originalChangePoints.length == 0) {
+			return distances;
+		}
+
+		int nearest = 0;
+		for (int point : detected) {
+			while (nearest + 1 < originalChangePoints.length && Math.abs((long) originalChangePoints[nearest + 1]
+					- point) < Math.abs((long) originalChangePoints[nearest] - point)) {
+				nearest++;
+			}
+
+			int distance = Math.abs(originalChangePoints[nearest] - point);
+			if (distances[nearest] < 0 || distance < distances[nearest]) {
+				distances[nearest] = distance;
+			}
+		}
 
+		return distances;
 	}
 
 }
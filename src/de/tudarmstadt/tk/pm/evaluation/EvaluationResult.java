@@ -27,6 +27,12 @@ public class EvaluationResult {
 	
 	private double averageDistance;
 
+	private int truePositives;
+
+	private int falsePositives;
+
+	private int falseNegatives;
+
 	public EvaluationResult(double precision, double recall, double averageDistance) {
 		this.precision = precision;
 		this.recall = recall;
@@ -63,4 +69,36 @@ public class EvaluationResult {
 	public void setF1score(double f1score) {
 		this.f1score = f1score;
 	}
+
+	public double getAverageDistance() {
+		return averageDistance;
+	}
+
+	public void setAverageDistance(double averageDistance) {
+		this.averageDistance = averageDistance;
+	}
+
+	public int getTruePositives() {
+		return truePositives;
+	}
+
+	public void setTruePositives(int truePositives) {
+		this.truePositives = truePositives;
+	}
+
+	public int getFalsePositives() {
+		return falsePositives;
+	}
+
+	public void setFalsePositives(int falsePositives) {
+		this.falsePositives = falsePositives;
+	}
+
+	public int getFalseNegatives() {
+		return falseNegatives;
+	}
+
+	public void setFalseNegatives(int falseNegatives) {
+		this.falseNegatives = falseNegatives;
+	}
 }
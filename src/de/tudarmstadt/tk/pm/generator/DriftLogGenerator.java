@@ -0,0 +1,369 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import de.tudarmstadt.tk.pm.encoding.EncodedLog;
+import de.tudarmstadt.tk.pm.encoding.EncodedLogBuilder;
+import de.tudarmstadt.tk.pm.encoding.EncodedLogSink;
+import de.tudarmstadt.tk.pm.encoding.EncodedLogWriter;
+import de.tudarmstadt.tk.pm.encoding.XesStreamWriter;
+
+/**
+ * Generates event logs with known drifts between process variants. The traces
+ * are streamed into a sink one after the other, so the size of the log is
+ * only limited by the sink.
+ *
+ * The drifts are spread evenly over the log. Every trace is named
+ * "<variant>_<index>" after the variant that is active, i.e. the variant the
+ * log drifts to from the start of a gradual or incremental drift on. The
+ * EvaluationCalculator therefore finds the drifts at getChangePoints.
+ */
+public class DriftLogGenerator {
+
+	private final List<ProcessVariant> variants;
+
+	private int numberOfTraces = 10000;
+
+	private int numberOfDrifts = 1;
+
+	private DriftType driftType = DriftType.SUDDEN;
+
+	private int driftLength = 500;
+
+	private int incrementalSteps = 5;
+
+	private int maxTraceLength = 100;
+
+	private long startTime = 1514764800000L;
+
+	private long traceInterval = 60000L;
+
+	private long eventInterval = 1000L;
+
+	private long seed = 0;
+
+	/**
+	 * Creates a generator that drifts through the variants in the given order
+	 * and starts over after the last one. The first variant is the variant a
+	 * recurring drift returns to.
+	 *
+	 * @param variants
+	 */
+	public DriftLogGenerator(List<ProcessVariant> variants) {
+		if (variants.size() < 2) {
+			throw new IllegalArgumentException("At least two variants are required.");
+		}
+
+		this.variants = new ArrayList<>(variants);
+	}
+
+	/**
+	 * Generates the log into the sink.
+	 *
+	 * @param sink
+	 */
+	public void generate(EncodedLogSink sink) {
+		validate();
+
+		SplittableRandom random = new SplittableRandom(seed);
+		int[] trace = new int[maxTraceLength];
+
+		int drift = -1;
+		int nextDrift = getDriftStart(0);
+		ProcessVariant[] models = null;
+
+		for (int i = 0; i < numberOfTraces; i++) {
+			if (i == nextDrift) {
+				drift++;
+				nextDrift = drift + 1 < numberOfDrifts ? getDriftStart(drift + 1) : Integer.MAX_VALUE;
+				models = createModels(drift);
+			}
+
+			ProcessVariant model;
+			String type;
+			if (drift < 0) {
+				model = type(0);
+				type = model.getName();
+			} else {
+				int position = i - getDriftStart(drift);
+				model = select(models, position, random);
+				type = driftType == DriftType.RECURRING && position >= driftLength ? type(0).getName()
+						: models[models.length - 1].getName();
+			}
+
+			int length = model.sample(random, trace);
+			long timestamp = startTime + i * traceInterval;
+
+			sink.startTrace();
+			sink.setTraceName(type + "_" + i);
+			for (int j = 0; j < length; j++) {
+				sink.addEvent(model.getActivities().get(trace[j]), timestamp + j * eventInterval);
+			}
+			sink.endTrace();
+		}
+	}
+
+	/**
+	 * Generates the log in memory.
+	 *
+	 * @return
+	 */
+	public EncodedLog generate() {
+		EncodedLogBuilder builder = new EncodedLogBuilder();
+		generate(builder);
+
+		return builder.build();
+	}
+
+	/**
+	 * Generates the log into an encoded log file (.pdlog) or a XES file (.xes
+	 * or .xes.gz).
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void generate(File file) throws IOException {
+		if (file.getName().toLowerCase().endsWith(EncodedLog.EXTENSION)) {
+			try (EncodedLogWriter writer = new EncodedLogWriter(file)) {
+				generate(writer);
+				writer.finish();
+			}
+		} else {
+			try (XesStreamWriter writer = new XesStreamWriter(file)) {
+				generate(writer);
+			}
+		}
+	}
+
+	/**
+	 * Returns the indices of the traces at which the generated log changes its
+	 * variant: the start of every drift, and for recurring drifts also its end.
+	 *
+	 * @return
+	 */
+	public List<Integer> getChangePoints() {
+		validate();
+
+		List<Integer> changePoints = new ArrayList<>();
+		for (int i = 0; i < numberOfDrifts; i++) {
+			changePoints.add(getDriftStart(i));
+			if (driftType == DriftType.RECURRING) {
+				changePoints.add(getDriftStart(i) + driftLength);
+			}
+		}
+
+		return changePoints;
+	}
+
+	/**
+	 * Returns the index of the first trace of the given drift.
+	 *
+	 * @param drift
+	 * @return
+	 */
+	public int getDriftStart(int drift) {
+		return (int) ((long) numberOfTraces * (drift + 1) / (numberOfDrifts + 1));
+	}
+
+	/**
+	 * Returns the variant that is active after the given number of drifts.
+	 */
+	private ProcessVariant type(int drifts) {
+		if (driftType == DriftType.RECURRING) {
+			return drifts == 0 ? variants.get(0) : variants.get((drifts - 1) % (variants.size() - 1) + 1);
+		}
+
+		return variants.get(drifts % variants.size());
+	}
+
+	/**
+	 * Returns the models of a drift from the previous to the next variant; for
+	 * incremental drifts with the interpolated models in between.
+	 */
+	private ProcessVariant[] createModels(int drift) {
+		ProcessVariant from = driftType == DriftType.RECURRING ? type(0) : type(drift);
+		ProcessVariant to = type(drift + 1);
+
+		if (driftType != DriftType.INCREMENTAL) {
+			return new ProcessVariant[] { from, to };
+		}
+
+		ProcessVariant[] models = new ProcessVariant[incrementalSteps + 2];
+		models[0] = from;
+		for (int i = 1; i <= incrementalSteps; i++) {
+			models[i] = ProcessVariant.interpolate(to.getName(), from, to, (double) i / (incrementalSteps + 1));
+		}
+		models[incrementalSteps + 1] = to;
+
+		return models;
+	}
+
+	/**
+	 * Selects the model of the trace at the given position after the start of
+	 * a drift.
+	 */
+	private ProcessVariant select(ProcessVariant[] models, int position, SplittableRandom random) {
+		ProcessVariant from = models[0];
+		ProcessVariant to = models[models.length - 1];
+
+		if (position >= driftLength) {
+			return driftType == DriftType.RECURRING ? from : to;
+		}
+
+		switch (driftType) {
+		case GRADUAL:
+			return random.nextDouble() < (position + 1.0) / (driftLength + 1) ? to : from;
+		case INCREMENTAL:
+			return models[1 + (int) ((long) position * incrementalSteps / driftLength)];
+		default:
+			return to;
+		}
+	}
+
+	private void validate() {
+		if (numberOfTraces < 0 || numberOfDrifts < 0 || maxTraceLength < 1) {
+			throw new IllegalArgumentException("The numbers of traces and drifts must not be negative.");
+		}
+
+		int distance = numberOfTraces / (numberOfDrifts + 1);
+		if (driftType != DriftType.SUDDEN && (driftLength < 2 || driftLength >= distance)) {
+			throw new IllegalArgumentException(
+					"The drift length must be between 2 and the distance of the drifts (" + distance + " traces).");
+		}
+		if (driftType == DriftType.INCREMENTAL && (incrementalSteps < 1 || incrementalSteps > driftLength)) {
+			throw new IllegalArgumentException("The incremental steps must be between 1 and the drift length.");
+		}
+	}
+
+	public List<ProcessVariant> getVariants() {
+		return variants;
+	}
+
+	public int getNumberOfTraces() {
+		return numberOfTraces;
+	}
+
+	public void setNumberOfTraces(int numberOfTraces) {
+		this.numberOfTraces = numberOfTraces;
+	}
+
+	public int getNumberOfDrifts() {
+		return numberOfDrifts;
+	}
+
+	public void setNumberOfDrifts(int numberOfDrifts) {
+		this.numberOfDrifts = numberOfDrifts;
+	}
+
+	public DriftType getDriftType() {
+		return driftType;
+	}
+
+	public void setDriftType(DriftType driftType) {
+		this.driftType = driftType;
+	}
+
+	public int getDriftLength() {
+		return driftLength;
+	}
+
+	/**
+	 * Number of traces over which a gradual or incremental drift happens, or
+	 * for which a recurring variant replaces the first variant.
+	 *
+	 * @param driftLength
+	 */
+	public void setDriftLength(int driftLength) {
+		this.driftLength = driftLength;
+	}
+
+	public int getIncrementalSteps() {
+		return incrementalSteps;
+	}
+
+	/**
+	 * Number of interpolated models an incremental drift passes through.
+	 *
+	 * @param incrementalSteps
+	 */
+	public void setIncrementalSteps(int incrementalSteps) {
+		this.incrementalSteps = incrementalSteps;
+	}
+
+	public int getMaxTraceLength() {
+		return maxTraceLength;
+	}
+
+	public void setMaxTraceLength(int maxTraceLength) {
+		this.maxTraceLength = maxTraceLength;
+	}
+
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * Timestamp of the first event of the log in milliseconds since the epoch.
+	 *
+	 * @param startTime
+	 */
+	public void setStartTime(long startTime) {
+		this.startTime = startTime;
+	}
+
+	public long getTraceInterval() {
+		return traceInterval;
+	}
+
+	/**
+	 * Milliseconds between the starts of two traces.
+	 *
+	 * @param traceInterval
+	 */
+	public void setTraceInterval(long traceInterval) {
+		this.traceInterval = traceInterval;
+	}
+
+	public long getEventInterval() {
+		return eventInterval;
+	}
+
+	/**
+	 * Milliseconds between two events of a trace.
+	 *
+	 * @param eventInterval
+	 */
+	public void setEventInterval(long eventInterval) {
+		this.eventInterval = eventInterval;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+}
@@ -0,0 +1,43 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.generator;
+
+public enum DriftType {
+	/**
+	 * The next variant replaces the current variant at once.
+	 */
+	SUDDEN,
+
+	/**
+	 * Both variants are mixed during the drift; the share of the next variant
+	 * grows linearly.
+	 */
+	GRADUAL,
+
+	/**
+	 * The current variant changes into the next variant through a number of
+	 * interpolated models during the drift.
+	 */
+	INCREMENTAL,
+
+	/**
+	 * Another variant replaces the first variant for the length of the drift,
+	 * then the first variant returns.
+	 */
+	RECURRING
+}
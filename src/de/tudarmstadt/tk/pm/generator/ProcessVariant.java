@@ -0,0 +1,306 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.generator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import de.tudarmstadt.tk.pm.window.ActivityDictionary;
+
+/**
+ * A process variant as a model of activity sequences: the first activity and
+ * every following activity are drawn from the directly-follows probabilities
+ * of the previous activity, until the trace ends. The name of the variant is
+ * used as the trace type in the generated trace names.
+ */
+public class ProcessVariant {
+
+	private final String name;
+
+	private final List<String> activities;
+
+	/**
+	 * Probability that a trace starts with an activity.
+	 */
+	private final double[] start;
+
+	/**
+	 * Probability that an activity is followed by another activity; the last
+	 * column is the probability that the trace ends.
+	 */
+	private final double[][] next;
+
+	private final double[] cumulativeStart;
+
+	private final double[][] cumulativeNext;
+
+	public ProcessVariant(String name, List<String> activities, double[] start, double[][] next) {
+		if (name.isEmpty() || name.contains("_")) {
+			throw new IllegalArgumentException("The name of a variant must not be empty or contain '_': " + name);
+		}
+		if (start.length != activities.size() || next.length != activities.size()) {
+			throw new IllegalArgumentException("The probabilities do not match the activities of " + name + ".");
+		}
+
+		this.name = name;
+		this.activities = Collections.unmodifiableList(new ArrayList<>(activities));
+		this.start = start;
+		this.next = next;
+
+		cumulativeStart = cumulate(start);
+		cumulativeNext = new double[next.length][];
+		for (int i = 0; i < next.length; i++) {
+			if (next[i].length != activities.size() + 1) {
+				throw new IllegalArgumentException("The probabilities do not match the activities of " + name + ".");
+			}
+
+			cumulativeNext[i] = cumulate(next[i]);
+		}
+	}
+
+	/**
+	 * Estimates a variant from example activity sequences, each counted once.
+	 *
+	 * @param name
+	 * @param sequences
+	 * @return
+	 */
+	public static ProcessVariant of(String name, List<List<String>> sequences) {
+		ActivityDictionary dictionary = new ActivityDictionary();
+		for (List<String> sequence : sequences) {
+			for (String activity : sequence) {
+				dictionary.getId(activity);
+			}
+		}
+
+		int size = dictionary.size();
+		double[] start = new double[size];
+		double[][] next = new double[size][size + 1];
+
+		for (List<String> sequence : sequences) {
+			if (sequence.isEmpty()) {
+				continue;
+			}
+
+			int previous = dictionary.getId(sequence.get(0));
+			start[previous]++;
+
+			for (int i = 1; i < sequence.size(); i++) {
+				int activity = dictionary.getId(sequence.get(i));
+				next[previous][activity]++;
+				previous = activity;
+			}
+
+			next[previous][size]++;
+		}
+
+		return new ProcessVariant(name, dictionary.getNames(), start, next);
+	}
+
+	/**
+	 * Creates a random variant that starts with the first activity, in which
+	 * every activity is followed by up to branching activities and traces have
+	 * about the mean length.
+	 *
+	 * @param name
+	 * @param activities
+	 * @param branching
+	 * @param meanLength
+	 * @param random
+	 * @return
+	 */
+	public static ProcessVariant random(String name, List<String> activities, int branching, double meanLength,
+			Random random) {
+		int size = activities.size();
+		double end = 1.0 / Math.max(1, meanLength);
+
+		double[] start = new double[size];
+		start[0] = 1;
+
+		double[][] next = new double[size][size + 1];
+		for (int i = 0; i < size; i++) {
+			double sum = 0;
+			double[] weights = new double[size];
+			for (int j = 0; j < Math.min(branching, size); j++) {
+				int successor = random.nextInt(size);
+				double weight = 0.1 + random.nextDouble();
+				weights[successor] += weight;
+				sum += weight;
+			}
+
+			for (int j = 0; j < size; j++) {
+				next[i][j] = weights[j] / sum * (1 - end);
+			}
+			next[i][size] = end;
+		}
+
+		return new ProcessVariant(name, activities, start, next);
+	}
+
+	/**
+	 * Returns a copy in which the given fraction of the activities moves the
+	 * probability of one of their successors to another activity.
+	 *
+	 * @param name
+	 * @param fraction
+	 * @param random
+	 * @return
+	 */
+	public ProcessVariant mutate(String name, double fraction, Random random) {
+		int size = activities.size();
+		double[][] mutated = new double[size][];
+
+		for (int i = 0; i < size; i++) {
+			mutated[i] = next[i].clone();
+			if (size < 2 || random.nextDouble() >= fraction) {
+				continue;
+			}
+
+			int from = random.nextInt(size);
+			for (int j = 0; j < size && mutated[i][from] == 0; j++) {
+				from = (from + 1) % size;
+			}
+
+			int to = random.nextInt(size - 1);
+			to = to >= from ? to + 1 : to;
+
+			mutated[i][to] += mutated[i][from];
+			mutated[i][from] = 0;
+		}
+
+		return new ProcessVariant(name, activities, start.clone(), mutated);
+	}
+
+	/**
+	 * Returns the model between two variants: the probabilities are weighted
+	 * with 1 - weight and weight over the activities of both variants. An
+	 * activity of only one variant keeps its successors.
+	 *
+	 * @param name
+	 * @param from
+	 * @param to
+	 * @param weight
+	 * @return
+	 */
+	public static ProcessVariant interpolate(String name, ProcessVariant from, ProcessVariant to, double weight) {
+		ActivityDictionary fromActivities = new ActivityDictionary(from.activities);
+		ActivityDictionary toActivities = new ActivityDictionary(to.activities);
+
+		ActivityDictionary dictionary = new ActivityDictionary(from.activities);
+		for (String activity : to.activities) {
+			dictionary.getId(activity);
+		}
+
+		int size = dictionary.size();
+		double[] start = new double[size];
+		double[][] next = new double[size][size + 1];
+
+		add(from, dictionary, toActivities, 1 - weight, start, next);
+		add(to, dictionary, fromActivities, weight, start, next);
+
+		return new ProcessVariant(name, dictionary.getNames(), start, next);
+	}
+
+	private static void add(ProcessVariant variant, ActivityDictionary dictionary, ActivityDictionary other,
+			double weight, double[] start, double[][] next) {
+		int size = dictionary.size();
+		int variantSize = variant.activities.size();
+
+		for (int i = 0; i < variantSize; i++) {
+			String activity = variant.activities.get(i);
+			int id = dictionary.getId(activity);
+			start[id] += weight * variant.start[i];
+
+			double rowWeight = other.indexOf(activity) < 0 ? 1 : weight;
+			for (int j = 0; j < variantSize; j++) {
+				next[id][dictionary.getId(variant.activities.get(j))] += rowWeight * variant.next[i][j];
+			}
+			next[id][size] += rowWeight * variant.next[i][variantSize];
+		}
+	}
+
+	/**
+	 * Draws a trace into the buffer and returns its length; traces are cut at
+	 * the length of the buffer.
+	 *
+	 * @param random
+	 * @param trace
+	 * @return
+	 */
+	public int sample(SplittableRandom random, int[] trace) {
+		int size = activities.size();
+		int activity = draw(cumulativeStart, random);
+		int length = 0;
+
+		while (activity < size && length < trace.length) {
+			trace[length++] = activity;
+			activity = draw(cumulativeNext[activity], random);
+		}
+
+		return length;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public List<String> getActivities() {
+		return activities;
+	}
+
+	/**
+	 * Returns the first index whose cumulative probability exceeds a random
+	 * value, so entries without probability are never drawn.
+	 */
+	private static int draw(double[] cumulative, SplittableRandom random) {
+		double value = random.nextDouble() * cumulative[cumulative.length - 1];
+		int low = 0;
+		int high = cumulative.length - 1;
+
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (cumulative[middle] > value) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+
+		return low;
+	}
+
+	private static double[] cumulate(double[] probabilities) {
+		double[] cumulative = new double[probabilities.length];
+		double sum = 0;
+
+		for (int i = 0; i < probabilities.length; i++) {
+			if (probabilities[i] < 0) {
+				throw new IllegalArgumentException("Probabilities must not be negative.");
+			}
+
+			sum += probabilities[i];
+			cumulative[i] = sum;
+		}
+
+		return cumulative;
+	}
+
+}
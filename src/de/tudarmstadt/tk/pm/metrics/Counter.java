@@ -0,0 +1,61 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.metrics;
+
+public enum Counter {
+	/**
+	 * Window pairs compared, including coarse blocks and bisection splits.
+	 */
+	WINDOWS_EVALUATED,
+
+	/**
+	 * Candidate splits evaluated to localize a change point.
+	 */
+	REFINEMENT_STEPS,
+
+	/**
+	 * Refinement scans stopped because the p-value rose sharply.
+	 */
+	EARLY_STOPS,
+
+	/**
+	 * Windows answered by the window cache.
+	 */
+	CACHE_HITS,
+
+	/**
+	 * Windows the window cache had to compute.
+	 */
+	CACHE_MISSES,
+
+	/**
+	 * Traces the search has moved over or skipped.
+	 */
+	TRACES_PROCESSED,
+
+	/**
+	 * Change points found.
+	 */
+	CHANGE_POINTS,
+
+	/**
+	 * Bytes allocated by the threads while counting windows, if the JVM
+	 * measures allocations per thread.
+	 */
+	ALLOCATED_BYTES
+}
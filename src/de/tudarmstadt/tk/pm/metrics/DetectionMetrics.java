@@ -0,0 +1,376 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Timers and counters of a detection run. Phases are timed with start and
+ * stop; nested phases, e.g. MINE_NET inside WINDOW_METRICS, are also counted
+ * in the enclosing phase. All updates are thread-safe and are passed on to
+ * the parent, so the total of all runs of the JVM can be scraped over JMX
+ * while the runs are registered on their own.
+ */
+public class DetectionMetrics implements DetectionMetricsMXBean {
+
+	public static final String DOMAIN = "de.tudarmstadt.tk.pm";
+
+	/**
+	 * Metrics that ignore all updates, for code that runs without a detection.
+	 */
+	public static final DetectionMetrics NONE = new DetectionMetrics(null, false);
+
+	private static final AtomicInteger runs = new AtomicInteger();
+
+	private static DetectionMetrics total = null;
+
+	private final DetectionMetrics parent;
+
+	private final boolean enabled;
+
+	private final LongAdder[] phaseTimes = createAdders(Phase.values().length);
+
+	private final LongAdder[] phaseCounts = createAdders(Phase.values().length);
+
+	private final LongAdder[] counters = createAdders(Counter.values().length);
+
+	/** first and last time traces were processed, for the throughput */
+	private final AtomicLong firstProgress = new AtomicLong();
+
+	private volatile long lastProgress = 0;
+
+	private ObjectName name = null;
+
+	public DetectionMetrics() {
+		this(null);
+	}
+
+	public DetectionMetrics(DetectionMetrics parent) {
+		this(parent, true);
+	}
+
+	private DetectionMetrics(DetectionMetrics parent, boolean enabled) {
+		this.parent = parent;
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Returns the metrics of all runs of this JVM, registered as
+	 * de.tudarmstadt.tk.pm:type=DetectionMetrics,name=total.
+	 *
+	 * @return
+	 */
+	public static synchronized DetectionMetrics total() {
+		if (total == null) {
+			total = new DetectionMetrics();
+			total.register("total");
+		}
+
+		return total;
+	}
+
+	/**
+	 * Returns a unique name for the metrics of a run.
+	 *
+	 * @return
+	 */
+	public static String nextRunName() {
+		return "run-" + runs.incrementAndGet();
+	}
+
+	/**
+	 * Registers the metrics as de.tudarmstadt.tk.pm:type=DetectionMetrics,name=
+	 * at the platform MBean server. Monitoring must not stop a detection, so
+	 * failures are only reported.
+	 *
+	 * @param name
+	 */
+	public synchronized void register(String name) {
+		if (!enabled || this.name != null) {
+			return;
+		}
+
+		try {
+			ObjectName objectName = new ObjectName(DOMAIN + ":type=DetectionMetrics,name=" + ObjectName.quote(name));
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (!server.isRegistered(objectName)) {
+				server.registerMBean(this, objectName);
+				this.name = objectName;
+			}
+		} catch (JMException | SecurityException ex) {
+			System.err.println("Could not register detection metrics: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Removes the metrics from the platform MBean server.
+	 */
+	public synchronized void unregister() {
+		if (name == null) {
+			return;
+		}
+
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+		} catch (JMException | SecurityException ex) {
+			System.err.println("Could not unregister detection metrics: " + ex.getMessage());
+		}
+
+		name = null;
+	}
+
+	/**
+	 * Returns the start time of a phase for stop.
+	 *
+	 * @return
+	 */
+	public long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Adds the time since start to the phase.
+	 *
+	 * @param phase
+	 * @param start
+	 */
+	public void stop(Phase phase, long start) {
+		if (enabled) {
+			addTime(phase, System.nanoTime() - start);
+		}
+	}
+
+	private void addTime(Phase phase, long nanos) {
+		phaseTimes[phase.ordinal()].add(nanos);
+		phaseCounts[phase.ordinal()].increment();
+
+		if (parent != null) {
+			parent.addTime(phase, nanos);
+		}
+	}
+
+	public void increment(Counter counter) {
+		add(counter, 1);
+	}
+
+	public void add(Counter counter, long value) {
+		if (!enabled || value == 0) {
+			return;
+		}
+
+		counters[counter.ordinal()].add(value);
+
+		if (counter == Counter.TRACES_PROCESSED) {
+			long now = System.nanoTime();
+			firstProgress.compareAndSet(0, now);
+			lastProgress = now;
+		}
+
+		if (parent != null) {
+			parent.add(counter, value);
+		}
+	}
+
+	/**
+	 * Returns the bytes the current thread has allocated so far, or -1 if the
+	 * JVM does not measure it.
+	 *
+	 * @return
+	 */
+	public long allocatedBytes() {
+		return enabled ? Allocations.get() : -1;
+	}
+
+	/**
+	 * Adds the bytes the current thread has allocated since allocatedBytes
+	 * returned start.
+	 *
+	 * @param start
+	 */
+	public void addAllocatedBytes(long start) {
+		if (start >= 0) {
+			add(Counter.ALLOCATED_BYTES, Math.max(0, Allocations.get() - start));
+		}
+	}
+
+	public long getCount(Counter counter) {
+		return counters[counter.ordinal()].sum();
+	}
+
+	/**
+	 * Returns the time spent in the phase in milliseconds.
+	 *
+	 * @param phase
+	 * @return
+	 */
+	public long getTime(Phase phase) {
+		return TimeUnit.NANOSECONDS.toMillis(phaseTimes[phase.ordinal()].sum());
+	}
+
+	/**
+	 * Returns how often the phase was timed.
+	 *
+	 * @param phase
+	 * @return
+	 */
+	public long getCount(Phase phase) {
+		return phaseCounts[phase.ordinal()].sum();
+	}
+
+	@Override
+	public long getWindowsEvaluated() {
+		return getCount(Counter.WINDOWS_EVALUATED);
+	}
+
+	@Override
+	public long getRefinementSteps() {
+		return getCount(Counter.REFINEMENT_STEPS);
+	}
+
+	@Override
+	public long getEarlyStops() {
+		return getCount(Counter.EARLY_STOPS);
+	}
+
+	@Override
+	public long getCacheHits() {
+		return getCount(Counter.CACHE_HITS);
+	}
+
+	@Override
+	public long getCacheMisses() {
+		return getCount(Counter.CACHE_MISSES);
+	}
+
+	@Override
+	public long getTracesProcessed() {
+		return getCount(Counter.TRACES_PROCESSED);
+	}
+
+	@Override
+	public long getChangePoints() {
+		return getCount(Counter.CHANGE_POINTS);
+	}
+
+	@Override
+	public long getAllocatedBytes() {
+		return getCount(Counter.ALLOCATED_BYTES);
+	}
+
+	/**
+	 * Returns the traces processed per second between the first and the last
+	 * progress of the search.
+	 */
+	@Override
+	public double getTracesPerSecond() {
+		long elapsed = lastProgress - firstProgress.get();
+		return elapsed > 0 ? getTracesProcessed() / (elapsed / 1e9) : 0;
+	}
+
+	/**
+	 * Returns the bytes allocated per counted window.
+	 */
+	@Override
+	public double getBytesPerWindow() {
+		long windows = getCount(Phase.WINDOW_METRICS);
+		return windows > 0 ? (double) getAllocatedBytes() / windows : 0;
+	}
+
+	@Override
+	public Map<String, Long> getPhaseTimes() {
+		Map<String, Long> times = new LinkedHashMap<>();
+		for (Phase phase : Phase.values()) {
+			times.put(phase.name(), getTime(phase));
+		}
+
+		return times;
+	}
+
+	@Override
+	public Map<String, Long> getPhaseCounts() {
+		Map<String, Long> counts = new LinkedHashMap<>();
+		for (Phase phase : Phase.values()) {
+			counts.put(phase.name(), getCount(phase));
+		}
+
+		return counts;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (Phase phase : Phase.values()) {
+			if (getCount(phase) > 0) {
+				sb.append(String.format("%s\t %d ms\t %d%n", phase, getTime(phase), getCount(phase)));
+			}
+		}
+		for (Counter counter : Counter.values()) {
+			sb.append(String.format("%s\t %d%n", counter, getCount(counter)));
+		}
+		sb.append(String.format("traces/s\t %.1f%nbytes/window\t %.0f", getTracesPerSecond(), getBytesPerWindow()));
+
+		return sb.toString();
+	}
+
+	private static LongAdder[] createAdders(int size) {
+		LongAdder[] adders = new LongAdder[size];
+		for (int i = 0; i < size; i++) {
+			adders[i] = new LongAdder();
+		}
+
+		return adders;
+	}
+
+	/**
+	 * Reads the allocated bytes of the current thread where the JVM supports
+	 * it (HotSpot's com.sun.management.ThreadMXBean).
+	 */
+	private static class Allocations {
+
+		private static final com.sun.management.ThreadMXBean threads = create();
+
+		private static com.sun.management.ThreadMXBean create() {
+			ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+			if (threads instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+				if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+					return hotspot;
+				}
+			}
+
+			return null;
+		}
+
+		static long get() {
+			return threads != null ? threads.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+		}
+
+	}
+
+}
@@ -0,0 +1,52 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.metrics;
+
+import java.util.Map;
+
+/**
+ * Metrics of drift detection runs as seen by JMX clients. Times are in
+ * milliseconds.
+ */
+public interface DetectionMetricsMXBean {
+
+	long getWindowsEvaluated();
+
+	long getRefinementSteps();
+
+	long getEarlyStops();
+
+	long getCacheHits();
+
+	long getCacheMisses();
+
+	long getTracesProcessed();
+
+	long getChangePoints();
+
+	long getAllocatedBytes();
+
+	double getTracesPerSecond();
+
+	double getBytesPerWindow();
+
+	Map<String, Long> getPhaseTimes();
+
+	Map<String, Long> getPhaseCounts();
+
+}
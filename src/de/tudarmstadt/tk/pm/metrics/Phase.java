@@ -0,0 +1,72 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.metrics;
+
+public enum Phase {
+	/**
+	 * Whole detection run from sorting to evaluation, without reasons.
+	 */
+	DETECTION,
+
+	/**
+	 * Sorting the event log.
+	 */
+	SORT_LOG,
+
+	/**
+	 * Copying the event log for the miner that explains change points; part
+	 * of REASONS.
+	 */
+	COPY_LOG,
+
+	/**
+	 * Counting a window with the provider, including mining, cache lookups
+	 * and index queries. One invocation per window.
+	 */
+	WINDOW_METRICS,
+
+	/**
+	 * HeuristicsMiner runs.
+	 */
+	MINE_NET,
+
+	/**
+	 * HeuristicsNetGraph construction from a mined net.
+	 */
+	BUILD_GRAPH,
+
+	/**
+	 * Reading the metrics of a mined graph.
+	 */
+	GRAPH_METRICS,
+
+	/**
+	 * Drift and screening tests on the aligned counts of window pairs.
+	 */
+	DRIFT_TEST,
+
+	/**
+	 * Explaining change points, including mining their windows.
+	 */
+	REASONS,
+
+	/**
+	 * Scoring the change points against the trace names.
+	 */
+	EVALUATION
+}
@@ -0,0 +1,362 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.metrics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Ring buffer of the windows compared by a detector, kept in primitive arrays
+ * so that recording a window neither formats nor allocates. When the buffer
+ * is full, the oldest records are overwritten. Records are written by the
+ * search thread of one detector and read after the search.
+ *
+ * The recording can be printed like the former debug output or written to a
+ * compact binary file (.pdtrace): the magic number "PDWR", a version (short),
+ * the number of records (int), then per record, oldest first, its kind and
+ * decision (bytes), begin, split and end (ints), and the arc and node values
+ * (doubles), all big-endian.
+ */
+public class WindowRecorder {
+
+	public static final String EXTENSION = ".pdtrace";
+
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+
+	private static final int MAGIC = 0x50445752;
+
+	private static final short VERSION = 1;
+
+	public enum Kind {
+		/**
+		 * Reference window [begin, split) compared to detection window [split,
+		 * end) while moving through the log.
+		 */
+		WINDOW,
+
+		/**
+		 * Half-size window pair of the linear scan or the final pair of the
+		 * bisection while localizing a change point.
+		 */
+		REFINEMENT,
+
+		/**
+		 * Split of the bisection; the arc value is the standardized G
+		 * statistic.
+		 */
+		SPLIT,
+
+		/**
+		 * Window pair of the time span window mode.
+		 */
+		TIME_WINDOW,
+
+		/**
+		 * Stable blocks [begin, end) skipped by the coarse search.
+		 */
+		SKIP,
+
+		/**
+		 * Change point at split, explained by the windows [begin, split) and
+		 * [split, end).
+		 */
+		CHANGE_POINT
+	}
+
+	public enum Decision {
+		/**
+		 * The windows do not differ.
+		 */
+		STABLE,
+
+		/**
+		 * The windows differ: a change point is localized or, for time windows,
+		 * the pair is a candidate.
+		 */
+		DRIFT,
+
+		/**
+		 * The linear scan stopped since the p-value rose sharply.
+		 */
+		EARLY_STOP
+	}
+
+	private final int capacity;
+
+	private final byte[] kinds;
+
+	private final byte[] decisions;
+
+	private final int[] begins;
+
+	private final int[] splits;
+
+	private final int[] ends;
+
+	private final double[] arcValues;
+
+	private final double[] nodeValues;
+
+	private long count = 0;
+
+	public WindowRecorder() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public WindowRecorder(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity must be positive.");
+		}
+
+		this.capacity = capacity;
+		kinds = new byte[capacity];
+		decisions = new byte[capacity];
+		begins = new int[capacity];
+		splits = new int[capacity];
+		ends = new int[capacity];
+		arcValues = new double[capacity];
+		nodeValues = new double[capacity];
+	}
+
+	/**
+	 * Records a window pair or an event of the search.
+	 *
+	 * @param kind
+	 * @param begin
+	 * @param split
+	 * @param end
+	 * @param arcValue
+	 * @param nodeValue
+	 * @param decision
+	 */
+	public void record(Kind kind, int begin, int split, int end, double arcValue, double nodeValue,
+			Decision decision) {
+		int position = (int) (count % capacity);
+
+		kinds[position] = (byte) kind.ordinal();
+		decisions[position] = (byte) decision.ordinal();
+		begins[position] = begin;
+		splits[position] = split;
+		ends[position] = end;
+		arcValues[position] = arcValue;
+		nodeValues[position] = nodeValue;
+
+		count++;
+	}
+
+	/**
+	 * Returns the number of records held, at most the capacity.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return (int) Math.min(count, capacity);
+	}
+
+	/**
+	 * Returns the number of records that were overwritten.
+	 *
+	 * @return
+	 */
+	public long getDropped() {
+		return count - size();
+	}
+
+	public void clear() {
+		count = 0;
+	}
+
+	public Kind getKind(int record) {
+		return Kind.values()[kinds[position(record)]];
+	}
+
+	public Decision getDecision(int record) {
+		return Decision.values()[decisions[position(record)]];
+	}
+
+	public int getBegin(int record) {
+		return begins[position(record)];
+	}
+
+	public int getSplit(int record) {
+		return splits[position(record)];
+	}
+
+	public int getEnd(int record) {
+		return ends[position(record)];
+	}
+
+	public double getArcValue(int record) {
+		return arcValues[position(record)];
+	}
+
+	public double getNodeValue(int record) {
+		return nodeValues[position(record)];
+	}
+
+	/**
+	 * Maps the index of a record, 0 being the oldest held, to its position in
+	 * the ring.
+	 */
+	private int position(int record) {
+		if (record < 0 || record >= size()) {
+			throw new IndexOutOfBoundsException("Record " + record + " of " + size());
+		}
+
+		return (int) ((count - size() + record) % capacity);
+	}
+
+	/**
+	 * Prints the records in the format of the former debug output.
+	 *
+	 * @param out
+	 */
+	public void print(PrintStream out) {
+		if (getDropped() > 0) {
+			out.println(String.format("dropped\t %d", getDropped()));
+		}
+
+		for (int i = 0; i < size(); i++) {
+			String windows = getBegin(i) + "-" + getSplit(i) + ":" + getSplit(i) + "-" + getEnd(i);
+
+			switch (getKind(i)) {
+			case WINDOW:
+				out.println(String.format("index\t %s\t p-Value\t %f\t %f", windows, getArcValue(i), getNodeValue(i)));
+				break;
+			case REFINEMENT:
+				out.println(String.format("  index\t %s\t p-Value\t %f\t %f", windows, getArcValue(i),
+						getNodeValue(i)));
+				break;
+			case SPLIT:
+				out.println(String.format("  split\t %d\t score\t %f", getSplit(i), getArcValue(i)));
+				break;
+			case TIME_WINDOW:
+				out.println(String.format("time\t %s\t p-Value\t %f\t %f", windows, getArcValue(i), getNodeValue(i)));
+				break;
+			case SKIP:
+				out.println(String.format("skip\t %d-%d", getBegin(i), getEnd(i)));
+				break;
+			default:
+				out.println("Change Point at: " + getSplit(i));
+			}
+		}
+	}
+
+	/**
+	 * Writes the records, oldest first, as comma-separated values with a
+	 * header.
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeCsv(Appendable out) throws IOException {
+		out.append("kind,begin,split,end,arc,node,decision\n");
+
+		for (int i = 0; i < size(); i++) {
+			out.append(getKind(i).name()).append(',');
+			out.append(String.valueOf(getBegin(i))).append(',');
+			out.append(String.valueOf(getSplit(i))).append(',');
+			out.append(String.valueOf(getEnd(i))).append(',');
+			out.append(String.valueOf(getArcValue(i))).append(',');
+			out.append(String.valueOf(getNodeValue(i))).append(',');
+			out.append(getDecision(i).name()).append('\n');
+		}
+	}
+
+	public void write(File file) throws IOException {
+		try (OutputStream out = new FileOutputStream(file)) {
+			write(out);
+		}
+	}
+
+	/**
+	 * Writes the records in the binary format.
+	 *
+	 * @param stream
+	 * @throws IOException
+	 */
+	public void write(OutputStream stream) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+		out.writeInt(MAGIC);
+		out.writeShort(VERSION);
+		out.writeInt(size());
+
+		for (int i = 0; i < size(); i++) {
+			int position = position(i);
+			out.writeByte(kinds[position]);
+			out.writeByte(decisions[position]);
+			out.writeInt(begins[position]);
+			out.writeInt(splits[position]);
+			out.writeInt(ends[position]);
+			out.writeDouble(arcValues[position]);
+			out.writeDouble(nodeValues[position]);
+		}
+
+		out.flush();
+	}
+
+	public static WindowRecorder read(File file) throws IOException {
+		try (InputStream in = new FileInputStream(file)) {
+			return read(in);
+		}
+	}
+
+	/**
+	 * Reads records written in the binary format into a recorder that holds
+	 * exactly them.
+	 *
+	 * @param stream
+	 * @return
+	 * @throws IOException
+	 */
+	public static WindowRecorder read(InputStream stream) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a window recording.");
+		}
+		if (in.readShort() != VERSION) {
+			throw new IOException("Unsupported version of the window recording.");
+		}
+
+		int size = in.readInt();
+		WindowRecorder recorder = new WindowRecorder(Math.max(1, size));
+
+		for (int i = 0; i < size; i++) {
+			int kind = in.readByte();
+			int decision = in.readByte();
+			if (kind < 0 || kind >= Kind.values().length || decision < 0 || decision >= Decision.values().length) {
+				throw new IOException("Corrupt window recording.");
+			}
+
+			recorder.record(Kind.values()[kind], in.readInt(), in.readInt(), in.readInt(), in.readDouble(),
+					in.readDouble(), Decision.values()[decision]);
+		}
+
+		return recorder;
+	}
+
+}
@@ -0,0 +1,138 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.online;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Queue;
+
+import org.deckfour.xes.model.XTrace;
+
+import de.tudarmstadt.tk.pm.ChangePoint;
+import de.tudarmstadt.tk.pm.ProcessDriftDetector;
+import de.tudarmstadt.tk.pm.ProcessDriftSettings;
+import de.tudarmstadt.tk.pm.window.IncrementalMetricsProvider;
+
+/**
+ * Detects process drifts in a stream of traces. Traces are consumed one at a
+ * time and change points are reported as soon as the refinement confirms
+ * them. Only the traces around the current reference and detection window are
+ * kept in memory.
+ *
+ * The search is the same as in the offline plugin: a window step is only
+ * executed once all traces it may read have arrived, so the stream yields the
+ * same change points as the complete log. Counts are taken from the
+ * directly-follows relations of the traces (no heuristics net is mined), and
+ * no reasons are calculated for the change points.
+ */
+public class OnlineDriftDetector {
+
+	private final TraceBuffer traces = new TraceBuffer();
+
+	private final IncrementalMetricsProvider provider = new IncrementalMetricsProvider(traces, new ArrayList<>());
+
+	private final ProcessDriftDetector detector;
+
+	private final Queue<ChangePoint> changePoints = new ArrayDeque<>();
+
+	/**
+	 * Number of traces kept before the current window, so the sliding counters
+	 * can still remove the traces of the last windows. Counters of windows that
+	 * start before the kept traces, e.g. after a scaled stride, count from
+	 * scratch.
+	 */
+	private final int retention;
+
+	private boolean closed = false;
+
+	public OnlineDriftDetector() {
+		this(new ProcessDriftSettings());
+	}
+
+	public OnlineDriftDetector(ProcessDriftSettings settings) {
+		this.detector = new ProcessDriftDetector(provider, settings);
+		this.retention = 3 * settings.getMaxWindowSize();
+	}
+
+	/**
+	 * Adds the next trace of the stream.
+	 *
+	 * @param trace
+	 */
+	public void accept(XTrace trace) {
+		if (closed) {
+			throw new IllegalStateException("The detector has already been closed.");
+		}
+
+		traces.add(trace);
+		search(false);
+	}
+
+	/**
+	 * Returns the next confirmed change point or null if there is none.
+	 *
+	 * @return
+	 */
+	public ChangePoint poll() {
+		return changePoints.poll();
+	}
+
+	/**
+	 * Marks the end of the stream and searches the remaining windows.
+	 */
+	public void close() {
+		if (!closed) {
+			closed = true;
+			search(true);
+			detector.shutdown();
+		}
+	}
+
+	/**
+	 * Returns the number of traces consumed so far.
+	 *
+	 * @return
+	 */
+	public int getNumberOfTraces() {
+		return traces.size();
+	}
+
+	/**
+	 * Returns the number of traces held in memory.
+	 *
+	 * @return
+	 */
+	public int getBufferedTraces() {
+		return traces.getBufferedTraces();
+	}
+
+	private void search(boolean endOfStream) {
+		while (detector.canStep(traces.size())
+				&& (endOfStream || traces.size() >= detector.getRequiredLogSize())) {
+			ChangePoint changePoint = detector.step(traces.size());
+
+			if (changePoint != null) {
+				changePoints.add(changePoint);
+			}
+		}
+
+		traces.discardBefore(detector.getIndex() - retention);
+		provider.discardBefore(traces.getFirstIndex());
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.online;
+
+import java.util.AbstractList;
+
+import org.deckfour.xes.model.XTrace;
+
+/**
+ * Ring buffer of the most recent traces of a stream. Traces keep their
+ * position in the stream as index, so the buffer can be used like a log whose
+ * oldest traces have been discarded.
+ */
+public class TraceBuffer extends AbstractList<XTrace> {
+
+	private XTrace[] traces = new XTrace[64];
+
+	/** position of the oldest retained trace */
+	private int first = 0;
+
+	/** number of traces added so far */
+	private int size = 0;
+
+	@Override
+	public boolean add(XTrace trace) {
+		if (size - first == traces.length) {
+			XTrace[] newTraces = new XTrace[traces.length * 2];
+			for (int i = first; i < size; i++) {
+				newTraces[i % newTraces.length] = traces[i % traces.length];
+			}
+			traces = newTraces;
+		}
+
+		traces[size % traces.length] = trace;
+		size++;
+		modCount++;
+
+		return true;
+	}
+
+	@Override
+	public XTrace get(int index) {
+		if (index < first || index >= size) {
+			throw new IndexOutOfBoundsException("Trace " + index + " is not buffered (" + first + "-" + size + ").");
+		}
+
+		return traces[index % traces.length];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Discards all traces before the given position.
+	 *
+	 * @param index
+	 */
+	public void discardBefore(int index) {
+		while (first < Math.min(index, size)) {
+			traces[first % traces.length] = null;
+			first++;
+		}
+	}
+
+	public int getFirstIndex() {
+		return first;
+	}
+
+	/**
+	 * Returns the number of traces held in memory.
+	 *
+	 * @return
+	 */
+	public int getBufferedTraces() {
+		return size - first;
+	}
+
+}
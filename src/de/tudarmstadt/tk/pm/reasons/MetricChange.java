@@ -0,0 +1,87 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.reasons;
+
+/**
+ * A metric whose value differs between the reference and the detection window
+ * of a change point.
+ */
+public class MetricChange {
+
+	private final long id;
+
+	private final MetricType type;
+
+	private final String name;
+
+	private final double referenceValue;
+
+	private final double detectionValue;
+
+	public MetricChange(long id, MetricType type, String name, double referenceValue, double detectionValue) {
+		this.id = id;
+		this.type = type;
+		this.name = name;
+		this.referenceValue = referenceValue;
+		this.detectionValue = detectionValue;
+	}
+
+	/**
+	 * Returns the id of the metric in its schema.
+	 *
+	 * @return
+	 */
+	public long getId() {
+		return id;
+	}
+
+	public MetricType getType() {
+		return type;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public double getReferenceValue() {
+		return referenceValue;
+	}
+
+	public double getDetectionValue() {
+		return detectionValue;
+	}
+
+	/**
+	 * Returns the value after minus the value before the change point.
+	 *
+	 * @return
+	 */
+	public double getDifference() {
+		return detectionValue - referenceValue;
+	}
+
+	public double getMagnitude() {
+		return Math.abs(getDifference());
+	}
+
+	@Override
+	public String toString() {
+		return name + ": " + getDifference() + " (" + detectionValue + ")";
+	}
+
+}
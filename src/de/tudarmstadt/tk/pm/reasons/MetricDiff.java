@@ -0,0 +1,159 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.reasons;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import de.tudarmstadt.tk.pm.window.ActivityDictionary;
+import de.tudarmstadt.tk.pm.window.ArcCountTable;
+
+/**
+ * Compares the metric vectors of two windows id by id and keeps the changes
+ * with the largest magnitude in a bounded heap, so only the returned changes
+ * are named.
+ */
+public class MetricDiff {
+
+	private static final Comparator<Candidate> BY_MAGNITUDE = Comparator
+			.<Candidate>comparingDouble(x -> Math.abs(x.detectionValue - x.referenceValue))
+			.thenComparing(Comparator.<Candidate>comparingLong(x -> x.id).reversed());
+
+	private final int limit;
+
+	private final boolean relatedArcsOnly;
+
+	/**
+	 * @param limit
+	 *            maximum number of changes
+	 * @param relatedArcsOnly
+	 *            whether arcs are only reported if the in-degree of their
+	 *            target or the out-degree of their source changed
+	 */
+	public MetricDiff(int limit, boolean relatedArcsOnly) {
+		this.limit = limit;
+		this.relatedArcsOnly = relatedArcsOnly;
+	}
+
+	/**
+	 * Returns the changes between both windows, largest magnitude first; equal
+	 * magnitudes are ordered by metric id.
+	 *
+	 * @param dictionary
+	 *            dictionary of both windows
+	 * @param reference
+	 * @param detection
+	 * @return
+	 */
+	public List<MetricChange> compare(ActivityDictionary dictionary, MetricVector reference, MetricVector detection) {
+		int numberOfActivities = Math.max(reference.getNumberOfActivities(), detection.getNumberOfActivities());
+		MetricSchema schema = new MetricSchema(dictionary, numberOfActivities);
+		PriorityQueue<Candidate> heap = new PriorityQueue<>(BY_MAGNITUDE);
+
+		for (MetricType type : MetricType.STRUCTURAL) {
+			offer(heap, schema.getId(type), reference.get(type), detection.get(type));
+		}
+
+		boolean[] indegreeChanged = new boolean[numberOfActivities];
+		boolean[] outdegreeChanged = new boolean[numberOfActivities];
+
+		for (int i = 0; i < numberOfActivities; i++) {
+			indegreeChanged[i] = offer(heap, schema.getId(MetricType.INDEGREE, i),
+					reference.get(MetricType.INDEGREE, i), detection.get(MetricType.INDEGREE, i));
+			outdegreeChanged[i] = offer(heap, schema.getId(MetricType.OUTDEGREE, i),
+					reference.get(MetricType.OUTDEGREE, i), detection.get(MetricType.OUTDEGREE, i));
+			offer(heap, schema.getId(MetricType.NODE, i), reference.get(MetricType.NODE, i),
+					detection.get(MetricType.NODE, i));
+		}
+
+		// join the sparse arc tables on (from, to)
+		ArcCountTable referenceArcs = reference.getArcs();
+		ArcCountTable detectionArcs = detection.getArcs();
+
+		referenceArcs.forEach((from, to, count) -> {
+			if (isRelated(from, to, indegreeChanged, outdegreeChanged)) {
+				offer(heap, schema.getArcId(from, to), count, detectionArcs.get(from, to));
+			}
+		});
+		detectionArcs.forEach((from, to, count) -> {
+			if (referenceArcs.get(from, to) == 0 && isRelated(from, to, indegreeChanged, outdegreeChanged)) {
+				offer(heap, schema.getArcId(from, to), 0, count);
+			}
+		});
+
+		List<MetricChange> changes = new ArrayList<>(heap.size());
+		for (Candidate candidate : heap) {
+			changes.add(new MetricChange(candidate.id, schema.getType(candidate.id), schema.getName(candidate.id),
+					candidate.referenceValue, candidate.detectionValue));
+		}
+
+		Collections.sort(changes, Comparator.comparingDouble(MetricChange::getMagnitude).reversed()
+				.thenComparingLong(MetricChange::getId));
+
+		return changes;
+	}
+
+	private boolean isRelated(int from, int to, boolean[] indegreeChanged, boolean[] outdegreeChanged) {
+		return !relatedArcsOnly || (to < indegreeChanged.length && indegreeChanged[to])
+				|| (from < outdegreeChanged.length && outdegreeChanged[from]);
+	}
+
+	/**
+	 * Offers a metric to the heap if it changed.
+	 *
+	 * @return whether the metric changed
+	 */
+	private boolean offer(PriorityQueue<Candidate> heap, long id, double referenceValue, double detectionValue) {
+		// NaN, e.g. the density of a single node, never counts as a change
+		boolean changed = Math.abs(detectionValue - referenceValue) > 0;
+		if (!changed || limit <= 0) {
+			return changed;
+		}
+
+		Candidate candidate = new Candidate(id, referenceValue, detectionValue);
+
+		if (heap.size() < limit) {
+			heap.add(candidate);
+		} else if (BY_MAGNITUDE.compare(candidate, heap.peek()) > 0) {
+			heap.poll();
+			heap.add(candidate);
+		}
+
+		return true;
+	}
+
+	private static class Candidate {
+
+		private final long id;
+
+		private final double referenceValue;
+
+		private final double detectionValue;
+
+		private Candidate(long id, double referenceValue, double detectionValue) {
+			this.id = id;
+			this.referenceValue = referenceValue;
+			this.detectionValue = detectionValue;
+		}
+
+	}
+
+}
@@ -0,0 +1,160 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.reasons;
+
+import de.tudarmstadt.tk.pm.GraphMetrics;
+import de.tudarmstadt.tk.pm.window.ActivityDictionary;
+
+/**
+ * Fixed index schema of the metrics of windows over the same activities. The
+ * structural metrics come first, followed by the in-degrees, out-degrees and
+ * node counts of all activities and the arc counts of all pairs of
+ * activities, ordered by source and then by target.
+ */
+public class MetricSchema {
+
+	private final ActivityDictionary dictionary;
+
+	private final int numberOfActivities;
+
+	public MetricSchema(ActivityDictionary dictionary, int numberOfActivities) {
+		this.dictionary = dictionary;
+		this.numberOfActivities = numberOfActivities;
+	}
+
+	public int getNumberOfActivities() {
+		return numberOfActivities;
+	}
+
+	/**
+	 * Returns the number of metric ids.
+	 *
+	 * @return
+	 */
+	public long size() {
+		return getArcId(0, 0) + (long) numberOfActivities * numberOfActivities;
+	}
+
+	/**
+	 * Returns the id of a structural metric.
+	 *
+	 * @param type
+	 * @return
+	 */
+	public long getId(MetricType type) {
+		if (!type.isStructural()) {
+			throw new IllegalArgumentException(type + " is a metric of an activity.");
+		}
+
+		return type.ordinal();
+	}
+
+	/**
+	 * Returns the id of an in-degree, out-degree or node count.
+	 *
+	 * @param type
+	 * @param activity
+	 * @return
+	 */
+	public long getId(MetricType type, int activity) {
+		switch (type) {
+		case INDEGREE:
+			return MetricType.STRUCTURAL.length + activity;
+		case OUTDEGREE:
+			return MetricType.STRUCTURAL.length + numberOfActivities + activity;
+		case NODE:
+			return MetricType.STRUCTURAL.length + 2L * numberOfActivities + activity;
+		default:
+			throw new IllegalArgumentException(type + " is not a metric of an activity.");
+		}
+	}
+
+	public long getArcId(int from, int to) {
+		return MetricType.STRUCTURAL.length + 3L * numberOfActivities + (long) from * numberOfActivities + to;
+	}
+
+	public MetricType getType(long id) {
+		if (id < MetricType.STRUCTURAL.length) {
+			return MetricType.STRUCTURAL[(int) id];
+		}
+
+		long offset = id - MetricType.STRUCTURAL.length;
+		if (offset < 3L * numberOfActivities) {
+			return MetricType.values()[MetricType.INDEGREE.ordinal() + (int) (offset / numberOfActivities)];
+		}
+
+		return MetricType.ARC;
+	}
+
+	/**
+	 * Returns the activity of the metric, or the source activity of an arc; -1
+	 * for structural metrics.
+	 *
+	 * @param id
+	 * @return
+	 */
+	public int getSource(long id) {
+		MetricType type = getType(id);
+		long offset = id - MetricType.STRUCTURAL.length;
+
+		if (type.isStructural()) {
+			return -1;
+		} else if (type == MetricType.ARC) {
+			return (int) ((offset - 3L * numberOfActivities) / numberOfActivities);
+		}
+
+		return (int) (offset % numberOfActivities);
+	}
+
+	/**
+	 * Returns the target activity of an arc; -1 for other metrics.
+	 *
+	 * @param id
+	 * @return
+	 */
+	public int getTarget(long id) {
+		if (getType(id) != MetricType.ARC) {
+			return -1;
+		}
+
+		return (int) ((id - MetricType.STRUCTURAL.length - 3L * numberOfActivities) % numberOfActivities);
+	}
+
+	/**
+	 * Returns the name of the metric as used in the reasons, e.g.
+	 * "INDEGREE_A" or "A->B".
+	 *
+	 * @param id
+	 * @return
+	 */
+	public String getName(long id) {
+		switch (getType(id)) {
+		case INDEGREE:
+			return GraphMetrics.INDEGREE + dictionary.getName(getSource(id));
+		case OUTDEGREE:
+			return GraphMetrics.OUTDEGREE + dictionary.getName(getSource(id));
+		case NODE:
+			return dictionary.getName(getSource(id));
+		case ARC:
+			return dictionary.getName(getSource(id)) + "->" + dictionary.getName(getTarget(id));
+		default:
+			return getType(id).name();
+		}
+	}
+
+}
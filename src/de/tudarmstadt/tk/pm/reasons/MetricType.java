@@ -0,0 +1,44 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.reasons;
+
+/**
+ * Kinds of metrics of a window. Structural metrics describe the whole mined
+ * graph; the other metrics exist once per activity or per pair of activities.
+ */
+public enum MetricType {
+	NUMBER_OF_NODES, NUMBER_OF_EDGES, NETWORK_DEGREE, DENSITY,
+
+	/** number of incoming edges of an activity in the mined graph */
+	INDEGREE,
+
+	/** number of outgoing edges of an activity in the mined graph */
+	OUTDEGREE,
+
+	/** firing count of an activity */
+	NODE,
+
+	/** firing count of a directly-follows relation */
+	ARC;
+
+	static final MetricType[] STRUCTURAL = { NUMBER_OF_NODES, NUMBER_OF_EDGES, NETWORK_DEGREE, DENSITY };
+
+	public boolean isStructural() {
+		return ordinal() < STRUCTURAL.length;
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.reasons;
+
+import java.util.Map;
+
+import de.tudarmstadt.tk.pm.GraphMetrics;
+import de.tudarmstadt.tk.pm.window.ActivityDictionary;
+import de.tudarmstadt.tk.pm.window.ArcCountTable;
+
+/**
+ * Metrics of a window indexed by activity id. Activity metrics are dense
+ * arrays; arc counts stay in their sparse table.
+ */
+public class MetricVector {
+
+	private final double[] structural = new double[MetricType.STRUCTURAL.length];
+
+	private final int[] indegrees;
+
+	private final int[] outdegrees;
+
+	private final int[] nodes;
+
+	private final ArcCountTable arcs;
+
+	private MetricVector(int numberOfActivities, ArcCountTable arcs) {
+		this.indegrees = new int[numberOfActivities];
+		this.outdegrees = new int[numberOfActivities];
+		this.nodes = new int[numberOfActivities];
+		this.arcs = arcs;
+	}
+
+	/**
+	 * Indexes the metrics of a window by the activity ids of its dictionary.
+	 * Degrees of activities that are not in the dictionary yet register them.
+	 *
+	 * @param metrics
+	 * @return
+	 */
+	public static MetricVector of(GraphMetrics metrics) {
+		ActivityDictionary dictionary = metrics.getDictionary();
+		for (String activity : metrics.getIncomingEdges().keySet()) {
+			dictionary.getId(activity);
+		}
+		for (String activity : metrics.getOutgoingEdges().keySet()) {
+			dictionary.getId(activity);
+		}
+
+		MetricVector vector = new MetricVector(dictionary.size(), metrics.getArcCounts());
+
+		vector.structural[MetricType.NUMBER_OF_NODES.ordinal()] = metrics.getNumberOfNodes();
+		vector.structural[MetricType.NUMBER_OF_EDGES.ordinal()] = metrics.getNumberOfEdges();
+		vector.structural[MetricType.NETWORK_DEGREE.ordinal()] = metrics.getNetworkDegree();
+		vector.structural[MetricType.DENSITY.ordinal()] = metrics.getNumberOfEdges()
+				/ (metrics.getNumberOfNodes() * (metrics.getNumberOfNodes() - 1D));
+
+		for (Map.Entry<String, Integer> degree : metrics.getIncomingEdges().entrySet()) {
+			vector.indegrees[dictionary.indexOf(degree.getKey())] = degree.getValue();
+		}
+		for (Map.Entry<String, Integer> degree : metrics.getOutgoingEdges().entrySet()) {
+			vector.outdegrees[dictionary.indexOf(degree.getKey())] = degree.getValue();
+		}
+		for (int i = 0; i < metrics.getNumberOfActivities() && i < vector.nodes.length; i++) {
+			vector.nodes[i] = metrics.getNodeCount(i);
+		}
+
+		return vector;
+	}
+
+	/**
+	 * Returns the number of activities with dense metrics.
+	 *
+	 * @return
+	 */
+	public int getNumberOfActivities() {
+		return nodes.length;
+	}
+
+	public double get(MetricType type) {
+		return structural[type.ordinal()];
+	}
+
+	/**
+	 * Returns an in-degree, out-degree or node count; 0 for activities beyond
+	 * the vector.
+	 *
+	 * @param type
+	 * @param activity
+	 * @return
+	 */
+	public int get(MetricType type, int activity) {
+		if (activity >= nodes.length) {
+			return 0;
+		}
+
+		switch (type) {
+		case INDEGREE:
+			return indegrees[activity];
+		case OUTDEGREE:
+			return outdegrees[activity];
+		case NODE:
+			return nodes[activity];
+		default:
+			throw new IllegalArgumentException(type + " is not a metric of an activity.");
+		}
+	}
+
+	public int getArc(int from, int to) {
+		return arcs.get(from, to);
+	}
+
+	public ArcCountTable getArcs() {
+		return arcs;
+	}
+
+}
@@ -0,0 +1,212 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.strategy;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Scales the windows and their stride in stable regions to keep the number of
+ * evaluated window pairs per million traces within a budget. The windows grow
+ * like in GrowingWindowStrategy, but from initial * scale to max * scale, so a
+ * stride of max * scale traces costs about the same evaluations at every
+ * scale.
+ *
+ * After every stride, the evaluations spent per trace (including localization
+ * and coarse search) are compared to the budget and the scale is adjusted to
+ * meet it. The scale grows gradually, so the first detection window after a
+ * stride still starts inside the last detection window before it. The scale
+ * is bounded by the detection delay budget: a drift is seen within about two
+ * maximum windows. While the recent arc p-values trend towards the threshold,
+ * after a drift, after a false alarm and in the suspicious regions of the
+ * coarse search the windows return to their unscaled size to localize change
+ * points precisely.
+ *
+ * The scale, the p-value trend and the cost are part of checkpoints, so a
+ * resumed search continues with them.
+ */
+public class CostAwareWindowStrategy implements WindowStrategy {
+
+	private static final double GROWTH = 1.2;
+
+	/** weight of the latest window in the p-value trend and of the latest stride in the cost */
+	private static final double SMOOTHING = 0.5;
+
+	/** smallest p-value considered by the trend, so a single window cannot dominate it */
+	private static final double MIN_P_VALUE = 1e-10;
+
+	private final int initialWindowSize;
+
+	private final int maxWindowSize;
+
+	private final double maxScale;
+
+	/** factor by which the scale may grow per stride without leaving traces out of the detection windows */
+	private final double maxScaleIncrease;
+
+	private final double evaluationsPerTrace;
+
+	private final double trendThreshold;
+
+	private final IntSupplier evaluations;
+
+	private double scale = 1;
+
+	/** smoothed log10 of the arc p-values of the stable windows */
+	private double pValueTrend = 0;
+
+	/** smoothed evaluations per trace of the last strides */
+	private double cost = Double.NaN;
+
+	/** evaluations and first trace at the start of the cost measurement */
+	private int strideEvaluations = 0;
+
+	private int strideStart = -1;
+
+	/**
+	 * @param initialWindowSize
+	 * @param maxWindowSize
+	 * @param evaluationBudget
+	 *            evaluations of window pairs per million traces
+	 * @param detectionDelayBudget
+	 *            traces after a drift until its windows are compared
+	 * @param trendThreshold
+	 *            arc p-value below which the trend is considered suspicious
+	 * @param evaluations
+	 *            number of window pairs evaluated by the detector so far
+	 */
+	public CostAwareWindowStrategy(int initialWindowSize, int maxWindowSize, int evaluationBudget,
+			int detectionDelayBudget, double trendThreshold, IntSupplier evaluations) {
+		if (evaluationBudget <= 0) {
+			throw new IllegalArgumentException("The evaluation budget must be positive.");
+		}
+
+		this.initialWindowSize = initialWindowSize;
+		this.maxWindowSize = maxWindowSize;
+		this.maxScale = Math.max(1, detectionDelayBudget / (2.0 * maxWindowSize));
+		this.maxScaleIncrease = Math.max(1, (2 / GROWTH - 1) * maxWindowSize / initialWindowSize);
+		this.evaluationsPerTrace = evaluationBudget / 1e6;
+		this.trendThreshold = Math.log10(trendThreshold);
+		this.evaluations = evaluations;
+		this.strideEvaluations = evaluations.getAsInt();
+	}
+
+	@Override
+	public int getInitialWindowSize() {
+		return (int) (initialWindowSize * scale);
+	}
+
+	@Override
+	public boolean needsExactPValues() {
+		return true;
+	}
+
+	@Override
+	public int grow(int index, int windowSize, double arcPValue) {
+		pValueTrend = SMOOTHING * Math.log10(Math.max(MIN_P_VALUE, arcPValue)) + (1 - SMOOTHING) * pValueTrend;
+
+		return (int) (windowSize * GROWTH);
+	}
+
+	@Override
+	public int afterChangePoint(int index, int windowSize, int changeIndex) {
+		int newWindowSize = (int) (windowSize * ((double) changeIndex / (double) (index + windowSize * 2)));
+		reset(changeIndex);
+
+		return newWindowSize;
+	}
+
+	@Override
+	public int afterRefinement(int index, int windowSize, int lastIndex) {
+		int newWindowSize = (int) (windowSize * ((double) lastIndex / (double) (index + windowSize * 2)));
+		reset(index + newWindowSize);
+
+		return newWindowSize;
+	}
+
+	@Override
+	public int getStride(int index, int windowSize) {
+		int maxSize = (int) (maxWindowSize * scale);
+		if (windowSize < maxSize) {
+			return 0;
+		}
+
+		int spent = evaluations.getAsInt() - strideEvaluations;
+		strideEvaluations += spent;
+
+		// skipped blocks count as traces of the stride
+		int traces = strideStart >= 0 ? index + maxSize - strideStart : maxSize;
+		strideStart = index + maxSize;
+
+		double strideCost = (double) spent / Math.max(1, traces);
+		cost = Double.isNaN(cost) ? strideCost : SMOOTHING * strideCost + (1 - SMOOTHING) * cost;
+
+		if (pValueTrend < trendThreshold) {
+			scale = 1;
+		} else {
+			// the cost per trace falls with the scale
+			double target = scale * cost / evaluationsPerTrace;
+			scale = Math.max(1, Math.min(Math.min(maxScale, scale * maxScaleIncrease), target));
+		}
+
+		return maxSize;
+	}
+
+	@Override
+	public void restart(int index) {
+		reset(index);
+	}
+
+	/**
+	 * Returns the scale, the p-value trend, the cost, the evaluations and the
+	 * first trace of the current stride.
+	 */
+	@Override
+	public double[] getState() {
+		return new double[] { scale, pValueTrend, cost, evaluations.getAsInt() - strideEvaluations, strideStart };
+	}
+
+	@Override
+	public void setState(double[] state) {
+		if (state.length != 5) {
+			throw new IllegalArgumentException("The state was not taken with a cost-aware window strategy.");
+		}
+
+		scale = state[0];
+		pValueTrend = state[1];
+		cost = state[2];
+		strideEvaluations = evaluations.getAsInt() - (int) state[3];
+		strideStart = (int) state[4];
+	}
+
+	public double getScale() {
+		return scale;
+	}
+
+	/**
+	 * Returns to unscaled windows near a drift, which restart at the given
+	 * index.
+	 */
+	private void reset(int index) {
+		scale = 1;
+		pValueTrend = 0;
+		cost = Double.NaN;
+		strideEvaluations = evaluations.getAsInt();
+		strideStart = index;
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.strategy;
+
+/**
+ * Windows start at the initial size and grow by 20 % while they do not
+ * differ. Once they reach the maximum size, they move by the maximum size
+ * and start over. After a drift, the windows are shrunk by the share of the
+ * detection window that was searched.
+ */
+public class GrowingWindowStrategy implements WindowStrategy {
+
+	private final int initialWindowSize;
+
+	private final int maxWindowSize;
+
+	public GrowingWindowStrategy(int initialWindowSize, int maxWindowSize) {
+		this.initialWindowSize = initialWindowSize;
+		this.maxWindowSize = maxWindowSize;
+	}
+
+	@Override
+	public int getInitialWindowSize() {
+		return initialWindowSize;
+	}
+
+	@Override
+	public boolean needsExactPValues() {
+		return false;
+	}
+
+	@Override
+	public int grow(int index, int windowSize, double arcPValue) {
+		return (int) (windowSize * 1.2);
+	}
+
+	@Override
+	public int afterChangePoint(int index, int windowSize, int changeIndex) {
+		return (int) (windowSize * ((double) changeIndex / (double) (index + windowSize * 2)));
+	}
+
+	@Override
+	public int afterRefinement(int index, int windowSize, int lastIndex) {
+		return (int) (windowSize * ((double) lastIndex / (double) (index + windowSize * 2)));
+	}
+
+	@Override
+	public int getStride(int index, int windowSize) {
+		return windowSize >= maxWindowSize ? maxWindowSize : 0;
+	}
+
+	@Override
+	public void restart(int index) {
+	}
+
+	@Override
+	public double[] getState() {
+		return new double[0];
+	}
+
+	@Override
+	public void setState(double[] state) {
+		if (state.length != 0) {
+			throw new IllegalArgumentException("The state was not taken with a growing window strategy.");
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.strategy;
+
+/**
+ * Decides the size of the reference and detection windows and how far they
+ * move. The detector compares the windows [index, index + windowSize) and
+ * [index + windowSize, index + 2 * windowSize) and asks the strategy after
+ * every comparison.
+ */
+public interface WindowStrategy {
+
+	/**
+	 * Returns the window size at the start of the search and after the windows
+	 * moved by a stride.
+	 *
+	 * @return
+	 */
+	int getInitialWindowSize();
+
+	/**
+	 * Checks if the arc p-values passed to grow have to be exact instead of
+	 * only being on the right side of the threshold.
+	 *
+	 * @return
+	 */
+	boolean needsExactPValues();
+
+	/**
+	 * Returns the next window size after the windows did not differ.
+	 *
+	 * @param index
+	 * @param windowSize
+	 * @param arcPValue
+	 * @return
+	 */
+	int grow(int index, int windowSize, double arcPValue);
+
+	/**
+	 * Returns the size of the windows that start at the change point found in
+	 * the detection window.
+	 *
+	 * @param index
+	 * @param windowSize
+	 * @param changeIndex
+	 * @return
+	 */
+	int afterChangePoint(int index, int windowSize, int changeIndex);
+
+	/**
+	 * Returns the window size after the windows differed but no change point
+	 * was localized; the windows also move by this size.
+	 *
+	 * @param index
+	 * @param windowSize
+	 * @param lastIndex
+	 *            end of the last windows compared by the localization
+	 * @return
+	 */
+	int afterRefinement(int index, int windowSize, int lastIndex);
+
+	/**
+	 * Returns the number of traces by which the windows move before they
+	 * restart with the initial size, or 0 to keep them.
+	 *
+	 * @param index
+	 * @param windowSize
+	 * @return
+	 */
+	int getStride(int index, int windowSize);
+
+	/**
+	 * Called when the coarse search skipped stable blocks and the windows
+	 * restart at the suspicious region that starts at index.
+	 *
+	 * @param index
+	 */
+	void restart(int index);
+
+	/**
+	 * Returns the state the strategy keeps between steps, so a checkpoint can
+	 * continue the search with it.
+	 *
+	 * @return
+	 */
+	double[] getState();
+
+	/**
+	 * Continues with the state of a checkpoint taken with the same strategy.
+	 *
+	 * @param state
+	 */
+	void setState(double[] state);
+
+}
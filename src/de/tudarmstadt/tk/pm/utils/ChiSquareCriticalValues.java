@@ -0,0 +1,78 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.math3.distribution.ChiSquaredDistribution;
+
+/**
+ * Critical values of the chi-square distribution by threshold and degrees of
+ * freedom, computed on first use. A statistic above the critical value has a
+ * p-value below the threshold.
+ */
+public class ChiSquareCriticalValues {
+
+	/** distance to the critical value below which the exact p-value is used */
+	public static final double TOLERANCE = 1e-6;
+
+	private final Map<Double, Table> tables = new ConcurrentHashMap<>();
+
+	public double get(int degreesOfFreedom, double threshold) {
+		return tables.computeIfAbsent(threshold, Table::new).get(degreesOfFreedom);
+	}
+
+	/**
+	 * Critical values of one threshold. Concurrent callers may compute the same
+	 * value twice.
+	 */
+	private static class Table {
+
+		private final double threshold;
+
+		private volatile double[] values = new double[0];
+
+		Table(double threshold) {
+			this.threshold = threshold;
+		}
+
+		double get(int degreesOfFreedom) {
+			double[] current = values;
+
+			if (degreesOfFreedom >= current.length) {
+				double[] grown = Arrays.copyOf(current, Math.max(degreesOfFreedom + 1, current.length * 2));
+				Arrays.fill(grown, current.length, grown.length, Double.NaN);
+				values = grown;
+				current = grown;
+			}
+
+			double value = current[degreesOfFreedom];
+			if (Double.isNaN(value)) {
+				value = new ChiSquaredDistribution(null, degreesOfFreedom)
+						.inverseCumulativeProbability(1.0 - threshold);
+				current[degreesOfFreedom] = value;
+			}
+
+			return value;
+		}
+
+	}
+
+}
@@ -0,0 +1,184 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.utils;
+
+import org.apache.commons.math3.special.Gamma;
+
+/**
+ * G-test of independence for two count vectors, equivalent to
+ * GTest.gTestDataSetsComparison. Works on primitive arrays without copying:
+ * entries that are zero in both vectors are skipped in place.
+ *
+ * In threshold mode the G statistic is compared to the chi-square critical
+ * value of the threshold, so the incomplete gamma function is only evaluated
+ * when the statistic is too close to the critical value to decide.
+ */
+public class GTestKernel {
+
+	private final ChiSquareCriticalValues criticalValues = new ChiSquareCriticalValues();
+
+	/**
+	 * Returns the p-value of the G-test on the first length entries of both
+	 * vectors, or 1 if one vector has no counts or less than two entries
+	 * remain.
+	 *
+	 * @param references
+	 * @param detections
+	 * @param length
+	 * @return
+	 */
+	public double pValue(long[] references, long[] detections, int length) {
+		int degreesOfFreedom = degreesOfFreedom(references, detections, length);
+		if (degreesOfFreedom < 1) {
+			return 1;
+		}
+
+		double g = statistic(references, detections, length);
+		if (Double.isNaN(g)) {
+			return 1;
+		}
+
+		return pValue(g, degreesOfFreedom);
+	}
+
+	/**
+	 * Decides whether the p-value is below the threshold. The exact p-value is
+	 * returned only if the critical value cannot decide; otherwise the result
+	 * is 0 for a significant and 1 for an insignificant difference.
+	 *
+	 * @param references
+	 * @param detections
+	 * @param length
+	 * @param threshold
+	 * @return
+	 */
+	public double pValue(long[] references, long[] detections, int length, double threshold) {
+		int degreesOfFreedom = degreesOfFreedom(references, detections, length);
+		if (degreesOfFreedom < 1) {
+			return 1;
+		}
+
+		double g = statistic(references, detections, length);
+		if (Double.isNaN(g)) {
+			return 1;
+		}
+
+		double criticalValue = getCriticalValue(degreesOfFreedom, threshold);
+		if (g > criticalValue + ChiSquareCriticalValues.TOLERANCE) {
+			return 0;
+		} else if (g < criticalValue - ChiSquareCriticalValues.TOLERANCE) {
+			return 1;
+		}
+
+		return pValue(g, degreesOfFreedom);
+	}
+
+	/**
+	 * Returns the G statistic standardized by its degrees of freedom
+	 * (Wilson-Hilferty approximation). Unlike the p-value it does not saturate
+	 * for large differences, so it can rank windows that all differ strongly.
+	 * Returns negative infinity if the test is not defined.
+	 *
+	 * @param references
+	 * @param detections
+	 * @param length
+	 * @return
+	 */
+	public double score(long[] references, long[] detections, int length) {
+		int degreesOfFreedom = degreesOfFreedom(references, detections, length);
+		if (degreesOfFreedom < 1) {
+			return Double.NEGATIVE_INFINITY;
+		}
+
+		double g = statistic(references, detections, length);
+		if (Double.isNaN(g)) {
+			return Double.NEGATIVE_INFINITY;
+		}
+
+		double variance = 2.0 / (9.0 * degreesOfFreedom);
+		return (Math.cbrt(g / degreesOfFreedom) - (1 - variance)) / Math.sqrt(variance);
+	}
+
+	/**
+	 * Returns the value the G statistic has to exceed for a p-value below the
+	 * threshold.
+	 *
+	 * @param degreesOfFreedom
+	 * @param threshold
+	 * @return
+	 */
+	public double getCriticalValue(int degreesOfFreedom, double threshold) {
+		return criticalValues.get(degreesOfFreedom, threshold);
+	}
+
+	/**
+	 * G = 2 * (sum O ln O - sum R ln R - sum C ln C + N ln N) over the 2 x k
+	 * table of both vectors; NaN if one of the vectors has no counts.
+	 */
+	private static double statistic(long[] references, long[] detections, int length) {
+		long referenceSum = 0;
+		long detectionSum = 0;
+		double cells = 0;
+		double columns = 0;
+
+		for (int i = 0; i < length; i++) {
+			long reference = references[i];
+			long detection = detections[i];
+
+			if (reference == 0 && detection == 0) {
+				continue;
+			}
+
+			referenceSum += reference;
+			detectionSum += detection;
+
+			cells += xLogX(reference) + xLogX(detection);
+			columns += xLogX(reference + detection);
+		}
+
+		if (referenceSum == 0 || detectionSum == 0) {
+			return Double.NaN;
+		}
+
+		double rows = xLogX(referenceSum) + xLogX(detectionSum);
+		double g = 2 * (cells - rows - columns + xLogX(referenceSum + detectionSum));
+
+		// rounding may push a perfect fit slightly below zero
+		return Math.max(0, g);
+	}
+
+	private static int degreesOfFreedom(long[] references, long[] detections, int length) {
+		int columns = 0;
+		for (int i = 0; i < length; i++) {
+			if (references[i] != 0 || detections[i] != 0) {
+				columns++;
+			}
+		}
+
+		return columns - 1;
+	}
+
+	private static double pValue(double g, int degreesOfFreedom) {
+		return 1.0 - Gamma.regularizedGammaP(degreesOfFreedom / 2.0, g / 2.0);
+	}
+
+	private static double xLogX(long x) {
+		return x == 0 ? 0 : x * Math.log(x);
+	}
+
+}
@@ -17,10 +17,7 @@
  */
 package de.tudarmstadt.tk.pm.utils;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.deckfour.xes.classification.XEventClass;
 import org.deckfour.xes.classification.XEventClassifier;
@@ -34,6 +31,10 @@ import org.processmining.plugins.heuristicsnet.miner.heuristics.miner.Heuristics
 import org.processmining.plugins.heuristicsnet.miner.heuristics.miner.settings.HeuristicsMinerSettings;
 
 import de.tudarmstadt.tk.pm.GraphMetrics;
+import de.tudarmstadt.tk.pm.metrics.DetectionMetrics;
+import de.tudarmstadt.tk.pm.metrics.Phase;
+import de.tudarmstadt.tk.pm.window.ActivityDictionary;
+import de.tudarmstadt.tk.pm.window.ArcCountTable;
 
 public class MetricsUtils {
 
@@ -41,43 +42,65 @@ public class MetricsUtils {
 	 * Calculate metrics for the given heuristics graph.
 	 * 
 	 * @param graph
-	 * @param log
+	 * @param dictionary
+	 * @return
+	 */
+	public static GraphMetrics getGraphMetrics(HeuristicsNet net, ActivityDictionary dictionary) {
+		return getGraphMetrics(net, dictionary, DetectionMetrics.NONE);
+	}
+
+	/**
+	 * Calculate metrics for the given heuristics graph and time the graph
+	 * construction and the metrics.
+	 *
+	 * @param net
+	 * @param dictionary
+	 * @param metrics
 	 * @return
 	 */
-	public static GraphMetrics getGraphMetrics(HeuristicsNet net, List<String> eventNames) {
+	public static GraphMetrics getGraphMetrics(HeuristicsNet net, ActivityDictionary dictionary,
+			DetectionMetrics metrics) {
+		long start = metrics.start();
 		HeuristicsNetGraph graph = convertToGraph(net);
+		metrics.stop(Phase.BUILD_GRAPH, start);
 
+		start = metrics.start();
 		GraphMetrics metric = new GraphMetrics();
 		metric.setNumberOfNodes(graph.getNodes().size());
 		metric.setNumberOfEdges(graph.getEdges().size());
 
-		List<String> evtNames = new ArrayList<>(eventNames);
-		Map<String, Integer> nodeFire = new HashMap<>();
-		Map<String, Integer> arcFire = new HashMap<>();
+		// map the event classes of the net to activity ids
+		XEventClass[] classes = net.getActivitiesMappingStructures().getActivitiesMapping();
+		int[] ids = new int[classes.length];
+
+		for (int i = 0; i < classes.length; i++) {
+			ids[i] = dictionary.getId(classes[i].getId());
+		}
 
 		// clear all metrics
+		List<String> evtNames = dictionary.getNames();
 		for (String eventName : evtNames) {
 			metric.putOutgoingEdges(eventName, 0);
 			metric.putIncomingEdges(eventName, 0);
 			metric.putNodeDegree(eventName, 0);
-			
-			nodeFire.put(eventName, 0);
-			for (String eventName2 : evtNames) {
-				arcFire.put(eventName + "->" + eventName2, 0);
-			}
 		}
 
 		// calculate node and arc distributions
-		for (XEventClass cl1 : net.getActivitiesMappingStructures().getActivitiesMapping()) {
-			nodeFire.put(cl1.getId(), net.getActivitiesActualFiring()[cl1.getIndex()]);
+		int[] nodeFire = new int[evtNames.size()];
+		ArcCountTable arcFire = new ArcCountTable(evtNames.size());
 
-			for (XEventClass cl2 : net.getActivitiesMappingStructures().getActivitiesMapping()) {
-				arcFire.put(cl1.getId() + "->" + cl2.getId(), (int) net.getArcUsage().get(cl1.getIndex(), cl2.getIndex()));
+		for (int i = 0; i < classes.length; i++) {
+			nodeFire[ids[i]] = net.getActivitiesActualFiring()[classes[i].getIndex()];
+
+			for (int j = 0; j < classes.length; j++) {
+				int usage = (int) net.getArcUsage().get(classes[i].getIndex(), classes[j].getIndex());
+				if (usage != 0) {
+					arcFire.add(ids[i], ids[j], usage);
+				}
 			}
 		}
-		
-		metric.setNodeCount(nodeFire);
-		metric.setArcCount(arcFire);
+
+		metric.setCounts(dictionary, nodeFire, arcFire);
 
 		// now update activity information
 		for (Activity activity : graph.getActivities()) {
@@ -91,13 +114,78 @@ public class MetricsUtils {
 			if (outEdges + inEdges > metric.getNetworkDegree()) {
 				metric.setNetworkDegree(outEdges + inEdges);
 			}
-
-			evtNames.remove(activity.getLabel());
 		}
 
+		metrics.stop(Phase.GRAPH_METRICS, start);
+		return metric;
+	}
+
+	/**
+	 * Creates metrics holding only the given node and arc counts. Structural
+	 * metrics (degrees, number of edges) are not available without mining.
+	 *
+	 * @param dictionary
+	 * @param nodeCounts
+	 * @param arcCounts
+	 * @return
+	 */
+	public static GraphMetrics getGraphMetrics(ActivityDictionary dictionary, int[] nodeCounts,
+			ArcCountTable arcCounts) {
+		GraphMetrics metric = new GraphMetrics();
+		metric.setCounts(dictionary, nodeCounts, arcCounts);
+
 		return metric;
 	}
 
+	/**
+	 * Checks if both metrics have the same node and arc counts. Activities are
+	 * compared by name, so the metrics may use different dictionaries.
+	 *
+	 * @param metrics1
+	 * @param metrics2
+	 * @return
+	 */
+	public static boolean equalCounts(GraphMetrics metrics1, GraphMetrics metrics2) {
+		return containsCounts(metrics1, metrics2) && containsCounts(metrics2, metrics1);
+	}
+
+	/**
+	 * Checks if every count of metrics1 other than zero is found in metrics2.
+	 */
+	private static boolean containsCounts(GraphMetrics metrics1, GraphMetrics metrics2) {
+		ActivityDictionary dictionary1 = metrics1.getDictionary();
+		ActivityDictionary dictionary2 = metrics2.getDictionary();
+
+		for (int i = 0; i < metrics1.getNumberOfActivities(); i++) {
+			int count = metrics1.getNodeCount(i);
+			int other = dictionary2.indexOf(dictionary1.getName(i));
+
+			if (count != 0 && (other < 0 || metrics2.getNodeCount(other) != count)) {
+				return false;
+			}
+		}
+
+		boolean[] equal = { true };
+		metrics1.getArcCounts().forEach((from, to, count) -> {
+			int otherFrom = dictionary2.indexOf(dictionary1.getName(from));
+			int otherTo = dictionary2.indexOf(dictionary1.getName(to));
+
+			if (otherFrom < 0 || otherTo < 0 || metrics2.getArcCount(otherFrom, otherTo) != count) {
+				equal[0] = false;
+			}
+		});
+
+		return equal[0];
+	}
+
+	/**
+	 * Mines a heuristics net from the given event log. The context is only used
+	 * for progress reporting and may be null when running without ProM.
+	 *
+	 * @param context
+	 * @param log
+	 * @return
+	 */
 	public static HeuristicsNet generateHeuristicsNet(PluginContext context, XLog log) {
 		XEventClassifier selectedClassifier = new XEventNameClassifier();
 //				for(XEventClassifier classifier : log.getClassifiers()) {
@@ -0,0 +1,306 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.utils;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.stream.IntStream;
+
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+
+import de.tudarmstadt.tk.pm.encoding.EncodedLog;
+
+/**
+ * Start times of all traces of a log, read once, with binary search for time
+ * ranges. The start time of a trace is the timestamp of its first event;
+ * traces without timestamp get the start time of the trace before them, so
+ * they stay next to it. Traces before the first timestamp keep NO_TIMESTAMP,
+ * which is earlier than every timestamp.
+ *
+ * On a log that is sorted by start time, indexOf maps a time directly to a
+ * trace index and every time range is a contiguous range of traces. Other
+ * logs are searched in the order of their start times.
+ */
+public class TimestampIndex {
+
+	private final long[] timestamps;
+
+	private final boolean sorted;
+
+	/** trace indices ordered by start time, only for unsorted logs */
+	private int[] order = null;
+
+	/** start times in the order of the traces of order */
+	private long[] sortedTimestamps = null;
+
+	private TimestampIndex(long[] timestamps) {
+		this.timestamps = timestamps;
+
+		boolean sorted = true;
+		for (int i = 1; i < timestamps.length && sorted; i++) {
+			sorted = timestamps[i - 1] <= timestamps[i];
+		}
+		this.sorted = sorted;
+	}
+
+	/**
+	 * Reads the start times of all traces of an event log.
+	 *
+	 * @param log
+	 * @return
+	 */
+	public static TimestampIndex of(XLog log) {
+		long[] timestamps = new long[log.size()];
+
+		// the extraction dominates, so it runs in parallel
+		IntStream.range(0, timestamps.length).parallel().forEach(i -> {
+			XTrace trace = log.get(i);
+			Date timestamp = trace.isEmpty() ? null : XTimeExtension.instance().extractTimestamp(trace.get(0));
+			timestamps[i] = timestamp != null ? timestamp.getTime() : EncodedLog.NO_TIMESTAMP;
+		});
+
+		return new TimestampIndex(carryForward(timestamps, EncodedLog.NO_TIMESTAMP));
+	}
+
+	/**
+	 * Reads the start times of all traces of an encoded log.
+	 *
+	 * @param log
+	 * @return
+	 */
+	public static TimestampIndex of(EncodedLog log) {
+		return of(log, EncodedLog.NO_TIMESTAMP);
+	}
+
+	/**
+	 * Reads the start times of all traces of an encoded log that continues
+	 * another log. Traces without timestamp before the first timestamp get the
+	 * given start time of the last trace before the log.
+	 *
+	 * @param log
+	 * @param timestamp
+	 * @return
+	 */
+	public static TimestampIndex of(EncodedLog log, long timestamp) {
+		long[] timestamps = new long[log.size()];
+
+		for (int i = 0; i < timestamps.length; i++) {
+			timestamps[i] = log.getTimestamp(i);
+		}
+
+		return new TimestampIndex(carryForward(timestamps, timestamp));
+	}
+
+	/**
+	 * Replaces missing timestamps by the timestamp before them, starting with
+	 * the given timestamp.
+	 */
+	private static long[] carryForward(long[] timestamps, long last) {
+		for (int i = 0; i < timestamps.length; i++) {
+			if (timestamps[i] != EncodedLog.NO_TIMESTAMP) {
+				last = timestamps[i];
+			}
+			timestamps[i] = last;
+		}
+
+		return timestamps;
+	}
+
+	public int size() {
+		return timestamps.length;
+	}
+
+	/**
+	 * Returns the start time of a trace in milliseconds since the epoch.
+	 *
+	 * @param trace
+	 * @return
+	 */
+	public long getTimestamp(int trace) {
+		return timestamps[trace];
+	}
+
+	/**
+	 * Checks if the traces are ordered by their start times.
+	 *
+	 * @return
+	 */
+	public boolean isSorted() {
+		return sorted;
+	}
+
+	/**
+	 * Checks if any trace has a timestamp. Traces before the first timestamp
+	 * of the log have none.
+	 *
+	 * @return
+	 */
+	public boolean hasTimestamps() {
+		return getLastTimestamp() != EncodedLog.NO_TIMESTAMP;
+	}
+
+	/**
+	 * Returns the earliest start time of a trace with timestamp, or
+	 * NO_TIMESTAMP if no trace has one.
+	 *
+	 * @return
+	 */
+	public long getFirstTimestamp() {
+		long[] sortedTimestamps = getSortedTimestamps();
+		int first = lowerBound(sortedTimestamps, EncodedLog.NO_TIMESTAMP + 1);
+
+		return first < sortedTimestamps.length ? sortedTimestamps[first] : EncodedLog.NO_TIMESTAMP;
+	}
+
+	/**
+	 * Returns the latest start time of a trace, or NO_TIMESTAMP if no trace has
+	 * a timestamp.
+	 *
+	 * @return
+	 */
+	public long getLastTimestamp() {
+		return timestamps.length == 0 ? EncodedLog.NO_TIMESTAMP : getSortedTimestamps()[timestamps.length - 1];
+	}
+
+	/**
+	 * Returns the index of the first trace that starts at or after the given
+	 * time, or the number of traces. Only defined on sorted logs.
+	 *
+	 * @param time
+	 * @return
+	 */
+	public int indexOf(long time) {
+		if (!sorted) {
+			throw new IllegalStateException("The traces are not sorted by their start times.");
+		}
+
+		return lowerBound(timestamps, time);
+	}
+
+	/**
+	 * Returns the number of traces that start in [from, to).
+	 *
+	 * @param from
+	 * @param to
+	 * @return
+	 */
+	public int count(long from, long to) {
+		long[] sortedTimestamps = getSortedTimestamps();
+		return Math.max(0, lowerBound(sortedTimestamps, to) - lowerBound(sortedTimestamps, from));
+	}
+
+	/**
+	 * Returns the indices of all traces ordered by their start times; traces
+	 * with equal start times keep their log order.
+	 *
+	 * @return
+	 */
+	public int[] getOrder() {
+		if (sorted) {
+			return IntStream.range(0, timestamps.length).toArray();
+		}
+
+		getSortedTimestamps();
+		return order.clone();
+	}
+
+	/**
+	 * Returns the indices of the traces that start in [from, to), ordered by
+	 * their start times.
+	 *
+	 * @param from
+	 * @param to
+	 * @return
+	 */
+	public int[] getTraces(long from, long to) {
+		long[] sortedTimestamps = getSortedTimestamps();
+		int start = lowerBound(sortedTimestamps, from);
+		int end = Math.max(start, lowerBound(sortedTimestamps, to));
+
+		if (sorted) {
+			return IntStream.range(start, end).toArray();
+		}
+
+		return Arrays.copyOfRange(order, start, end);
+	}
+
+	private synchronized long[] getSortedTimestamps() {
+		if (sorted) {
+			return timestamps;
+		}
+
+		if (order == null) {
+			// sort the primitive keys in parallel, then place the traces by the
+			// rank of their key; the placement is stable
+			long[] keys = timestamps.clone();
+			Arrays.parallelSort(keys);
+
+			int distinct = 0;
+			for (int i = 0; i < keys.length; i++) {
+				if (i == 0 || keys[i] != keys[distinct - 1]) {
+					keys[distinct++] = keys[i];
+				}
+			}
+
+			final int numberOfKeys = distinct;
+			int[] ranks = new int[timestamps.length];
+			IntStream.range(0, ranks.length).parallel()
+					.forEach(i -> ranks[i] = Arrays.binarySearch(keys, 0, numberOfKeys, timestamps[i]));
+
+			int[] starts = new int[numberOfKeys + 1];
+			for (int rank : ranks) {
+				starts[rank + 1]++;
+			}
+			for (int i = 0; i < numberOfKeys; i++) {
+				starts[i + 1] += starts[i];
+			}
+
+			int[] order = new int[timestamps.length];
+			long[] sortedTimestamps = new long[timestamps.length];
+			for (int i = 0; i < ranks.length; i++) {
+				int position = starts[ranks[i]]++;
+				order[position] = i;
+				sortedTimestamps[position] = timestamps[i];
+			}
+
+			this.sortedTimestamps = sortedTimestamps;
+			this.order = order;
+		}
+
+		return sortedTimestamps;
+	}
+
+	private static int lowerBound(long[] values, long key) {
+		int low = 0;
+		int high = values.length;
+
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (values[middle] < key) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		return low;
+	}
+
+}
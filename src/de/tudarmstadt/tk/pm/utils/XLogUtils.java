@@ -18,7 +18,6 @@
 package de.tudarmstadt.tk.pm.utils;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 
@@ -34,8 +33,18 @@ import org.deckfour.xes.model.XTrace;
 public class XLogUtils {
 
 	public static String getTraceType(XTrace trace) {
-		String name = XConceptExtension.instance().extractName(trace);
-		if (name.indexOf("_") < 0) {
+		return getTraceType(XConceptExtension.instance().extractName(trace));
+	}
+
+	/**
+	 * Returns the part of a trace name before the first underscore, which names
+	 * the process variant in the evaluation logs.
+	 *
+	 * @param name
+	 * @return
+	 */
+	public static String getTraceType(String name) {
+		if (name == null || name.indexOf("_") < 0) {
 			return "other";
 		} else {
 			return name.substring(0, name.indexOf("_"));
@@ -48,28 +57,26 @@ public class XLogUtils {
 	}
 
 	/**
-	 * Sorts the event log based on the first event.
+	 * Sorts the event log based on the first event. The start times are read
+	 * once and ordered in parallel; traces with equal start times keep their
+	 * order and traces without timestamp follow the trace before them. A sorted
+	 * log is returned as is.
 	 * 
 	 * @param log
 	 * @return
 	 */
 	public static XLog sortLog(XLog log) {
+		TimestampIndex timestamps = TimestampIndex.of(log);
+		if (timestamps.isSorted()) {
+			return log;
+		}
+
 		XFactory factory = XFactoryRegistry.instance().currentDefault();
 		XLog sortedLog = cloneButEmptyLog(factory, log);
 
-		log.stream().sorted(new Comparator<XTrace>() {
-			@Override
-			public int compare(XTrace o1, XTrace o2) {
-				if (o1.size() > 0 && o2.size() > 0) {
-					Date d1 = XTimeExtension.instance().extractTimestamp(o1.get(0));
-					Date d2 = XTimeExtension.instance().extractTimestamp(o2.get(0));
-
-					return d1.compareTo(d2);
-				}
-
-				return -1;
-			};
-		}).forEach(x -> sortedLog.add(x));
+		for (int trace : timestamps.getOrder()) {
+			sortedLog.add(log.get(trace));
+		}
 
 		return sortedLog;
 	}
@@ -108,10 +115,11 @@ public class XLogUtils {
 	}
 
 	/**
-	 * Splits the given event log into the given number of chunks.
+	 * Splits the given event log into chunks of the given number of traces. The
+	 * chunks are read-only views of the log.
 	 * 
 	 * @param log
-	 * @param numberOfChunks
+	 * @param numberOfTraces
 	 * @return
 	 */
 	public static List<XLog> createChunksByCount(XLog log, int numberOfTraces) {
@@ -120,30 +128,19 @@ public class XLogUtils {
 					"The number of traces per chunk must be smaller than the number of traces.");
 		}
 
-		XFactory factory = XFactoryRegistry.instance().currentDefault();
-
 		// split the event log
 		List<XLog> result = new ArrayList<XLog>();
-		XLog resultLog = null;
 
-		for (int i = 0; i < log.size(); i++) {
-			if (i % numberOfTraces == 0) {
-				if (resultLog != null) {
-					result.add(resultLog);
-				}
-				resultLog = cloneButEmptyLog(factory, log);
-			}
-
-			resultLog.add(log.get(i));
+		for (int i = 0; i < log.size(); i += numberOfTraces) {
+			result.add(new XLogView(log, i, i + numberOfTraces));
 		}
 
-		result.add(resultLog);
-
 		return result;
 	}
 
 	/**
-	 * Splits the given event log into the given number of chunks.
+	 * Splits the given event log into the given number of chunks. The chunks are
+	 * read-only views of the log.
 	 * 
 	 * @param log
 	 * @param numberOfChunks
@@ -154,8 +151,6 @@ public class XLogUtils {
 			throw new IllegalArgumentException("The number of chunks must be smaller than the number of traces.");
 		}
 
-		XFactory factory = XFactoryRegistry.instance().currentDefault();
-
 		// calculate chunk size
 		int chunkSize = log.size() / numberOfChunks;
 
@@ -163,13 +158,7 @@ public class XLogUtils {
 		List<XLog> result = new ArrayList<XLog>();
 
 		for (int i = 0; i < numberOfChunks; i++) {
-			XLog resultLog = cloneButEmptyLog(factory, log);
-
-			for (int j = i * chunkSize; j < Math.min(((i + 1) * chunkSize), log.size()); j++) {
-				resultLog.add(log.get(j));
-			}
-
-			result.add(resultLog);
+			result.add(new XLogView(log, i * chunkSize, (i + 1) * chunkSize));
 		}
 
 		return result;
@@ -225,22 +214,43 @@ public class XLogUtils {
 	}
 	
 	/**
-	 * Splits the given event log into the given number of chunks.
+	 * Splits a log sorted by start time into chunks based on the duration
+	 * between start events, using the start times of the timestamp index
+	 * instead of reading the events. The chunks are read-only views of the log;
+	 * traces without timestamp stay in the chunk of the trace before them.
 	 * 
 	 * @param log
-	 * @param numberOfChunks
+	 * @param timestamps
+	 * @param duration
 	 * @return
 	 */
-	public static XLog subset(XLog log, int startIndex, int endIndex) {
-		XFactory factory = XFactoryRegistry.instance().currentDefault();
+	public static List<XLog> createChunksByTimeSpan(XLog log, TimestampIndex timestamps, long duration) {
+		List<XLog> result = new ArrayList<XLog>();
 
-		// split the event log
-		XLog resultLog = cloneButEmptyLog(factory, log);
-		for (int i = Math.max(0, startIndex); i < Math.min(log.size(), endIndex); i++) {
-			resultLog.add(log.get(i));
+		int startIndex = 0;
+		while (startIndex < log.size()) {
+			// first trace that starts more than duration after the chunk
+			long end = timestamps.getTimestamp(startIndex) + duration;
+			int endIndex = end == Long.MAX_VALUE ? log.size() : Math.max(startIndex + 1, timestamps.indexOf(end + 1));
+
+			result.add(new XLogView(log, startIndex, endIndex));
+			startIndex = endIndex;
 		}
 
-		return resultLog;
+		return result;
+	}
+	
+	/**
+	 * Returns a read-only view of the traces [startIndex, endIndex) of the given
+	 * event log without copying them.
+	 * 
+	 * @param log
+	 * @param startIndex
+	 * @param endIndex
+	 * @return
+	 */
+	public static XLog subset(XLog log, int startIndex, int endIndex) {
+		return new XLogView(log, startIndex, endIndex);
 	}
 	
 	/**
@@ -0,0 +1,251 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.utils;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.info.XLogInfo;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.XVisitor;
+
+/**
+ * Read-only view of the traces [startIndex, endIndex) of a parent log. The
+ * traces, attributes, extensions and classifiers are those of the parent; only
+ * the log infos are kept per view. Views of views refer to the original log.
+ */
+public class XLogView extends AbstractList<XTrace> implements XLog {
+
+	private final XLog parent;
+
+	private final int startIndex;
+
+	private final int endIndex;
+
+	private final Map<XEventClassifier, XLogInfo> infos = new HashMap<>();
+
+	/**
+	 * Creates a view of the traces [startIndex, endIndex) of the log. The indices
+	 * are clamped to the log.
+	 *
+	 * @param log
+	 * @param startIndex
+	 * @param endIndex
+	 */
+	public XLogView(XLog log, int startIndex, int endIndex) {
+		int start = Math.max(0, Math.min(log.size(), startIndex));
+		int end = Math.max(start, Math.min(log.size(), endIndex));
+
+		if (log instanceof XLogView) {
+			XLogView view = (XLogView) log;
+			this.parent = view.parent;
+			this.startIndex = view.startIndex + start;
+			this.endIndex = view.startIndex + end;
+		} else {
+			this.parent = log;
+			this.startIndex = start;
+			this.endIndex = end;
+		}
+	}
+
+	@Override
+	public XTrace get(int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+
+		return parent.get(startIndex + index);
+	}
+
+	@Override
+	public int size() {
+		return endIndex - startIndex;
+	}
+
+	@Override
+	public List<XTrace> subList(int fromIndex, int toIndex) {
+		if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+			throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex + ", Size: " + size());
+		}
+
+		return new XLogView(this, fromIndex, toIndex);
+	}
+
+	@Override
+	public Spliterator<XTrace> spliterator() {
+		return new RangeSpliterator(parent, startIndex, endIndex);
+	}
+
+	public XLog getParent() {
+		return parent;
+	}
+
+	public int getStartIndex() {
+		return startIndex;
+	}
+
+	public int getEndIndex() {
+		return endIndex;
+	}
+
+	@Override
+	public XAttributeMap getAttributes() {
+		return parent.getAttributes();
+	}
+
+	@Override
+	public void setAttributes(XAttributeMap attributes) {
+		throw new UnsupportedOperationException("A log view is read-only.");
+	}
+
+	@Override
+	public boolean hasAttributes() {
+		return parent.hasAttributes();
+	}
+
+	@Override
+	public Set<XExtension> getExtensions() {
+		return Collections.unmodifiableSet(parent.getExtensions());
+	}
+
+	@Override
+	public List<XEventClassifier> getClassifiers() {
+		return Collections.unmodifiableList(parent.getClassifiers());
+	}
+
+	@Override
+	public List<XAttribute> getGlobalTraceAttributes() {
+		return Collections.unmodifiableList(parent.getGlobalTraceAttributes());
+	}
+
+	@Override
+	public List<XAttribute> getGlobalEventAttributes() {
+		return Collections.unmodifiableList(parent.getGlobalEventAttributes());
+	}
+
+	@Override
+	public synchronized XLogInfo getInfo(XEventClassifier classifier) {
+		return infos.get(classifier);
+	}
+
+	@Override
+	public synchronized void setInfo(XEventClassifier classifier, XLogInfo info) {
+		infos.put(classifier, info);
+	}
+
+	/**
+	 * Visits a copy of the view, since visitors may modify the log.
+	 */
+	@Override
+	public boolean accept(XVisitor visitor) {
+		return toLog().accept(visitor);
+	}
+
+	/**
+	 * Returns a modifiable log with the traces of the view.
+	 */
+	@Override
+	public Object clone() {
+		return toLog();
+	}
+
+	/**
+	 * Copies the traces of the view into a new log of the current factory.
+	 *
+	 * @return
+	 */
+	public XLog toLog() {
+		XLog log = XLogUtils.cloneButEmptyLog(XFactoryRegistry.instance().currentDefault(), parent);
+		log.addAll(this);
+
+		return log;
+	}
+
+	/**
+	 * Splits a range of traces in halves, so parallel streams over a view
+	 * divide the work without copying.
+	 */
+	private static class RangeSpliterator implements Spliterator<XTrace> {
+
+		private final XLog log;
+
+		private int index;
+
+		private final int endIndex;
+
+		RangeSpliterator(XLog log, int index, int endIndex) {
+			this.log = log;
+			this.index = index;
+			this.endIndex = endIndex;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super XTrace> action) {
+			if (index >= endIndex) {
+				return false;
+			}
+
+			action.accept(log.get(index++));
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super XTrace> action) {
+			for (; index < endIndex; index++) {
+				action.accept(log.get(index));
+			}
+		}
+
+		@Override
+		public Spliterator<XTrace> trySplit() {
+			int middle = (index + endIndex) >>> 1;
+			if (middle <= index) {
+				return null;
+			}
+
+			Spliterator<XTrace> prefix = new RangeSpliterator(log, index, middle);
+			index = middle;
+
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return endIndex - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+		}
+
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.window;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps activity names to dense integer ids in order of first appearance. The
+ * dictionary may be shared by windows that are counted in parallel.
+ */
+public class ActivityDictionary {
+
+	private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+	private volatile String[] names = new String[16];
+
+	private volatile int size = 0;
+
+	public ActivityDictionary() {
+
+	}
+
+	public ActivityDictionary(Collection<String> activities) {
+		for (String activity : activities) {
+			getId(activity);
+		}
+	}
+
+	/**
+	 * Returns the id of the given activity and registers it if it is unknown.
+	 *
+	 * @param activity
+	 * @return
+	 */
+	public int getId(String activity) {
+		Integer id = ids.get(activity);
+		return id != null ? id : register(activity);
+	}
+
+	/**
+	 * Returns the id of the given activity or -1 if it is unknown.
+	 *
+	 * @param activity
+	 * @return
+	 */
+	public int indexOf(String activity) {
+		Integer id = ids.get(activity);
+		return id == null ? -1 : id;
+	}
+
+	public String getName(int id) {
+		return names[id];
+	}
+
+	public List<String> getNames() {
+		int n = size;
+		return Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(names, n)));
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private synchronized int register(String activity) {
+		Integer id = ids.get(activity);
+
+		if (id == null) {
+			id = size;
+
+			String[] newNames = names;
+			if (id == newNames.length) {
+				newNames = Arrays.copyOf(newNames, newNames.length * 2);
+			}
+			newNames[id] = activity;
+
+			// publish the name before the id becomes visible
+			names = newNames;
+			size = id + 1;
+			ids.put(activity, id);
+		}
+
+		return id;
+	}
+
+}
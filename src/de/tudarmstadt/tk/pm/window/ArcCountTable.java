@@ -0,0 +1,210 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.window;
+
+import java.util.Arrays;
+
+/**
+ * Counts of arcs between activity ids. Small alphabets use a dense matrix;
+ * once an activity id reaches DENSE_LIMIT the counts move into an
+ * open-addressed hash table keyed by (from << 32 | to), since most pairs of a
+ * large alphabet never follow each other.
+ */
+public class ArcCountTable {
+
+	public static final int DENSE_LIMIT = 128;
+
+	private static final long EMPTY = -1L;
+
+	public interface ArcConsumer {
+		void accept(int from, int to, int count);
+	}
+
+	/** dense matrix, null in sparse mode */
+	private int[] dense;
+
+	private int stride;
+
+	/** sparse table, null in dense mode */
+	private long[] keys;
+
+	private int[] values;
+
+	private int entries;
+
+	public ArcCountTable(int numberOfActivities) {
+		if (numberOfActivities < DENSE_LIMIT) {
+			stride = Math.max(1, numberOfActivities);
+			dense = new int[stride * stride];
+		} else {
+			initSparse(16);
+		}
+	}
+
+	private ArcCountTable() {
+
+	}
+
+	public int get(int from, int to) {
+		if (dense != null) {
+			return from < stride && to < stride ? dense[from * stride + to] : 0;
+		}
+
+		int slot = find(key(from, to));
+		return keys[slot] == EMPTY ? 0 : values[slot];
+	}
+
+	public void add(int from, int to, int delta) {
+		ensureCapacity(Math.max(from, to) + 1);
+
+		if (dense != null) {
+			dense[from * stride + to] += delta;
+			return;
+		}
+
+		long key = key(from, to);
+		int slot = find(key);
+
+		if (keys[slot] == EMPTY) {
+			keys[slot] = key;
+			values[slot] = delta;
+
+			if (++entries * 2 > keys.length) {
+				rehash(keys.length * 2);
+			}
+		} else {
+			values[slot] += delta;
+		}
+	}
+
+	/**
+	 * Calls the consumer for every arc with a count other than zero.
+	 *
+	 * @param consumer
+	 */
+	public void forEach(ArcConsumer consumer) {
+		if (dense != null) {
+			for (int i = 0; i < dense.length; i++) {
+				if (dense[i] != 0) {
+					consumer.accept(i / stride, i % stride, dense[i]);
+				}
+			}
+		} else {
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] != EMPTY && values[i] != 0) {
+					consumer.accept((int) (keys[i] >>> 32), (int) keys[i], values[i]);
+				}
+			}
+		}
+	}
+
+	public void clear() {
+		if (dense != null) {
+			Arrays.fill(dense, 0);
+		} else {
+			Arrays.fill(keys, EMPTY);
+			Arrays.fill(values, 0);
+			entries = 0;
+		}
+	}
+
+	public ArcCountTable copy() {
+		ArcCountTable copy = new ArcCountTable();
+		copy.stride = stride;
+		copy.entries = entries;
+		copy.dense = dense == null ? null : dense.clone();
+		copy.keys = keys == null ? null : keys.clone();
+		copy.values = values == null ? null : values.clone();
+
+		return copy;
+	}
+
+	private void ensureCapacity(int numberOfActivities) {
+		if (dense == null || numberOfActivities <= stride) {
+			return;
+		}
+
+		if (numberOfActivities < DENSE_LIMIT) {
+			int newStride = Math.min(DENSE_LIMIT - 1, Math.max(numberOfActivities, stride * 2));
+			int[] newDense = new int[newStride * newStride];
+
+			for (int i = 0; i < stride; i++) {
+				System.arraycopy(dense, i * stride, newDense, i * newStride, stride);
+			}
+
+			dense = newDense;
+			stride = newStride;
+		} else {
+			int[] oldDense = dense;
+			int oldStride = stride;
+
+			dense = null;
+			initSparse(16);
+
+			for (int i = 0; i < oldDense.length; i++) {
+				if (oldDense[i] != 0) {
+					add(i / oldStride, i % oldStride, oldDense[i]);
+				}
+			}
+		}
+	}
+
+	private void initSparse(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		entries = 0;
+		Arrays.fill(keys, EMPTY);
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+
+		initSparse(capacity);
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int slot = find(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+				entries++;
+			}
+		}
+	}
+
+	private int find(long key) {
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+
+		while (keys[slot] != EMPTY && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+
+		return slot;
+	}
+
+	private static long key(int from, int to) {
+		return ((long) from << 32) | (to & 0xffffffffL);
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+}
@@ -0,0 +1,44 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.window;
+
+import de.tudarmstadt.tk.pm.GraphMetrics;
+
+/**
+ * Answers repeated windows from a shared window metrics cache.
+ */
+public class CachingMetricsProvider implements WindowMetricsProvider {
+
+	private final WindowMetricsProvider provider;
+
+	private final Object log;
+
+	private final WindowMetricsCache cache;
+
+	public CachingMetricsProvider(WindowMetricsProvider provider, Object log, WindowMetricsCache cache) {
+		this.provider = provider;
+		this.log = log;
+		this.cache = cache;
+	}
+
+	@Override
+	public GraphMetrics getGraphMetrics(int startIndex, int endIndex) {
+		return cache.get(log, provider, startIndex, endIndex);
+	}
+
+}
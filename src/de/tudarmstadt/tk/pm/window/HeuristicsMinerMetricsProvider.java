@@ -0,0 +1,86 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.window;
+
+import java.util.List;
+
+import org.deckfour.xes.model.XLog;
+import org.processmining.framework.plugin.PluginContext;
+import org.processmining.models.heuristics.HeuristicsNet;
+
+import de.tudarmstadt.tk.pm.GraphMetrics;
+import de.tudarmstadt.tk.pm.metrics.DetectionMetrics;
+import de.tudarmstadt.tk.pm.metrics.Phase;
+import de.tudarmstadt.tk.pm.utils.MetricsUtils;
+import de.tudarmstadt.tk.pm.utils.XLogUtils;
+
+/**
+ * Mines a heuristics net for every requested window and derives the metrics
+ * from it.
+ */
+public class HeuristicsMinerMetricsProvider implements WindowMetricsProvider {
+
+	private final PluginContext context;
+
+	private final XLog log;
+
+	private final ActivityDictionary dictionary;
+
+	private final DetectionMetrics metrics;
+
+	public HeuristicsMinerMetricsProvider(PluginContext context, XLog log, List<String> eventNames) {
+		this(context, log, new ActivityDictionary(eventNames));
+	}
+
+	public HeuristicsMinerMetricsProvider(PluginContext context, XLog log, ActivityDictionary dictionary) {
+		this(context, log, dictionary, DetectionMetrics.NONE);
+	}
+
+	/**
+	 * Creates a provider that times the mining, the graph construction and the
+	 * metrics of every window.
+	 *
+	 * @param context
+	 * @param log
+	 * @param dictionary
+	 * @param metrics
+	 */
+	public HeuristicsMinerMetricsProvider(PluginContext context, XLog log, ActivityDictionary dictionary,
+			DetectionMetrics metrics) {
+		this.context = context;
+		this.log = log;
+		this.dictionary = dictionary;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public GraphMetrics getGraphMetrics(int startIndex, int endIndex) {
+		XLog subset = XLogUtils.subset(log, startIndex, endIndex);
+
+		long start = metrics.start();
+		HeuristicsNet net = MetricsUtils.generateHeuristicsNet(context, subset);
+		metrics.stop(Phase.MINE_NET, start);
+
+		return MetricsUtils.getGraphMetrics(net, dictionary, metrics);
+	}
+
+	public ActivityDictionary getDictionary() {
+		return dictionary;
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.window;
+
+import java.util.List;
+
+import org.deckfour.xes.model.XTrace;
+
+import de.tudarmstadt.tk.pm.GraphMetrics;
+
+/**
+ * Derives the node and arc counts of a window from the directly-follows
+ * relations of its traces instead of mining a heuristics net. A small pool of
+ * sliding counters is kept (reference and detection window of the main loop
+ * and of the refinement scan); every request moves the counter that needs the
+ * fewest trace updates. Requests are serialized, since the counters are
+ * shared.
+ */
+public class IncrementalMetricsProvider implements WindowMetricsProvider {
+
+	public static final int DEFAULT_NUMBER_OF_COUNTERS = 4;
+
+	private final ActivityDictionary dictionary;
+
+	private final SlidingWindowCounter[] counters;
+
+	public IncrementalMetricsProvider(List<XTrace> log, List<String> eventNames) {
+		this(log, eventNames, DEFAULT_NUMBER_OF_COUNTERS);
+	}
+
+	public IncrementalMetricsProvider(List<XTrace> log, List<String> eventNames, int numberOfCounters) {
+		this.dictionary = new ActivityDictionary(eventNames);
+		this.counters = new SlidingWindowCounter[numberOfCounters];
+
+		for (int i = 0; i < numberOfCounters; i++) {
+			counters[i] = new SlidingWindowCounter(log, dictionary);
+		}
+	}
+
+	@Override
+	public synchronized GraphMetrics getGraphMetrics(int startIndex, int endIndex) {
+		SlidingWindowCounter counter = counters[0];
+
+		for (int i = 1; i < counters.length; i++) {
+			if (counters[i].getMoveCost(startIndex, endIndex) < counter.getMoveCost(startIndex, endIndex)) {
+				counter = counters[i];
+			}
+		}
+
+		counter.moveTo(startIndex, endIndex);
+		return counter.toGraphMetrics();
+	}
+
+	/**
+	 * Resets the counters whose windows start before the given trace. Those
+	 * traces may be gone from the log, e.g. discarded from a stream, so the
+	 * counters must not remove them when they move.
+	 *
+	 * @param index
+	 */
+	public synchronized void discardBefore(int index) {
+		for (SlidingWindowCounter counter : counters) {
+			if (counter.getStartIndex() < index && counter.getEndIndex() > counter.getStartIndex()) {
+				counter.reset();
+			}
+		}
+	}
+
+	public ActivityDictionary getDictionary() {
+		return dictionary;
+	}
+
+}
@@ -0,0 +1,43 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.window;
+
+import de.tudarmstadt.tk.pm.GraphMetrics;
+
+/**
+ * Answers windows of a log with a provider that only covers the part of the
+ * log starting at the given offset, e.g. a provider built on a view of the
+ * traces of a time range.
+ */
+public class OffsetMetricsProvider implements WindowMetricsProvider {
+
+	private final WindowMetricsProvider provider;
+
+	private final int offset;
+
+	public OffsetMetricsProvider(WindowMetricsProvider provider, int offset) {
+		this.provider = provider;
+		this.offset = offset;
+	}
+
+	@Override
+	public GraphMetrics getGraphMetrics(int startIndex, int endIndex) {
+		return provider.getGraphMetrics(startIndex - offset, endIndex - offset);
+	}
+
+}
@@ -0,0 +1,171 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.window;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.model.XTrace;
+
+import de.tudarmstadt.tk.pm.GraphMetrics;
+import de.tudarmstadt.tk.pm.utils.MetricsUtils;
+
+/**
+ * Keeps the activity and directly-follows counts of one window of traces. When
+ * the window is moved, only the traces entering and leaving the window are
+ * counted, so a slide costs O(trace length) per moved trace.
+ */
+public class SlidingWindowCounter {
+
+	private final List<XTrace> log;
+
+	private final ActivityDictionary dictionary;
+
+	private final XEventClassifier classifier = new XEventNameClassifier();
+
+	private int[] nodeCounts = new int[0];
+
+	private final ArcCountTable arcCounts;
+
+	private int startIndex = 0;
+
+	private int endIndex = 0;
+
+	public SlidingWindowCounter(List<XTrace> log, ActivityDictionary dictionary) {
+		this.log = log;
+		this.dictionary = dictionary;
+		this.arcCounts = new ArcCountTable(dictionary.size());
+	}
+
+	/**
+	 * Moves the window to [startIndex, endIndex) by adding the traces entering
+	 * and removing the traces leaving the window.
+	 *
+	 * @param startIndex
+	 * @param endIndex
+	 */
+	public void moveTo(int startIndex, int endIndex) {
+		int start = Math.max(0, Math.min(log.size(), startIndex));
+		int end = Math.max(start, Math.min(log.size(), endIndex));
+
+		if (start >= this.endIndex || end <= this.startIndex || getMoveCost(start, end) > end - start) {
+			// no overlap, recount the window
+			clear();
+
+			for (int i = start; i < end; i++) {
+				count(log.get(i), 1);
+			}
+		} else {
+			for (int i = this.startIndex; i < start; i++) {
+				count(log.get(i), -1);
+			}
+			for (int i = start; i < this.startIndex; i++) {
+				count(log.get(i), 1);
+			}
+			for (int i = end; i < this.endIndex; i++) {
+				count(log.get(i), -1);
+			}
+			for (int i = this.endIndex; i < end; i++) {
+				count(log.get(i), 1);
+			}
+		}
+
+		this.startIndex = start;
+		this.endIndex = end;
+	}
+
+	/**
+	 * Returns the number of traces that have to be counted to move the window to
+	 * [startIndex, endIndex).
+	 *
+	 * @param startIndex
+	 * @param endIndex
+	 * @return
+	 */
+	public int getMoveCost(int startIndex, int endIndex) {
+		if (startIndex >= this.endIndex || endIndex <= this.startIndex) {
+			return endIndex - startIndex;
+		}
+
+		return Math.abs(startIndex - this.startIndex) + Math.abs(endIndex - this.endIndex);
+	}
+
+	public int getNodeCount(int activity) {
+		return activity < nodeCounts.length ? nodeCounts[activity] : 0;
+	}
+
+	public int getArcCount(int from, int to) {
+		return arcCounts.get(from, to);
+	}
+
+	/**
+	 * Empties the window, so the next move counts its traces from scratch
+	 * instead of removing the traces of the current window.
+	 */
+	public void reset() {
+		clear();
+		startIndex = 0;
+		endIndex = 0;
+	}
+
+	public int getStartIndex() {
+		return startIndex;
+	}
+
+	public int getEndIndex() {
+		return endIndex;
+	}
+
+	/**
+	 * Returns a copy of the node and arc counts of the current window.
+	 * Structural metrics (degrees, number of edges) are not available without
+	 * mining the window.
+	 *
+	 * @return
+	 */
+	public GraphMetrics toGraphMetrics() {
+		return MetricsUtils.getGraphMetrics(dictionary, Arrays.copyOf(nodeCounts, dictionary.size()),
+				arcCounts.copy());
+	}
+
+	private void count(XTrace trace, int delta) {
+		int previous = -1;
+
+		for (int i = 0; i < trace.size(); i++) {
+			int current = dictionary.getId(classifier.getClassIdentity(trace.get(i)));
+			if (current >= nodeCounts.length) {
+				nodeCounts = Arrays.copyOf(nodeCounts, Math.max(current + 1, nodeCounts.length * 2));
+			}
+
+			nodeCounts[current] += delta;
+			if (previous >= 0) {
+				arcCounts.add(previous, current, delta);
+			}
+
+			previous = current;
+		}
+	}
+
+	private void clear() {
+		Arrays.fill(nodeCounts, 0);
+		arcCounts.clear();
+	}
+
+}
@@ -0,0 +1,51 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.window;
+
+import de.tudarmstadt.tk.pm.GraphMetrics;
+import de.tudarmstadt.tk.pm.utils.MetricsUtils;
+
+/**
+ * Compares the counts of a provider against a reference provider for every
+ * window and fails on the first window in which they differ.
+ */
+public class VerifyingMetricsProvider implements WindowMetricsProvider {
+
+	private final WindowMetricsProvider provider;
+
+	private final WindowMetricsProvider reference;
+
+	public VerifyingMetricsProvider(WindowMetricsProvider provider, WindowMetricsProvider reference) {
+		this.provider = provider;
+		this.reference = reference;
+	}
+
+	@Override
+	public GraphMetrics getGraphMetrics(int startIndex, int endIndex) {
+		GraphMetrics metrics = provider.getGraphMetrics(startIndex, endIndex);
+		GraphMetrics expected = reference.getGraphMetrics(startIndex, endIndex);
+
+		if (!MetricsUtils.equalCounts(metrics, expected)) {
+			throw new IllegalStateException(
+					String.format("The counts of the window %d-%d differ from the reference.", startIndex, endIndex));
+		}
+
+		return metrics;
+	}
+
+}
@@ -0,0 +1,257 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.window;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.deckfour.xes.model.XLog;
+
+import de.tudarmstadt.tk.pm.GraphMetrics;
+import de.tudarmstadt.tk.pm.encoding.EncodedLog;
+import de.tudarmstadt.tk.pm.utils.MetricsUtils;
+
+/**
+ * One-time index over an ordered event log that stores cumulative activity and
+ * directly-follows counts. The counts of a window [start, end) are the
+ * difference of two cumulative count vectors.
+ *
+ * Only arcs that occur in the log get a column, and the cumulative vectors are
+ * stored every checkpointInterval traces. The interval is chosen so the
+ * checkpoints fit into the given memory budget; the remaining traces up to the
+ * nearest checkpoint are replayed on every query.
+ */
+public class WindowCountIndex implements WindowMetricsProvider {
+
+	public static final long DEFAULT_MEMORY_BUDGET = 256L * 1024 * 1024;
+
+	private final EncodedLog log;
+
+	/** trace of the log at index 0 of the windows */
+	private final int firstTrace;
+
+	private final ActivityDictionary dictionary;
+
+	private final int numberOfTraces;
+
+	/** arc id + 1 by source and target activity */
+	private final ArcCountTable arcIds;
+
+	private int[] arcSources;
+
+	private int[] arcTargets;
+
+	private int numberOfArcs = 0;
+
+	private final int checkpointInterval;
+
+	private final int width;
+
+	/** cumulative counts (activities, then arcs) before every checkpoint */
+	private final int[] checkpoints;
+
+	public WindowCountIndex(XLog log, List<String> eventNames) {
+		this(log, eventNames, DEFAULT_MEMORY_BUDGET);
+	}
+
+	public WindowCountIndex(XLog log, List<String> eventNames, long memoryBudget) {
+		this(EncodedLog.encode(log, eventNames), memoryBudget);
+	}
+
+	/**
+	 * Creates the index directly on an encoded log, which may be memory-mapped.
+	 * Only the arcs and checkpoints are kept on the heap.
+	 *
+	 * @param log
+	 * @param memoryBudget
+	 */
+	public WindowCountIndex(EncodedLog log, long memoryBudget) {
+		this(log, 0, log.size(), memoryBudget);
+	}
+
+	/**
+	 * Creates the index on the traces [firstTrace, lastTrace) of an encoded
+	 * log. The windows are given relative to the first trace.
+	 *
+	 * @param log
+	 * @param firstTrace
+	 * @param lastTrace
+	 * @param memoryBudget
+	 */
+	public WindowCountIndex(EncodedLog log, int firstTrace, int lastTrace, long memoryBudget) {
+		if (firstTrace < 0 || lastTrace > log.size() || firstTrace > lastTrace) {
+			throw new IllegalArgumentException(
+					"Invalid trace range [" + firstTrace + ", " + lastTrace + ") of " + log.size() + " traces.");
+		}
+
+		this.log = log;
+		this.firstTrace = firstTrace;
+		this.dictionary = log.getDictionary();
+		this.numberOfTraces = lastTrace - firstTrace;
+		this.arcIds = new ArcCountTable(dictionary.size());
+
+		collectArcs();
+
+		this.width = dictionary.size() + numberOfArcs;
+
+		// choose the smallest interval whose checkpoints fit into the budget
+		long bytesPerCheckpoint = Math.max(1, (long) width * 4);
+		long maxCheckpoints = Math.max(2, memoryBudget / bytesPerCheckpoint);
+		this.checkpointInterval = (int) Math.max(1, (numberOfTraces + maxCheckpoints - 2) / (maxCheckpoints - 1));
+
+		int numberOfCheckpoints = numberOfTraces / checkpointInterval + 1;
+		this.checkpoints = new int[numberOfCheckpoints * width];
+
+		int[] cumulative = new int[width];
+		for (int i = 0; i < numberOfTraces; i++) {
+			if (i % checkpointInterval == 0) {
+				System.arraycopy(cumulative, 0, checkpoints, (i / checkpointInterval) * width, width);
+			}
+			count(i, 1, cumulative);
+		}
+		if (numberOfTraces % checkpointInterval == 0) {
+			System.arraycopy(cumulative, 0, checkpoints, (numberOfTraces / checkpointInterval) * width, width);
+		}
+	}
+
+	@Override
+	public GraphMetrics getGraphMetrics(int startIndex, int endIndex) {
+		int[] counts = getCounts(startIndex, endIndex);
+
+		int size = dictionary.size();
+		ArcCountTable arcCounts = new ArcCountTable(size);
+
+		for (int i = 0; i < numberOfArcs; i++) {
+			if (counts[size + i] != 0) {
+				arcCounts.add(arcSources[i], arcTargets[i], counts[size + i]);
+			}
+		}
+
+		return MetricsUtils.getGraphMetrics(dictionary, Arrays.copyOf(counts, size), arcCounts);
+	}
+
+	/**
+	 * Returns the counts of the traces in [startIndex, endIndex). The first
+	 * entries hold the activity counts (by activity id), the remaining entries
+	 * the arc counts (by arc id).
+	 *
+	 * @param startIndex
+	 * @param endIndex
+	 * @return
+	 */
+	public int[] getCounts(int startIndex, int endIndex) {
+		int start = Math.max(0, Math.min(numberOfTraces, startIndex));
+		int end = Math.max(start, Math.min(numberOfTraces, endIndex));
+
+		int[] counts = new int[width];
+		addCumulative(end, 1, counts);
+		addCumulative(start, -1, counts);
+
+		return counts;
+	}
+
+	public ActivityDictionary getDictionary() {
+		return dictionary;
+	}
+
+	public int getNumberOfArcs() {
+		return numberOfArcs;
+	}
+
+	public int getArcSource(int arc) {
+		return arcSources[arc];
+	}
+
+	public int getArcTarget(int arc) {
+		return arcTargets[arc];
+	}
+
+	public int getCheckpointInterval() {
+		return checkpointInterval;
+	}
+
+	/**
+	 * Adds the cumulative counts of the traces before the given index, starting
+	 * from the nearest checkpoint.
+	 */
+	private void addCumulative(int index, int sign, int[] counts) {
+		int checkpoint = index / checkpointInterval;
+		int checkpointIndex = checkpoint * checkpointInterval;
+
+		// replay towards the next checkpoint if it is closer
+		if (index - checkpointIndex > checkpointInterval / 2
+				&& (checkpoint + 1) * (long) width < checkpoints.length) {
+			checkpoint++;
+			checkpointIndex += checkpointInterval;
+		}
+
+		int offset = checkpoint * width;
+		for (int i = 0; i < width; i++) {
+			counts[i] += sign * checkpoints[offset + i];
+		}
+
+		for (int i = checkpointIndex; i < index; i++) {
+			count(i, sign, counts);
+		}
+		for (int i = index; i < checkpointIndex; i++) {
+			count(i, -sign, counts);
+		}
+	}
+
+	private void count(int trace, int delta, int[] counts) {
+		int size = dictionary.size();
+		int previous = -1;
+
+		for (int p = log.getTraceStart(firstTrace + trace); p < log.getTraceEnd(firstTrace + trace); p++) {
+			int current = log.getActivity(p);
+
+			counts[current] += delta;
+			if (previous >= 0) {
+				counts[size + arcIds.get(previous, current) - 1] += delta;
+			}
+
+			previous = current;
+		}
+	}
+
+	private void collectArcs() {
+		arcSources = new int[16];
+		arcTargets = new int[16];
+
+		for (int i = 0; i < numberOfTraces; i++) {
+			int previous = -1;
+
+			for (int p = log.getTraceStart(firstTrace + i); p < log.getTraceEnd(firstTrace + i); p++) {
+				int current = log.getActivity(p);
+
+				if (previous >= 0 && arcIds.get(previous, current) == 0) {
+					if (numberOfArcs == arcSources.length) {
+						arcSources = Arrays.copyOf(arcSources, arcSources.length * 2);
+						arcTargets = Arrays.copyOf(arcTargets, arcTargets.length * 2);
+					}
+					arcSources[numberOfArcs] = previous;
+					arcTargets[numberOfArcs] = current;
+					arcIds.add(previous, current, ++numberOfArcs);
+				}
+
+				previous = current;
+			}
+		}
+	}
+
+}
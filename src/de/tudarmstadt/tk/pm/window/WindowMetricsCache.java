@@ -0,0 +1,155 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.window;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import de.tudarmstadt.tk.pm.GraphMetrics;
+
+/**
+ * Least recently used cache of window metrics, keyed by log identity and window
+ * bounds. A window that is requested while it is computed by another thread
+ * waits for that computation instead of computing it again.
+ */
+public class WindowMetricsCache {
+
+	public static final int DEFAULT_SIZE = 128;
+
+	private final Map<WindowKey, CompletableFuture<GraphMetrics>> entries;
+
+	private long hits = 0;
+
+	private long misses = 0;
+
+	public WindowMetricsCache() {
+		this(DEFAULT_SIZE);
+	}
+
+	public WindowMetricsCache(final int maxEntries) {
+		this.entries = new LinkedHashMap<WindowKey, CompletableFuture<GraphMetrics>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<WindowKey, CompletableFuture<GraphMetrics>> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached metrics of the window or computes them with the given
+	 * provider.
+	 *
+	 * @param log
+	 *            the log the provider works on, compared by identity
+	 * @param provider
+	 * @param startIndex
+	 * @param endIndex
+	 * @return
+	 */
+	public GraphMetrics get(Object log, WindowMetricsProvider provider, int startIndex, int endIndex) {
+		WindowKey key = new WindowKey(log, startIndex, endIndex);
+		CompletableFuture<GraphMetrics> future;
+		boolean compute = false;
+
+		synchronized (this) {
+			future = entries.get(key);
+
+			if (future == null) {
+				future = new CompletableFuture<>();
+				entries.put(key, future);
+				compute = true;
+				misses++;
+			} else {
+				hits++;
+			}
+		}
+
+		if (compute) {
+			try {
+				future.complete(provider.getGraphMetrics(startIndex, endIndex));
+			} catch (RuntimeException ex) {
+				synchronized (this) {
+					entries.remove(key);
+				}
+				future.completeExceptionally(ex);
+				throw ex;
+			}
+		}
+
+		try {
+			return future.get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for window metrics.", ex);
+		} catch (ExecutionException ex) {
+			throw new IllegalStateException("Calculation of window metrics failed.", ex.getCause());
+		}
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	private static class WindowKey {
+
+		private final Object log;
+
+		private final int startIndex;
+
+		private final int endIndex;
+
+		public WindowKey(Object log, int startIndex, int endIndex) {
+			this.log = log;
+			this.startIndex = startIndex;
+			this.endIndex = endIndex;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof WindowKey)) {
+				return false;
+			}
+
+			WindowKey other = (WindowKey) obj;
+			return log == other.log && startIndex == other.startIndex && endIndex == other.endIndex;
+		}
+
+		@Override
+		public int hashCode() {
+			return (System.identityHashCode(log) * 31 + startIndex) * 31 + endIndex;
+		}
+
+	}
+
+}
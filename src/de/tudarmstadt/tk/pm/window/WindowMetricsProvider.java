@@ -0,0 +1,39 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.window;
+
+import de.tudarmstadt.tk.pm.GraphMetrics;
+
+/**
+ * Provides the node and arc firing counts of a window of traces of an ordered
+ * event log. Implementations must be safe to call from several threads, since
+ * refinement candidates may be evaluated in parallel.
+ */
+public interface WindowMetricsProvider {
+
+	/**
+	 * Returns the metrics of the traces in the range [startIndex, endIndex).
+	 * Indices outside of the log are clamped to the log bounds.
+	 *
+	 * @param startIndex
+	 * @param endIndex
+	 * @return
+	 */
+	GraphMetrics getGraphMetrics(int startIndex, int endIndex);
+
+}
@@ -0,0 +1,187 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.deckfour.xes.model.XLog;
+import org.junit.Test;
+
+import de.tudarmstadt.tk.pm.ProcessDriftSettings.LocalizationMode;
+import de.tudarmstadt.tk.pm.ProcessDriftSettings.WindowMode;
+import de.tudarmstadt.tk.pm.ProcessDriftSettings.WindowStrategyType;
+import de.tudarmstadt.tk.pm.encoding.EncodedLog;
+import de.tudarmstadt.tk.pm.generator.DriftLogGenerator;
+import de.tudarmstadt.tk.pm.generator.DriftType;
+import de.tudarmstadt.tk.pm.utils.TimestampIndex;
+import de.tudarmstadt.tk.pm.window.WindowCountIndex;
+
+/**
+ * Searches generated logs with a sudden drift.
+ */
+public class ProcessDriftDetectorTest {
+
+	private static final List<String> EVENT_NAMES = Arrays.asList(TestLogs.ACTIVITIES);
+
+	@Test
+	public void bisectionFindsTheChangePointsOfTheLinearScan() {
+		DriftLogGenerator generator = TestLogs.generator(3000, 3);
+		generator.setDriftType(DriftType.SUDDEN);
+		XLog log = TestLogs.generate(generator);
+
+		List<ChangePoint> linear = detect(log, LocalizationMode.LINEAR_SCAN);
+		List<ChangePoint> bisection = detect(log, LocalizationMode.BISECTION);
+
+		assertEquals(generator.getChangePoints().size(), linear.size());
+		assertEquals(linear.size(), bisection.size());
+
+		for (int i = 0; i < linear.size(); i++) {
+			// the linear scan moves in steps of 10 traces
+			int expected = generator.getChangePoints().get(i);
+			assertTrue("change point " + linear.get(i).getIndex(), Math.abs(linear.get(i).getIndex() - expected) <= 10);
+
+			assertEquals(linear.get(i).getIndex(), bisection.get(i).getIndex());
+		}
+	}
+
+	/**
+	 * Searches growing prefixes of the log, each resumed from the checkpoint
+	 * of the search before, and compares the change points with a search of
+	 * the whole log.
+	 */
+	@Test
+	public void resumedSearchFindsTheChangePointsOfAFullSearch() throws IOException {
+		DriftLogGenerator generator = TestLogs.generator(3000, 3);
+		generator.setDriftType(DriftType.SUDDEN);
+		EncodedLog log = EncodedLog.encode(TestLogs.generate(generator), EVENT_NAMES);
+		int[] sizes = { 400, 1000, 1513, 2000, 2400, log.size() };
+
+		for (WindowStrategyType strategy : WindowStrategyType.values()) {
+			for (LocalizationMode localizationMode : LocalizationMode.values()) {
+				for (int coarseBlockSize : new int[] { 0, 500 }) {
+					ProcessDriftSettings settings = new ProcessDriftSettings();
+					settings.setWindowStrategy(strategy);
+					settings.setLocalizationMode(localizationMode);
+					settings.setCoarseBlockSize(coarseBlockSize);
+
+					ProcessDriftDetector full = new ProcessDriftDetector(
+							new WindowCountIndex(log, WindowCountIndex.DEFAULT_MEMORY_BUDGET), settings);
+					List<Integer> expected = indices(full.detect(log.size()));
+					full.shutdown();
+
+					DetectionCheckpoint checkpoint = null;
+					List<Integer> resumed = null;
+					for (int size : sizes) {
+						ProcessDriftDetector detector = new ProcessDriftDetector(
+								new WindowCountIndex(log, 0, size, WindowCountIndex.DEFAULT_MEMORY_BUDGET), settings);
+						if (checkpoint != null) {
+							detector.restore(copy(checkpoint));
+						}
+
+						resumed = indices(detector.detect(size));
+						checkpoint = detector.getCheckpoint();
+						detector.shutdown();
+					}
+
+					assertEquals(strategy + ", " + localizationMode + ", coarse blocks " + coarseBlockSize, expected,
+							resumed);
+				}
+			}
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void timeSpanSkipsLeadingTracesWithoutTimestamp() {
+		DriftLogGenerator generator = TestLogs.generator(2000, 1);
+		generator.setDriftType(DriftType.SUDDEN);
+
+		XLog log = TestLogs.of("A B C D E", "A C B D E", "A B C D E");
+		log.addAll(TestLogs.generate(generator));
+
+		List<ChangePoint> changePoints = detectByTimeSpan(log);
+
+		assertEquals(1, changePoints.size());
+		int expected = 3 + generator.getChangePoints().get(0);
+		assertTrue("change point " + changePoints.get(0).getIndex(),
+				Math.abs(changePoints.get(0).getIndex() - expected) <= 10);
+	}
+
+	@Test(timeout = 10000)
+	public void timeSpanOfEmptyLogHasNoChangePoints() {
+		assertTrue(detectByTimeSpan(TestLogs.of()).isEmpty());
+	}
+
+	@Test(timeout = 10000)
+	public void timeSpanOfLogWithoutTimestampsHasNoChangePoints() {
+		assertTrue(detectByTimeSpan(TestLogs.of("A B C D E", "A C B D E", "A B D C E")).isEmpty());
+	}
+
+	/**
+	 * Writes and reads the checkpoint, as a resumed run does.
+	 */
+	private static DetectionCheckpoint copy(DetectionCheckpoint checkpoint) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		checkpoint.write(out);
+
+		return DetectionCheckpoint.read(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+	private static List<Integer> indices(List<ChangePoint> changePoints) {
+		List<Integer> indices = new ArrayList<>();
+		for (ChangePoint changePoint : changePoints) {
+			indices.add(changePoint.getIndex());
+		}
+
+		return indices;
+	}
+
+	private static List<ChangePoint> detect(XLog log, LocalizationMode localizationMode) {
+		ProcessDriftSettings settings = new ProcessDriftSettings();
+		settings.setLocalizationMode(localizationMode);
+
+		ProcessDriftDetector detector = new ProcessDriftDetector(new WindowCountIndex(log, EVENT_NAMES), settings);
+		List<ChangePoint> changePoints = detector.detect(log.size());
+		detector.shutdown();
+
+		return changePoints;
+	}
+
+	/**
+	 * Compares windows of 100 traces of the generated logs, moved by 10
+	 * traces.
+	 */
+	private static List<ChangePoint> detectByTimeSpan(XLog log) {
+		ProcessDriftSettings settings = new ProcessDriftSettings();
+		settings.setWindowMode(WindowMode.TIME_SPAN);
+		settings.setTimeWindowSpan(TimeUnit.MINUTES.toMillis(100));
+		settings.setTimeWindowStep(TimeUnit.MINUTES.toMillis(10));
+
+		ProcessDriftDetector detector = new ProcessDriftDetector(new WindowCountIndex(log, EVENT_NAMES), settings);
+		return detector.detectByTimeSpan(TimestampIndex.of(log));
+	}
+
+}
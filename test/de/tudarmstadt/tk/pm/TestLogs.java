@@ -0,0 +1,166 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+
+import de.tudarmstadt.tk.pm.encoding.EncodedLog;
+import de.tudarmstadt.tk.pm.encoding.EncodedLogSink;
+import de.tudarmstadt.tk.pm.generator.DriftLogGenerator;
+import de.tudarmstadt.tk.pm.generator.DriftType;
+import de.tudarmstadt.tk.pm.generator.ProcessVariant;
+
+/**
+ * Logs shared by the tests.
+ */
+public class TestLogs {
+
+	/** activities of the generated logs */
+	public static final String[] ACTIVITIES = { "A", "B", "C", "D", "E", "F" };
+
+	private TestLogs() {
+
+	}
+
+	/**
+	 * Creates a generator for a log with gradual drifts between a variant with
+	 * parallel activities and a variant with a loop, and a variant with a
+	 * different order and an additional activity. The drifts start at the
+	 * change points of the generator.
+	 *
+	 * @param numberOfTraces
+	 * @param numberOfDrifts
+	 * @return
+	 */
+	public static DriftLogGenerator generator(int numberOfTraces, int numberOfDrifts) {
+		ProcessVariant before = ProcessVariant.of("a",
+				Arrays.asList(Arrays.asList("A", "B", "C", "D", "E"), Arrays.asList("A", "C", "B", "D", "E"),
+						Arrays.asList("A", "B", "C", "D", "D", "E")));
+		ProcessVariant after = ProcessVariant.of("b",
+				Arrays.asList(Arrays.asList("A", "B", "D", "C", "E"), Arrays.asList("A", "F", "D", "C", "E")));
+
+		DriftLogGenerator generator = new DriftLogGenerator(Arrays.asList(before, after));
+		generator.setNumberOfTraces(numberOfTraces);
+		generator.setNumberOfDrifts(numberOfDrifts);
+		generator.setDriftType(DriftType.GRADUAL);
+		generator.setDriftLength(numberOfTraces / (10 * numberOfDrifts));
+		generator.setSeed(1);
+
+		return generator;
+	}
+
+	/**
+	 * Generates the log of the generator as an XLog.
+	 *
+	 * @param generator
+	 * @return
+	 */
+	public static XLog generate(DriftLogGenerator generator) {
+		XLogSink sink = new XLogSink();
+		generator.generate(sink);
+
+		return sink.log;
+	}
+
+	/**
+	 * Converts an encoded log into an XLog with the same trace names and start
+	 * times.
+	 *
+	 * @param log
+	 * @return
+	 */
+	public static XLog toXLog(EncodedLog log) {
+		XLogSink sink = new XLogSink();
+		for (int i = 0; i < log.size(); i++) {
+			sink.addTrace(log, i);
+		}
+
+		return sink.log;
+	}
+
+	/**
+	 * Creates a log with a trace for every given sequence of activities, which
+	 * are separated by spaces, e.g. "A B C". The traces are named t0, t1, ...
+	 * and have no timestamps.
+	 *
+	 * @param traces
+	 * @return
+	 */
+	public static XLog of(String... traces) {
+		XLogSink sink = new XLogSink();
+
+		for (int i = 0; i < traces.length; i++) {
+			sink.startTrace();
+			sink.setTraceName("t" + i);
+			for (String activity : traces[i].split(" ")) {
+				sink.addEvent(activity, EncodedLog.NO_TIMESTAMP);
+			}
+			sink.endTrace();
+		}
+
+		return sink.log;
+	}
+
+	private static class XLogSink implements EncodedLogSink {
+
+		private final XFactory factory = XFactoryRegistry.instance().currentDefault();
+
+		private final XLog log = factory.createLog();
+
+		private XTrace trace;
+
+		@Override
+		public void startTrace() {
+			trace = factory.createTrace();
+		}
+
+		@Override
+		public void setTraceName(String name) {
+			if (name != null) {
+				XConceptExtension.instance().assignName(trace, name);
+			}
+		}
+
+		@Override
+		public void addEvent(String activity, long timestamp) {
+			XEvent event = factory.createEvent();
+			XConceptExtension.instance().assignName(event, activity);
+			if (timestamp != EncodedLog.NO_TIMESTAMP) {
+				XTimeExtension.instance().assignTimestamp(event, new Date(timestamp));
+			}
+
+			trace.add(event);
+		}
+
+		@Override
+		public void endTrace() {
+			log.add(trace);
+		}
+
+	}
+
+}
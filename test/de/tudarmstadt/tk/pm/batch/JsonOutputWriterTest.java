@@ -0,0 +1,74 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+/**
+ * Closing the writer of the results.
+ */
+public class JsonOutputWriterTest {
+
+	@Test
+	public void closeKeepsStandardOutputOpen() throws IOException {
+		TrackingWriter out = new TrackingWriter();
+		JsonOutputWriter writer = new JsonOutputWriter(out, false);
+		writer.writeError("a.xes", new IOException("broken"));
+
+		out.flushed = false;
+		writer.close();
+
+		assertFalse(out.closed);
+		assertTrue(out.flushed);
+		assertEquals("{\"log\":\"a.xes\",\"error\":\"java.io.IOException: broken\"}\n", out.toString());
+	}
+
+	@Test
+	public void closeClosesFiles() throws IOException {
+		TrackingWriter out = new TrackingWriter();
+		new JsonOutputWriter(out).close();
+
+		assertTrue(out.closed);
+	}
+
+	private static class TrackingWriter extends StringWriter {
+
+		private boolean closed = false;
+
+		private boolean flushed = false;
+
+		@Override
+		public void flush() {
+			flushed = true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			closed = true;
+		}
+
+	}
+
+}
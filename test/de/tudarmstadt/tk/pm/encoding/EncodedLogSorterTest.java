@@ -0,0 +1,149 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.encoding;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Sorts logs with equal start times and traces without timestamp in memory and
+ * with runs spilled to disk.
+ */
+public class EncodedLogSorterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void spilledRunsAreMergedLikeTheInMemorySort() throws IOException {
+		EncodedLog log = randomLog();
+		EncodedLog expected = EncodedLogSorter.sort(log);
+
+		for (long memoryBudget : new long[] { 500, 2000, 7000, 100000 }) {
+			EncodedLogTest.assertEqualLogs(expected, sort(log, memoryBudget, true));
+		}
+	}
+
+	@Test
+	public void sortWithoutRunsMatchesTheInMemorySort() throws IOException {
+		EncodedLog log = randomLog();
+
+		EncodedLog sorted = sort(log, EncodedLogSorter.DEFAULT_MEMORY_BUDGET, false);
+
+		EncodedLogTest.assertEqualLogs(EncodedLogSorter.sort(log), sorted);
+	}
+
+	@Test
+	public void equalStartTimesKeepTheirOrderOverRuns() throws IOException {
+		EncodedLogBuilder builder = new EncodedLogBuilder();
+		for (int i = 0; i < 50; i++) {
+			addTrace(builder, "t" + i, i % 2 == 0 ? 1000L : 500L);
+		}
+		EncodedLog log = builder.build();
+
+		EncodedLog sorted = sort(log, 1, true);
+
+		for (int i = 0; i < 25; i++) {
+			assertEquals("t" + (2 * i + 1), sorted.getTraceName(i));
+			assertEquals("t" + (2 * i), sorted.getTraceName(25 + i));
+		}
+	}
+
+	/**
+	 * Every trace is a run of its own, so the trace without timestamp has to
+	 * take the start time of the run before.
+	 */
+	@Test
+	public void startTimesAreCarriedOverRuns() throws IOException {
+		EncodedLogBuilder builder = new EncodedLogBuilder();
+		addTrace(builder, "t0", 100L);
+		addTrace(builder, "t1", 300L);
+		addTrace(builder, "t2", EncodedLog.NO_TIMESTAMP);
+		addTrace(builder, "t3", 200L);
+		addTrace(builder, "t4", 300L);
+		EncodedLog log = builder.build();
+
+		EncodedLog sorted = sort(log, 1, true);
+
+		String[] expected = { "t0", "t3", "t1", "t2", "t4" };
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], sorted.getTraceName(i));
+		}
+		assertEquals(EncodedLog.NO_TIMESTAMP, sorted.getTimestamp(3));
+		EncodedLogTest.assertEqualLogs(EncodedLogSorter.sort(log), sorted);
+	}
+
+	private EncodedLog sort(EncodedLog log, long memoryBudget, boolean spill) throws IOException {
+		File file = folder.newFile();
+		File directory = folder.newFolder();
+
+		try (EncodedLogSorter sorter = new EncodedLogSorter(directory, memoryBudget)) {
+			for (int trace = 0; trace < log.size(); trace++) {
+				sorter.addTrace(log, trace);
+			}
+			assertEquals(spill, sorter.getNumberOfRuns() > 0);
+
+			sorter.finish(file);
+		}
+
+		// the spilled runs are removed
+		assertEquals(0, directory.list().length);
+
+		return EncodedLog.open(file);
+	}
+
+	/**
+	 * Creates a log whose start times are shuffled within 300 seconds, with
+	 * equal start times and traces without timestamp.
+	 */
+	private static EncodedLog randomLog() {
+		EncodedLogBuilder builder = new EncodedLogBuilder();
+		Random random = new Random(3);
+
+		for (int i = 0; i < 5000; i++) {
+			builder.startTrace();
+			builder.setTraceName("t" + i);
+
+			long timestamp = i % 7 != 0 && i % 11 != 0 ? 1000L * (i + random.nextInt(300)) : EncodedLog.NO_TIMESTAMP;
+			for (int j = random.nextInt(5); j >= 0; j--) {
+				builder.addEvent("A" + random.nextInt(6), timestamp);
+				timestamp = EncodedLog.NO_TIMESTAMP;
+			}
+
+			builder.endTrace();
+		}
+
+		return builder.build();
+	}
+
+	private static void addTrace(EncodedLogSink sink, String name, long timestamp) {
+		sink.startTrace();
+		sink.setTraceName(name);
+		sink.addEvent("A", timestamp);
+		sink.addEvent("B", EncodedLog.NO_TIMESTAMP);
+		sink.endTrace();
+	}
+
+}
@@ -0,0 +1,189 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.encoding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.tudarmstadt.tk.pm.TestLogs;
+import de.tudarmstadt.tk.pm.generator.DriftLogGenerator;
+
+/**
+ * Encodes logs in memory and into files and reads them back.
+ */
+public class EncodedLogTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void writtenLogsAreOpenedUnchanged() throws IOException {
+		EncodedLog log = generate();
+		assertTrue(log.hasNames() && log.hasTimestamps());
+
+		File file = folder.newFile("log" + EncodedLog.EXTENSION);
+		log.write(file);
+
+		assertEqualLogs(log, EncodedLog.open(file));
+	}
+
+	@Test
+	public void writerWritesTheLogOfTheBuilder() throws IOException {
+		File file = folder.newFile("log" + EncodedLog.EXTENSION);
+		try (EncodedLogWriter writer = new EncodedLogWriter(file)) {
+			TestLogs.generator(500, 2).generate(writer);
+			writer.finish();
+		}
+
+		assertEqualLogs(generate(), EncodedLog.open(file));
+	}
+
+	@Test
+	public void encodeTakesTheTimestampOfTheFirstEvent() {
+		XFactory factory = XFactoryRegistry.instance().currentDefault();
+		XLog log = factory.createLog();
+		log.add(trace(factory, null, 2000L));
+		log.add(trace(factory, 1000L, 3000L));
+
+		EncodedLog encoded = EncodedLog.encode(log);
+
+		assertTrue(encoded.hasTimestamps());
+		assertEquals(EncodedLog.NO_TIMESTAMP, encoded.getTimestamp(0));
+		assertEquals(1000L, encoded.getTimestamp(1));
+		assertEquals(4, encoded.getNumberOfEvents());
+	}
+
+	@Test
+	public void unnamedTracesStayUnnamed() {
+		EncodedLogBuilder builder = new EncodedLogBuilder();
+		addNamedTraces(builder);
+
+		assertNames(builder.build());
+	}
+
+	@Test
+	public void unnamedTracesStayUnnamedInFiles() throws IOException {
+		File file = folder.newFile("names" + EncodedLog.EXTENSION);
+		try (EncodedLogWriter writer = new EncodedLogWriter(file)) {
+			addNamedTraces(writer);
+			writer.finish();
+		}
+
+		assertNames(EncodedLog.open(file));
+	}
+
+	@Test
+	public void logsWithoutNamesHaveNoNameColumn() {
+		EncodedLogBuilder builder = new EncodedLogBuilder();
+		builder.startTrace();
+		builder.addEvent("A", EncodedLog.NO_TIMESTAMP);
+		builder.endTrace();
+
+		EncodedLog log = builder.build();
+
+		assertFalse(log.hasNames());
+		assertNull(log.getTraceName(0));
+	}
+
+	/**
+	 * Compares the activity names, trace names and timestamps of both logs.
+	 * The activity ids may differ.
+	 *
+	 * @param expected
+	 * @param actual
+	 */
+	static void assertEqualLogs(EncodedLog expected, EncodedLog actual) {
+		assertEquals(expected.size(), actual.size());
+		assertEquals(expected.getNumberOfEvents(), actual.getNumberOfEvents());
+		assertEquals(expected.hasNames(), actual.hasNames());
+		assertEquals(expected.hasTimestamps(), actual.hasTimestamps());
+
+		for (int trace = 0; trace < expected.size(); trace++) {
+			assertEquals("trace " + trace, expected.getTraceName(trace), actual.getTraceName(trace));
+			assertEquals("trace " + trace, expected.getTimestamp(trace), actual.getTimestamp(trace));
+			assertEquals("trace " + trace, expected.getTraceStart(trace), actual.getTraceStart(trace));
+			assertEquals("trace " + trace, expected.getTraceEnd(trace), actual.getTraceEnd(trace));
+		}
+
+		for (int i = 0; i < expected.getNumberOfEvents(); i++) {
+			assertEquals("event " + i, expected.getDictionary().getName(expected.getActivity(i)),
+					actual.getDictionary().getName(actual.getActivity(i)));
+		}
+	}
+
+	/**
+	 * Generates a log with names and timestamps.
+	 */
+	private static EncodedLog generate() {
+		DriftLogGenerator generator = TestLogs.generator(500, 2);
+		EncodedLogBuilder builder = new EncodedLogBuilder();
+		generator.generate(builder);
+
+		return builder.build();
+	}
+
+	private static void addNamedTraces(EncodedLogSink sink) {
+		for (String name : new String[] { null, "a_1", "", null, "b_2" }) {
+			sink.startTrace();
+			sink.setTraceName(name);
+			sink.addEvent("A", EncodedLog.NO_TIMESTAMP);
+			sink.endTrace();
+		}
+	}
+
+	private static void assertNames(EncodedLog log) {
+		assertTrue(log.hasNames());
+		assertNull(log.getTraceName(0));
+		assertEquals("a_1", log.getTraceName(1));
+		assertEquals("", log.getTraceName(2));
+		assertNull(log.getTraceName(3));
+		assertEquals("b_2", log.getTraceName(4));
+	}
+
+	private static XTrace trace(XFactory factory, Long... timestamps) {
+		XTrace trace = factory.createTrace();
+		for (Long timestamp : timestamps) {
+			XEvent event = factory.createEvent();
+			XConceptExtension.instance().assignName(event, "A");
+			if (timestamp != null) {
+				XTimeExtension.instance().assignTimestamp(event, new Date(timestamp));
+			}
+			trace.add(event);
+		}
+
+		return trace;
+	}
+
+}
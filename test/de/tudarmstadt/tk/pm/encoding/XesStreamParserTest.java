@@ -0,0 +1,152 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.encoding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.deckfour.xes.in.XesXmlParser;
+import org.deckfour.xes.model.XLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.tudarmstadt.tk.pm.TestLogs;
+
+/**
+ * Parses XES documents and compares the result with the encoded log of the
+ * XES parser and of the written log.
+ */
+public class XesStreamParserTest {
+
+	private static final String TIME_ZONE = "America/New_York";
+
+	private static final String LOG = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+			+ "<log xes.version=\"1.0\" xmlns=\"http://www.xes-standard.org/\">"
+			+ "<extension name=\"Concept\" prefix=\"concept\" uri=\"http://www.xes-standard.org/concept.xesext\"/>"
+			+ "<extension name=\"Time\" prefix=\"time\" uri=\"http://www.xes-standard.org/time.xesext\"/>"
+			+ "<global scope=\"event\"><string key=\"concept:name\" value=\"X\"/></global>"
+			+ "<classifier name=\"Activity\" keys=\"concept:name\"/>"
+			+ "<string key=\"concept:name\" value=\"log\"/>"
+			// timestamp without offset first, so the parser leaves the ISO form
+			+ "<trace><string key=\"concept:name\" value=\"a_1\"/>"
+			+ "<event><string key=\"concept:name\" value=\"A\"/>"
+			+ "<date key=\"time:timestamp\" value=\"2018-03-01T10:15:30.250\"/></event>"
+			+ "<event><string key=\"concept:name\" value=\"B\"/>"
+			+ "<date key=\"time:timestamp\" value=\"2018-03-01T11:00:00\"/></event></trace>"
+			+ "<trace><event><date key=\"time:timestamp\" value=\"2018-03-02T09:00:00.000+01:00\"/>"
+			+ "<string key=\"concept:name\" value=\"A\"><string key=\"concept:name\" value=\"nested\"/></string>"
+			+ "</event><event><string key=\"concept:name\" value=\"C\"/></event></trace>"
+			+ "<trace><string key=\"concept:name\" value=\"b_2\"/>"
+			+ "<event><string key=\"concept:name\" value=\"C\"/></event>"
+			+ "<event><string key=\"concept:name\" value=\"B\"/>"
+			+ "<date key=\"time:timestamp\" value=\"2018-03-03T09:00:00Z\"/></event></trace>"
+			+ "</log>";
+
+	private TimeZone timeZone;
+
+	@Before
+	public void setTimeZone() {
+		timeZone = TimeZone.getDefault();
+		TimeZone.setDefault(TimeZone.getTimeZone(TIME_ZONE));
+	}
+
+	@After
+	public void resetTimeZone() {
+		TimeZone.setDefault(timeZone);
+	}
+
+	@Test
+	public void parsesNamesActivitiesAndFirstTimestamps() throws IOException {
+		EncodedLog log = parse(LOG);
+
+		assertEquals(3, log.size());
+		assertEquals(6, log.getNumberOfEvents());
+
+		assertEquals("a_1", log.getTraceName(0));
+		assertNull(log.getTraceName(1));
+		assertEquals("b_2", log.getTraceName(2));
+
+		assertEquals(OffsetDateTime.parse("2018-03-02T09:00:00.000+01:00").toInstant().toEpochMilli(),
+				log.getTimestamp(1));
+		assertEquals(EncodedLog.NO_TIMESTAMP, log.getTimestamp(2));
+
+		String[] activities = { "A", "B", "A", "C", "C", "B" };
+		for (int i = 0; i < activities.length; i++) {
+			assertEquals(activities[i], log.getDictionary().getName(log.getActivity(i)));
+		}
+	}
+
+	@Test
+	public void timestampsWithoutOffsetAreInTheDefaultTimeZone() throws IOException {
+		EncodedLog log = parse(LOG);
+
+		assertEquals(LocalDateTime.parse("2018-03-01T10:15:30.250").atZone(ZoneId.of(TIME_ZONE)).toInstant()
+				.toEpochMilli(), log.getTimestamp(0));
+	}
+
+	@Test
+	public void writtenLogsAreParsedUnchanged() throws IOException {
+		EncodedLogBuilder builder = new EncodedLogBuilder();
+		TestLogs.generator(500, 2).generate(builder);
+		EncodedLog log = builder.build();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (XesStreamWriter writer = new XesStreamWriter(out)) {
+			for (int i = 0; i < log.size(); i++) {
+				writer.addTrace(log, i);
+			}
+		}
+
+		EncodedLogTest.assertEqualLogs(log, parse(new String(out.toByteArray(), StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Compares with the encoding of the log read by the OpenXES parser; skipped
+	 * if it cannot read the log.
+	 */
+	@Test
+	public void matchesTheXesParser() throws Exception {
+		List<XLog> logs;
+		try (InputStream in = new ByteArrayInputStream(LOG.getBytes(StandardCharsets.UTF_8))) {
+			logs = new XesXmlParser().parse(in);
+		}
+		assumeTrue(logs != null && logs.size() == 1);
+
+		EncodedLogTest.assertEqualLogs(EncodedLog.encode(logs.get(0)), parse(LOG));
+	}
+
+	private static EncodedLog parse(String xes) throws IOException {
+		try (InputStream in = new ByteArrayInputStream(xes.getBytes(StandardCharsets.UTF_8))) {
+			return new XesStreamParser().parse(in);
+		}
+	}
+
+}
@@ -0,0 +1,185 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.evaluation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.tudarmstadt.tk.pm.ChangePoint;
+
+/**
+ * Scores change points against a log of 400 traces that changes its variant
+ * at the traces 100 and 300.
+ */
+public class EvaluationCalculatorTest {
+
+	private static final double DELTA = 1e-9;
+
+	private final EvaluationCalculator evaluation = new EvaluationCalculator(names("a", 100, "b", 200, "a", 100));
+
+	@Test
+	public void changePointsAreTheFirstTracesOfTheNewVariants() {
+		assertArrayEquals(new int[] { 100, 300 }, evaluation.getOriginalChangePoints());
+	}
+
+	@Test
+	public void defaultMatchingGivesSecondPointToTheNextFreeChangePoint() {
+		EvaluationResult result = evaluation.evaluate(changePoints(110, 120));
+
+		assertEquals(2, result.getTruePositives());
+		assertEquals(0, result.getFalsePositives());
+		assertEquals(0, result.getFalseNegatives());
+		assertEquals(1.0, result.getF1score(), DELTA);
+		assertEquals((10 + 180) / 2.0, result.getAverageDistance(), DELTA);
+	}
+
+	@Test
+	public void defaultMatchingReplacesFartherPoints() {
+		EvaluationResult result = evaluation.evaluate(changePoints(130, 105));
+
+		// 130 takes 100, 105 takes it over, 300 is left
+		assertEquals(1, result.getTruePositives());
+		assertEquals(1, result.getFalsePositives());
+		assertEquals(1, result.getFalseNegatives());
+		assertEquals(5.0, result.getAverageDistance(), DELTA);
+	}
+
+	@Test
+	public void defaultMatchingWithoutMatchHasNoF1Score() {
+		EvaluationResult result = evaluation.evaluate(changePoints());
+
+		assertEquals(0, result.getTruePositives());
+		assertEquals(2, result.getFalseNegatives());
+		assertTrue(Double.isNaN(result.getF1score()));
+	}
+
+	@Test
+	public void mergeCountsSecondPointAsFalsePositive() {
+		EvaluationResult result = evaluation.evaluate(changePoints(110, 120), Integer.MAX_VALUE);
+
+		assertEquals(1, result.getTruePositives());
+		assertEquals(1, result.getFalsePositives());
+		assertEquals(1, result.getFalseNegatives());
+		assertEquals(10.0, result.getAverageDistance(), DELTA);
+	}
+
+	@Test
+	public void mergeCountsMatchesUpToTheTolerance() {
+		assertEquals(2, evaluation.evaluate(changePoints(90, 310), 10).getTruePositives());
+		assertEquals(0, evaluation.evaluate(changePoints(89, 311), 10).getTruePositives());
+		assertEquals(2, evaluation.evaluate(changePoints(89, 311), 11).getTruePositives());
+	}
+
+	@Test
+	public void mergeWithZeroToleranceCountsExactMatches() {
+		EvaluationResult result = evaluation.evaluate(changePoints(100, 301), 0);
+
+		assertEquals(1, result.getTruePositives());
+		assertEquals(1, result.getFalsePositives());
+		assertEquals(1, result.getFalseNegatives());
+		assertEquals(0.0, result.getAverageDistance(), DELTA);
+	}
+
+	@Test
+	public void mergeGivesTiesToTheEarlierChangePoint() {
+		EvaluationResult result = evaluation.evaluate(changePoints(200), Integer.MAX_VALUE);
+
+		assertEquals(1, result.getTruePositives());
+		assertEquals(1, result.getFalseNegatives());
+		assertEquals(100.0, result.getAverageDistance(), DELTA);
+	}
+
+	@Test
+	public void mergeSortsTheDetectedPoints() {
+		EvaluationResult sorted = evaluation.evaluate(changePoints(95, 290, 320), 50);
+		EvaluationResult unsorted = evaluation.evaluate(changePoints(320, 95, 290), 50);
+
+		assertEquals(2, sorted.getTruePositives());
+		assertEquals(1, sorted.getFalsePositives());
+		assertEquals(sorted.getTruePositives(), unsorted.getTruePositives());
+		assertEquals(sorted.getAverageDistance(), unsorted.getAverageDistance(), DELTA);
+	}
+
+	@Test
+	public void mergeWithoutMatchHasF1ScoreZero() {
+		EvaluationResult none = evaluation.evaluate(changePoints(), 10);
+		EvaluationResult tooFar = evaluation.evaluate(changePoints(200), 10);
+
+		assertEquals(0.0, none.getF1score(), DELTA);
+		assertEquals(0.0, tooFar.getF1score(), DELTA);
+		assertEquals(1, tooFar.getFalsePositives());
+	}
+
+	@Test
+	public void mergeOfSeveralTolerancesEqualsSingleTolerances() {
+		List<ChangePoint> changePoints = changePoints(80, 105, 250, 330);
+		int[] tolerances = { 0, 5, 20, 50, Integer.MAX_VALUE };
+		EvaluationResult[] results = evaluation.evaluate(changePoints, tolerances);
+
+		for (int i = 0; i < tolerances.length; i++) {
+			EvaluationResult single = evaluation.evaluate(changePoints, tolerances[i]);
+
+			assertEquals(single.getTruePositives(), results[i].getTruePositives());
+			assertEquals(single.getFalsePositives(), results[i].getFalsePositives());
+			assertEquals(single.getF1score(), results[i].getF1score(), DELTA);
+		}
+		assertEquals(1, results[1].getTruePositives());
+		assertEquals(2, results[3].getTruePositives());
+	}
+
+	@Test
+	public void logWithoutChangePointsHasOnlyFalsePositives() {
+		EvaluationCalculator stable = new EvaluationCalculator(names("a", 200));
+		EvaluationResult result = stable.evaluate(changePoints(50, 150), Integer.MAX_VALUE);
+
+		assertEquals(0, result.getTruePositives());
+		assertEquals(2, result.getFalsePositives());
+		assertEquals(0, result.getFalseNegatives());
+	}
+
+	/**
+	 * Creates trace names of segments of traces of the same variant, given as
+	 * pairs of variant and number of traces.
+	 */
+	private static List<String> names(Object... segments) {
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < segments.length; i += 2) {
+			for (int j = 0; j < (Integer) segments[i + 1]; j++) {
+				names.add(segments[i] + "_" + names.size());
+			}
+		}
+
+		return names;
+	}
+
+	private static List<ChangePoint> changePoints(int... indices) {
+		List<ChangePoint> changePoints = new ArrayList<>();
+		for (int index : indices) {
+			changePoints.add(new ChangePoint(index));
+		}
+
+		return changePoints;
+	}
+
+}
@@ -0,0 +1,154 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.math3.distribution.ChiSquaredDistribution;
+import org.apache.commons.math3.stat.inference.GTest;
+import org.junit.Test;
+
+/**
+ * Compares the G-test kernel with the G-test of commons-math the detector used
+ * before, on random count vectors with entries that are zero in both vectors.
+ */
+public class GTestKernelTest {
+
+	private static final double[] THRESHOLDS = { 0.05, 0.01, 0.001 };
+
+	private final GTestKernel kernel = new GTestKernel();
+
+	@Test
+	public void pValueMatchesGTest() {
+		Random random = new Random(1);
+
+		for (int i = 0; i < 2000; i++) {
+			long[][] counts = counts(random);
+			double expected = gTest(counts[0], counts[1]);
+
+			// the statistic is summed differently, which only shows for
+			// almost identical vectors with a p-value close to 1
+			assertEquals("case " + i, expected, kernel.pValue(counts[0], counts[1], counts[0].length), 1e-6);
+		}
+	}
+
+	@Test
+	public void thresholdModeDecidesLikeGTest() {
+		Random random = new Random(2);
+
+		for (int i = 0; i < 2000; i++) {
+			long[][] counts = counts(random);
+			double expected = gTest(counts[0], counts[1]);
+
+			for (double threshold : THRESHOLDS) {
+				double pValue = kernel.pValue(counts[0], counts[1], counts[0].length, threshold);
+				assertEquals("case " + i + ", threshold " + threshold, expected < threshold, pValue < threshold);
+			}
+		}
+	}
+
+	@Test
+	public void onlyTheGivenLengthIsTested() {
+		long[] references = { 10, 20, 0, 30, 99 };
+		long[] detections = { 15, 0, 0, 25, 1 };
+
+		assertEquals(gTest(new long[] { 10, 20, 30 }, new long[] { 15, 0, 25 }),
+				kernel.pValue(references, detections, 4), 1e-12);
+	}
+
+	@Test
+	public void undefinedTestsAreInsignificant() {
+		// one entry left
+		assertEquals(1, kernel.pValue(new long[] { 5, 0 }, new long[] { 7, 0 }, 2), 0);
+		// no counts in one of the vectors
+		assertEquals(1, kernel.pValue(new long[] { 0, 0, 0 }, new long[] { 1, 2, 3 }, 3), 0);
+		assertEquals(1, kernel.pValue(new long[] { 0, 0, 0 }, new long[] { 1, 2, 3 }, 3, 0.05), 0);
+		assertEquals(Double.NEGATIVE_INFINITY, kernel.score(new long[] { 5 }, new long[] { 7 }, 1), 0);
+	}
+
+	@Test
+	public void criticalValuesMatchTheChiSquareDistribution() {
+		// ask for a large table first, then for values the table already holds
+		for (int degreesOfFreedom : new int[] { 40, 1, 2, 3, 10, 39, 41, 100 }) {
+			for (double threshold : THRESHOLDS) {
+				ChiSquaredDistribution distribution = new ChiSquaredDistribution(degreesOfFreedom);
+				double criticalValue = kernel.getCriticalValue(degreesOfFreedom, threshold);
+
+				assertEquals(distribution.inverseCumulativeProbability(1.0 - threshold), criticalValue, 1e-9);
+				assertEquals(1.0 - threshold, distribution.cumulativeProbability(criticalValue), 1e-9);
+			}
+		}
+	}
+
+	/**
+	 * The G-test of the detector before the kernel: entries that are zero in
+	 * both vectors are removed before the test.
+	 */
+	private static double gTest(long[] references, long[] detections) {
+		long[] referenceValues = new long[references.length];
+		long[] detectionValues = new long[references.length];
+		int length = 0;
+
+		for (int i = 0; i < references.length; i++) {
+			if (references[i] != 0 || detections[i] != 0) {
+				referenceValues[length] = references[i];
+				detectionValues[length] = detections[i];
+				length++;
+			}
+		}
+
+		return new GTest().gTestDataSetsComparison(Arrays.copyOf(referenceValues, length),
+				Arrays.copyOf(detectionValues, length));
+	}
+
+	/**
+	 * Returns two count vectors with at least two entries that are not zero in
+	 * both and a count in each vector. Some cases differ strongly, some are
+	 * drawn from the same distribution.
+	 */
+	private static long[][] counts(Random random) {
+		while (true) {
+			int length = 2 + random.nextInt(30);
+			int scale = 1 + random.nextInt(random.nextBoolean() ? 10 : 1000);
+			boolean shifted = random.nextBoolean();
+
+			long[] references = new long[length];
+			long[] detections = new long[length];
+			int columns = 0;
+
+			for (int i = 0; i < length; i++) {
+				if (random.nextInt(4) > 0) {
+					references[i] = random.nextInt(scale);
+					detections[i] = shifted ? random.nextInt(scale) : references[i] + random.nextInt(3) - 1;
+					detections[i] = Math.max(0, detections[i]);
+				}
+				if (references[i] != 0 || detections[i] != 0) {
+					columns++;
+				}
+			}
+
+			if (columns >= 2 && Arrays.stream(references).sum() > 0 && Arrays.stream(detections).sum() > 0) {
+				return new long[][] { references, detections };
+			}
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.deckfour.xes.model.XLog;
+import org.junit.Test;
+
+import de.tudarmstadt.tk.pm.TestLogs;
+import de.tudarmstadt.tk.pm.encoding.EncodedLog;
+import de.tudarmstadt.tk.pm.generator.DriftLogGenerator;
+
+/**
+ * Start times of logs with and without timestamps.
+ */
+public class TimestampIndexTest {
+
+	@Test
+	public void leadingTracesWithoutTimestampAreSkipped() {
+		DriftLogGenerator generator = TestLogs.generator(100, 1);
+		generator.setStartTime(1000000L);
+
+		XLog log = TestLogs.of("A B", "A C");
+		log.addAll(TestLogs.generate(generator));
+		TimestampIndex timestamps = TimestampIndex.of(log);
+
+		assertTrue(timestamps.isSorted());
+		assertTrue(timestamps.hasTimestamps());
+		assertEquals(1000000L, timestamps.getFirstTimestamp());
+		assertEquals(1000000L + 99 * generator.getTraceInterval(), timestamps.getLastTimestamp());
+		assertEquals(EncodedLog.NO_TIMESTAMP, timestamps.getTimestamp(1));
+		assertEquals(2, timestamps.indexOf(timestamps.getFirstTimestamp()));
+	}
+
+	@Test
+	public void tracesWithoutTimestampKeepThePreviousStartTime() {
+		XLog log = TestLogs.generate(TestLogs.generator(100, 1));
+		log.addAll(5, TestLogs.of("A B", "A C"));
+		TimestampIndex timestamps = TimestampIndex.of(log);
+
+		assertTrue(timestamps.isSorted());
+		assertEquals(timestamps.getTimestamp(4), timestamps.getTimestamp(5));
+		assertEquals(timestamps.getTimestamp(4), timestamps.getTimestamp(6));
+		assertEquals(3, timestamps.count(timestamps.getTimestamp(4), timestamps.getTimestamp(4) + 1));
+	}
+
+	@Test
+	public void emptyLogHasNoTimestamps() {
+		TimestampIndex timestamps = TimestampIndex.of(TestLogs.of());
+
+		assertFalse(timestamps.hasTimestamps());
+		assertEquals(EncodedLog.NO_TIMESTAMP, timestamps.getFirstTimestamp());
+		assertEquals(EncodedLog.NO_TIMESTAMP, timestamps.getLastTimestamp());
+	}
+
+	@Test
+	public void logWithoutTimestampsHasNoTimestamps() {
+		TimestampIndex timestamps = TimestampIndex.of(TestLogs.of("A B", "A C", "A B C"));
+
+		assertFalse(timestamps.hasTimestamps());
+		assertEquals(EncodedLog.NO_TIMESTAMP, timestamps.getFirstTimestamp());
+	}
+
+	@Test
+	public void unsortedLogIsSearchedByStartTime() {
+		XLog log = TestLogs.generate(TestLogs.generator(100, 1));
+		log.add(0, log.remove(99));
+		TimestampIndex timestamps = TimestampIndex.of(log);
+
+		assertFalse(timestamps.isSorted());
+		assertEquals(log.size(), timestamps.getOrder().length);
+		assertEquals(0, timestamps.getOrder()[99]);
+		assertEquals(1, timestamps.getOrder()[0]);
+		assertEquals(timestamps.getTimestamp(1), timestamps.getFirstTimestamp());
+		assertEquals(timestamps.getTimestamp(0), timestamps.getLastTimestamp());
+	}
+
+}
@@ -0,0 +1,128 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.window;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import de.tudarmstadt.tk.pm.GraphMetrics;
+import de.tudarmstadt.tk.pm.TestLogs;
+import de.tudarmstadt.tk.pm.utils.MetricsUtils;
+
+/**
+ * Slides windows over a generated log with a drift and compares the counts of
+ * the IncrementalMetricsProvider against the directly-follows counts of the
+ * windows and against the prefix index.
+ */
+public class IncrementalMetricsProviderTest {
+
+	private static final int WINDOW_SIZE = 200;
+
+	private static final int STEP = 50;
+
+	private static XLog log;
+
+	private static List<String> eventNames;
+
+	@BeforeClass
+	public static void generateLog() {
+		log = TestLogs.generate(TestLogs.generator(2000, 1));
+		eventNames = Arrays.asList(TestLogs.ACTIVITIES);
+	}
+
+	@Test
+	public void slidingWindowsMatchDirectlyFollowsCounts() {
+		WindowMetricsProvider provider = new IncrementalMetricsProvider(log, eventNames);
+
+		assertEqualCounts(provider, IncrementalMetricsProviderTest::count);
+	}
+
+	@Test
+	public void slidingWindowsMatchPrefixIndex() {
+		WindowMetricsProvider provider = new IncrementalMetricsProvider(log, eventNames);
+		WindowMetricsProvider index = new WindowCountIndex(log, eventNames);
+
+		assertEqualCounts(provider, index);
+	}
+
+	/**
+	 * The counts are an approximation of the arc usage of a mined net: parallel
+	 * activities are only counted in the order they occur.
+	 */
+	@Test
+	public void parallelActivitiesAreCountedAsDirectlyFollows() {
+		XLog parallel = TestLogs.of("A B C D E", "A C B D E");
+		GraphMetrics metrics = new IncrementalMetricsProvider(parallel, eventNames).getGraphMetrics(0, 2);
+		ActivityDictionary dictionary = metrics.getDictionary();
+
+		assertEquals(1, metrics.getArcCount(dictionary.indexOf("A"), dictionary.indexOf("B")));
+		assertEquals(1, metrics.getArcCount(dictionary.indexOf("C"), dictionary.indexOf("B")));
+		assertEquals(1, metrics.getArcCount(dictionary.indexOf("B"), dictionary.indexOf("C")));
+		assertEquals(1, metrics.getArcCount(dictionary.indexOf("C"), dictionary.indexOf("D")));
+		assertEquals(0, metrics.getArcCount(dictionary.indexOf("A"), dictionary.indexOf("D")));
+		assertEquals(2, metrics.getNodeCount(dictionary.indexOf("B")));
+	}
+
+	/**
+	 * Requests the reference and detection window of every position, as the
+	 * detector does, so the counters are moved by one step at a time.
+	 */
+	private static void assertEqualCounts(WindowMetricsProvider provider, WindowMetricsProvider reference) {
+		for (int i = WINDOW_SIZE; i + WINDOW_SIZE <= log.size(); i += STEP) {
+			for (int start : new int[] { i - WINDOW_SIZE, i }) {
+				assertTrue("window " + start + "-" + (start + WINDOW_SIZE),
+						MetricsUtils.equalCounts(provider.getGraphMetrics(start, start + WINDOW_SIZE),
+								reference.getGraphMetrics(start, start + WINDOW_SIZE)));
+			}
+		}
+	}
+
+	/**
+	 * Counts the activities and directly-follows pairs of the window from
+	 * scratch.
+	 */
+	private static GraphMetrics count(int startIndex, int endIndex) {
+		ActivityDictionary dictionary = new ActivityDictionary(eventNames);
+		int[] nodeCounts = new int[dictionary.size()];
+		ArcCountTable arcCounts = new ArcCountTable(dictionary.size());
+
+		for (XTrace trace : log.subList(startIndex, endIndex)) {
+			int previous = -1;
+			for (int i = 0; i < trace.size(); i++) {
+				int current = dictionary.getId(XConceptExtension.instance().extractName(trace.get(i)));
+				nodeCounts[current]++;
+				if (previous >= 0) {
+					arcCounts.add(previous, current, 1);
+				}
+				previous = current;
+			}
+		}
+
+		return MetricsUtils.getGraphMetrics(dictionary, nodeCounts, arcCounts);
+	}
+
+}
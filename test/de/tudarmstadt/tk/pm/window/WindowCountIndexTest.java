@@ -0,0 +1,151 @@
+/*
+ *  Process Drift Detection
+ *  Copyright (C) 2018  Alexander Seeliger
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.tudarmstadt.tk.pm.window;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import de.tudarmstadt.tk.pm.GraphMetrics;
+import de.tudarmstadt.tk.pm.TestLogs;
+import de.tudarmstadt.tk.pm.encoding.EncodedLog;
+import de.tudarmstadt.tk.pm.utils.MetricsUtils;
+
+/**
+ * Compares the counts of the prefix index with counts from scratch for windows
+ * that start and end at, next to and between the checkpoints of different
+ * memory budgets.
+ */
+public class WindowCountIndexTest {
+
+	private static final int NUMBER_OF_TRACES = 500;
+
+	private static EncodedLog log;
+
+	/** bytes of one checkpoint */
+	private static long checkpointSize;
+
+	@BeforeClass
+	public static void generateLog() {
+		log = EncodedLog.encode(TestLogs.generate(TestLogs.generator(NUMBER_OF_TRACES, 1)),
+				Arrays.asList(TestLogs.ACTIVITIES));
+
+		WindowCountIndex index = new WindowCountIndex(log, WindowCountIndex.DEFAULT_MEMORY_BUDGET);
+		checkpointSize = (index.getDictionary().size() + index.getNumberOfArcs()) * 4L;
+	}
+
+	@Test
+	public void checkpointAtEveryTrace() {
+		assertCheckpoints(WindowCountIndex.DEFAULT_MEMORY_BUDGET, 1);
+	}
+
+	@Test
+	public void lastCheckpointAtTheEndOfTheLog() {
+		assertCheckpoints(11 * checkpointSize, 50);
+	}
+
+	@Test
+	public void lastCheckpointBeforeTheEndOfTheLog() {
+		assertCheckpoints(8 * checkpointSize, 72);
+	}
+
+	@Test
+	public void budgetBelowTwoCheckpoints() {
+		assertCheckpoints(0, NUMBER_OF_TRACES);
+	}
+
+	@Test
+	public void rangeOfTheLog() {
+		int firstTrace = 120;
+		int lastTrace = 430;
+		WindowCountIndex index = new WindowCountIndex(log, firstTrace, lastTrace, 8 * checkpointSize);
+
+		for (int start : boundaries(index.getCheckpointInterval(), lastTrace - firstTrace)) {
+			for (int end : boundaries(index.getCheckpointInterval(), lastTrace - firstTrace)) {
+				if (start <= end) {
+					assertTrue("window " + start + "-" + end, MetricsUtils.equalCounts(
+							count(firstTrace + start, firstTrace + end), index.getGraphMetrics(start, end)));
+				}
+			}
+		}
+	}
+
+	private static void assertCheckpoints(long memoryBudget, int checkpointInterval) {
+		WindowCountIndex index = new WindowCountIndex(log, memoryBudget);
+		assertEquals(checkpointInterval, index.getCheckpointInterval());
+
+		for (int start : boundaries(checkpointInterval, NUMBER_OF_TRACES)) {
+			for (int end : boundaries(checkpointInterval, NUMBER_OF_TRACES)) {
+				if (start <= end) {
+					assertTrue("window " + start + "-" + end,
+							MetricsUtils.equalCounts(count(start, end), index.getGraphMetrics(start, end)));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the checkpoints, their neighbours and the indices where the
+	 * replay switches to the next checkpoint, at most every 10th checkpoint so
+	 * small intervals stay fast.
+	 */
+	private static TreeSet<Integer> boundaries(int checkpointInterval, int numberOfTraces) {
+		TreeSet<Integer> boundaries = new TreeSet<>();
+		int step = Math.max(checkpointInterval, numberOfTraces / 10);
+
+		for (int checkpoint = 0; checkpoint <= numberOfTraces + checkpointInterval; checkpoint += step) {
+			for (int index : new int[] { checkpoint - 1, checkpoint, checkpoint + 1,
+					checkpoint + checkpointInterval / 2, checkpoint + checkpointInterval / 2 + 1 }) {
+				boundaries.add(Math.max(0, Math.min(numberOfTraces, index)));
+			}
+		}
+		boundaries.add(numberOfTraces);
+
+		return boundaries;
+	}
+
+	/**
+	 * Counts the activities and directly-follows pairs of the traces [start,
+	 * end) from scratch.
+	 */
+	private static GraphMetrics count(int start, int end) {
+		ActivityDictionary dictionary = log.getDictionary();
+		int[] nodeCounts = new int[dictionary.size()];
+		ArcCountTable arcCounts = new ArcCountTable(dictionary.size());
+
+		for (int trace = start; trace < end; trace++) {
+			int previous = -1;
+			for (int p = log.getTraceStart(trace); p < log.getTraceEnd(trace); p++) {
+				int current = log.getActivity(p);
+				nodeCounts[current]++;
+				if (previous >= 0) {
+					arcCounts.add(previous, current, 1);
+				}
+				previous = current;
+			}
+		}
+
+		return MetricsUtils.getGraphMetrics(dictionary, nodeCounts, arcCounts);
+	}
+
+}